@@ -57,10 +57,13 @@ import java.sql.Struct;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import snaq.util.Reusable;
@@ -96,17 +99,33 @@ public final class CacheConnection implements Connection, StatementListener, Reu
   /** Statement cache ({@code List} of {@code Statement}). */
   private final List<CachedStatement> ss = new ArrayList<>();
   /** Holder for Statement instances in use. */
-  private final List<CachedStatement> ssUsed = new ArrayList<>();
+  private final Set<CachedStatement> ssUsed = new LinkedHashSet<>();
   /** PreparedStatement cache ({@code Map} of {@code PreparedStatement}). */
   private final Map<String,List<CachedPreparedStatement>> ps = new HashMap<>();
   /** Holder for {@code PreparedStatement} instances in use. */
-  private final List<CachedPreparedStatement> psUsed = new ArrayList<>();
+  private final Set<CachedPreparedStatement> psUsed = new LinkedHashSet<>();
   /** CallableStatement cache ({@code Map} of {@code CallableStatement}). */
   private final Map<String,List<CachedCallableStatement>> cs = new HashMap<>();
   /** Holder for {@code CallableStatement} instances in use. */
-  private final List<CachedCallableStatement> csUsed = new ArrayList<>();
+  private final Set<CachedCallableStatement> csUsed = new LinkedHashSet<>();
   /** Holder for non-cacheable Statement instances that are in use. */
-  private final List<CachedStatement> nonCacheable = new ArrayList<>();
+  private final Set<CachedStatement> nonCacheable = new LinkedHashSet<>();
+  // Locks guarding the statement caches and holders (explicit locks are used
+  // instead of monitors, which may pin the carrier of a virtual thread).
+  /** Lock for {@code ss}. */
+  private final ReentrantLock ssLock = new ReentrantLock();
+  /** Lock for {@code ssUsed}. */
+  private final ReentrantLock ssUsedLock = new ReentrantLock();
+  /** Lock for {@code ps}. */
+  private final ReentrantLock psLock = new ReentrantLock();
+  /** Lock for {@code psUsed}. */
+  private final ReentrantLock psUsedLock = new ReentrantLock();
+  /** Lock for {@code cs}. */
+  private final ReentrantLock csLock = new ReentrantLock();
+  /** Lock for {@code csUsed}. */
+  private final ReentrantLock csUsedLock = new ReentrantLock();
+  /** Lock for {@code nonCacheable}. */
+  private final ReentrantLock nonCacheableLock = new ReentrantLock();
   /** Flag indicating whether {@link Statement} instances are to be cached. */
   private boolean cacheS;
   /** Flag indicating whether {@link Statement} instances are to be cached. */
@@ -156,6 +175,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
     open = true;
   }
 
+  /**
+   * Marks this connection as closed, without returning it to the pool
+   * (used when the pool reclaims a leaked connection).
+   */
+  void setClosed()
+  {
+    open = false;
+  }
+
   /**
    * Added to provide caching support.
    */
@@ -391,7 +419,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
     }
     else
     {
-      synchronized(ss)
+      ssLock.lock();
+      try
       {
         ssReq++;
         // Find Statement matching criteria required.
@@ -425,8 +454,14 @@ public final class CacheConnection implements Connection, StatementListener, Reu
           log_debug(pool.getName() + ": Statement cache miss [" + cst.getParametersString() + "] - " + showHitRate(ssHit, ssReq, "S-"));
         }
       }
+      finally
+      {
+        ssLock.unlock();
+      }
     }
-    synchronized(ssUsed) { ssUsed.add(cst); }
+    ssUsedLock.lock();
+    try { ssUsed.add(cst); }
+    finally { ssUsedLock.unlock(); }
     return cst;
   }
 
@@ -463,7 +498,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
     }
     else
     {
-      synchronized(ps)
+      psLock.lock();
+      try
       {
         psReq++;
         // Get List of cached PreparedStatements with matching SQL.
@@ -505,11 +541,20 @@ public final class CacheConnection implements Connection, StatementListener, Reu
           log_debug(pool.getName() + ": PreparedStatement cache miss [" + sql + "," + cps.getParametersString() + "] - " + showHitRate(psHit, psReq, "PS-"));
         }
       }
+      finally
+      {
+        psLock.unlock();
+      }
     }
-    synchronized(psUsed)
+    psUsedLock.lock();
+    try
     {
       psUsed.add(cps);
     }
+    finally
+    {
+      psUsedLock.unlock();
+    }
     return cps;
   }
 
@@ -546,7 +591,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
     }
     else
     {
-      synchronized(cs)
+      csLock.lock();
+      try
       {
         csReq++;
         // Get List of cached CallableStatements with matching SQL.
@@ -589,11 +635,20 @@ public final class CacheConnection implements Connection, StatementListener, Reu
           log_debug(pool.getName() + ": CallableStatement cache miss [" + sql + "," + ccs.getParametersString() + "] - " + showHitRate(csHit, csReq, "CS-"));
         }
       }
+      finally
+      {
+        csLock.unlock();
+      }
     }
-    synchronized(csUsed)
+    csUsedLock.lock();
+    try
     {
       csUsed.add(ccs);
     }
+    finally
+    {
+      csUsedLock.unlock();
+    }
     return ccs;
   }
 
@@ -607,7 +662,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
   public void statementClosed(CachedStatement s) throws SQLException
   {
     // Check to see if statement is definitely non-cacheable.
-    synchronized(nonCacheable)
+    nonCacheableLock.lock();
+    try
     {
       if (nonCacheable.remove(s))
       {
@@ -615,17 +671,27 @@ public final class CacheConnection implements Connection, StatementListener, Reu
         return;
       }
     }
+    finally
+    {
+      nonCacheableLock.unlock();
+    }
     // ...otherwise process as possibly cacheable.
     if (s instanceof CachedCallableStatement)
     {
-      synchronized(cs)
+      csLock.lock();
+      try
       {
         CachedCallableStatement ccs = (CachedCallableStatement)s;
         String key = ccs.getSQLString();
-        synchronized(csUsed)
+        csUsedLock.lock();
+        try
         {
           csUsed.remove(ccs);
         }
+        finally
+        {
+          csUsedLock.unlock();
+        }
         // If caching disabled close statement.
         if (!cacheC || !ccs.isCacheable())
           ccs.release();
@@ -649,17 +715,27 @@ public final class CacheConnection implements Connection, StatementListener, Reu
           }
         }
       }
+      finally
+      {
+        csLock.unlock();
+      }
     }
     else if (s instanceof CachedPreparedStatement)
     {
-      synchronized(ps)
+      psLock.lock();
+      try
       {
         CachedPreparedStatement cps = (CachedPreparedStatement)s;
         String key = cps.getSQLString();
-        synchronized(psUsed)
+        psUsedLock.lock();
+        try
         {
           psUsed.remove(cps);
         }
+        finally
+        {
+          psUsedLock.unlock();
+        }
         // If caching disabled close statement.
         if (!cacheP || !cps.isCacheable())
           cps.release();
@@ -683,15 +759,25 @@ public final class CacheConnection implements Connection, StatementListener, Reu
           }
         }
       }
+      finally
+      {
+        psLock.unlock();
+      }
     }
     else //if (s instanceof CachedStatement)
     {
-      synchronized(ss)
+      ssLock.lock();
+      try
       {
-        synchronized(ssUsed)
+        ssUsedLock.lock();
+        try
         {
           ssUsed.remove(s);
         }
+        finally
+        {
+          ssUsedLock.unlock();
+        }
         // If caching disabled close statement.
         if (!cacheS || !s.isCacheable())
           s.release();
@@ -708,9 +794,29 @@ public final class CacheConnection implements Connection, StatementListener, Reu
           }
         }
       }
+      finally
+      {
+        ssLock.unlock();
+      }
     }
   }
 
+  /**
+   * Removes and returns the first (oldest) element of a non-empty set.
+   * Statements in use are held in sets (with identity semantics, as
+   * statements do not override {@code equals}), so they can be removed
+   * in constant time when closed.
+   * @param set set from which to remove an element
+   * @return element removed
+   */
+  private static <E> E removeFirst(Set<E> set)
+  {
+    Iterator<E> it = set.iterator();
+    E e = it.next();
+    it.remove();
+    return e;
+  }
+
   // Calculate and shows a statement hit rate.
   private String showHitRate(int hits, int reqs, String prefix)
   {
@@ -772,10 +878,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
       if (count > 0)
       {
         log_debug(pool.getName() + ": Cleaning " + count + " cached Statement" + (count != 1 ? "s" : ""));
-        synchronized(ssUsed)
+        ssUsedLock.lock();
+        try
         {
           while (!ssUsed.isEmpty())
-            (ssUsed.remove(0)).close();
+            removeFirst(ssUsed).close();
+        }
+        finally
+        {
+          ssUsedLock.unlock();
         }
       }
     }
@@ -792,10 +903,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
       if (count > 0)
       {
         log_debug(pool.getName() + ": Cleaning " + count + " cached PreparedStatement" + (count != 1 ? "s" : ""));
-        synchronized(psUsed)
+        psUsedLock.lock();
+        try
         {
           while (!psUsed.isEmpty())
-            (psUsed.remove(0)).close();
+            removeFirst(psUsed).close();
+        }
+        finally
+        {
+          psUsedLock.unlock();
         }
       }
     }
@@ -812,10 +928,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
       if (count > 0)
       {
         log_debug(pool.getName() + ": Cleaning " + count + " cached CallableStatement" + (count != 1 ? "s" : ""));
-        synchronized(csUsed)
+        csUsedLock.lock();
+        try
         {
           while (!csUsed.isEmpty())
-            (csUsed.remove(0)).close();
+            removeFirst(csUsed).close();
+        }
+        finally
+        {
+          csUsedLock.unlock();
         }
       }
     }
@@ -913,11 +1034,16 @@ public final class CacheConnection implements Connection, StatementListener, Reu
   public int getSparePreparedStatementCount()
   {
     int count = 0;
-    synchronized(ps)
+    psLock.lock();
+    try
     {
       for (Iterator<List<CachedPreparedStatement>> it = ps.values().iterator(); it.hasNext();)
         count += it.next().size();
     }
+    finally
+    {
+      psLock.unlock();
+    }
     return count;
   }
 
@@ -938,11 +1064,16 @@ public final class CacheConnection implements Connection, StatementListener, Reu
   public int getSpareCallableStatementCount()
   {
     int count = 0;
-    synchronized(cs)
+    csLock.lock();
+    try
     {
       for (Iterator<List<CachedCallableStatement>> it = cs.values().iterator(); it.hasNext();)
         count += it.next().size();
     }
+    finally
+    {
+      csLock.unlock();
+    }
     return count;
   }
 
@@ -966,10 +1097,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   public int getOpenNonCacheableStatementCount()
   {
-    synchronized (nonCacheable)
+    nonCacheableLock.lock();
+    try
     {
       return nonCacheable.size();
     }
+    finally
+    {
+      nonCacheableLock.unlock();
+    }
   }
 
   /**
@@ -978,7 +1114,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   protected void flushSpareStatements() throws SQLException
   {
-    synchronized(ss)
+    ssLock.lock();
+    try
     {
       int count = ss.size();
       if (count > 0)
@@ -988,6 +1125,10 @@ public final class CacheConnection implements Connection, StatementListener, Reu
           (ss.remove(0)).release();
       }
     }
+    finally
+    {
+      ssLock.unlock();
+    }
   }
 
   /**
@@ -996,16 +1137,21 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   protected void flushOpenStatements() throws SQLException
   {
-    synchronized(ssUsed)
+    ssUsedLock.lock();
+    try
     {
       int count = ssUsed.size();
       if (count > 0)
       {
         log_debug(pool.getName() + ": Closing " + count + " open Statement" + (count != 1 ? "s" : ""));
         while (!ssUsed.isEmpty())
-          (ssUsed.remove(0)).release();
+          removeFirst(ssUsed).release();
       }
     }
+    finally
+    {
+      ssUsedLock.unlock();
+    }
   }
 
   /**
@@ -1014,7 +1160,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   protected void flushSparePreparedStatements() throws SQLException
   {
-    synchronized(ps)
+    psLock.lock();
+    try
     {
       int count = ps.size();
       if (count > 0)
@@ -1028,6 +1175,10 @@ public final class CacheConnection implements Connection, StatementListener, Reu
         ps.clear();
       }
     }
+    finally
+    {
+      psLock.unlock();
+    }
   }
 
   /**
@@ -1036,16 +1187,21 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   protected void flushOpenPreparedStatements() throws SQLException
   {
-    synchronized(psUsed)
+    psUsedLock.lock();
+    try
     {
       int count = psUsed.size();
       if (count > 0)
       {
         log_debug(pool.getName() + ": Closing " + count + " open PreparedStatement" + (count != 1 ? "s" : ""));
         while (!psUsed.isEmpty())
-          (psUsed.remove(0)).release();
+          removeFirst(psUsed).release();
       }
     }
+    finally
+    {
+      psUsedLock.unlock();
+    }
   }
 
   /**
@@ -1054,7 +1210,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   protected void flushSpareCallableStatements() throws SQLException
   {
-    synchronized(cs)
+    csLock.lock();
+    try
     {
       int count = cs.size();
       if (count > 0)
@@ -1068,6 +1225,10 @@ public final class CacheConnection implements Connection, StatementListener, Reu
         cs.clear();
       }
     }
+    finally
+    {
+      csLock.unlock();
+    }
   }
 
   /**
@@ -1076,16 +1237,21 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   protected void flushOpenCallableStatements() throws SQLException
   {
-    synchronized(csUsed)
+    csUsedLock.lock();
+    try
     {
       int count = csUsed.size();
       if (count > 0)
       {
         log_debug(pool.getName() + ": Closing " + count + " open CallableStatement" + (count != 1 ? "s" : ""));
         while (!csUsed.isEmpty())
-          (csUsed.remove(0)).release();
+          removeFirst(csUsed).release();
       }
     }
+    finally
+    {
+      csUsedLock.unlock();
+    }
   }
 
   /**
@@ -1094,7 +1260,8 @@ public final class CacheConnection implements Connection, StatementListener, Reu
    */
   protected void flushOpenNonCacheableStatements() throws SQLException
   {
-    synchronized(nonCacheable)
+    nonCacheableLock.lock();
+    try
     {
       int count = nonCacheable.size();
       if (count > 0)
@@ -1104,7 +1271,7 @@ public final class CacheConnection implements Connection, StatementListener, Reu
         {
           try
           {
-            ((Statement)nonCacheable.remove(0)).close();
+            ((Statement)removeFirst(nonCacheable)).close();
           }
           catch (SQLException sqlx)
           {
@@ -1113,6 +1280,10 @@ public final class CacheConnection implements Connection, StatementListener, Reu
         }
       }
     }
+    finally
+    {
+      nonCacheableLock.unlock();
+    }
   }
 
   /**
@@ -1339,10 +1510,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
     CachedPreparedStatement x = new CachedPreparedStatement(sql, con.prepareStatement(sql, autoGeneratedKeys));
     x.setCacheable(false);
     x.setStatementListener(this);
-    synchronized(nonCacheable)
+    nonCacheableLock.lock();
+    try
     {
       nonCacheable.add(x);
     }
+    finally
+    {
+      nonCacheableLock.unlock();
+    }
     return x;
   }
 
@@ -1354,10 +1530,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
     CachedPreparedStatement x = new CachedPreparedStatement(sql, con.prepareStatement(sql, columnIndexes));
     x.setCacheable(false);
     x.setStatementListener(this);
-    synchronized(nonCacheable)
+    nonCacheableLock.lock();
+    try
     {
       nonCacheable.add(x);
     }
+    finally
+    {
+      nonCacheableLock.unlock();
+    }
     return x;
   }
 
@@ -1369,10 +1550,15 @@ public final class CacheConnection implements Connection, StatementListener, Reu
     CachedPreparedStatement x = new CachedPreparedStatement(sql, con.prepareStatement(sql, columnNames));
     x.setCacheable(false);
     x.setStatementListener(this);
-    synchronized(nonCacheable)
+    nonCacheableLock.lock();
+    try
     {
       nonCacheable.add(x);
     }
+    finally
+    {
+      nonCacheableLock.unlock();
+    }
     return x;
   }
 
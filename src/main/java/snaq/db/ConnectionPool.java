@@ -45,14 +45,18 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
+import snaq.util.CheckOutRejectedException;
 import snaq.util.JmxUtils;
 import snaq.util.EventDispatcher;
 import snaq.util.EventNotifier;
@@ -91,7 +95,9 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
   /** List to hold listeners for {@link ConnectionPoolEvent} events. */
   private final List<ConnectionPoolListener> listeners = new CopyOnWriteArrayList<>();
   /** Event dispatcher thread instance to issue events in a thread-safe manner. */
-  private EventDispatcher<ConnectionPoolListener,ConnectionPoolEvent> eventDispatcher;
+  private volatile EventDispatcher<ConnectionPoolListener,ConnectionPoolEvent> eventDispatcher;
+  /** Lock for creation of the event dispatcher. */
+  private final ReentrantLock eventLock = new ReentrantLock();
   /** Flag indicating whether to recycle connections after their raw/delegate connection has been used. */
   private boolean recycleAfterDelegateUse = false;
   /** Flag indicating whether this pool has had an MBean registered for it. */
@@ -317,6 +323,52 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
     }
   }
 
+  /**
+   * Checks that a {@link CacheConnection} object has not been closed.
+   * This cheap check is used in place of full validation for connections
+   * recently validated in the background.
+   * @param cc connection to check
+   * @return true if cc is open, false otherwise
+   */
+  @Override
+  protected boolean isAlive(final CacheConnection cc)
+  {
+    if (cc == null)
+      return false;
+    try
+    {
+      return !cc.getRawConnection().isClosed();
+    }
+    catch (SQLException sqlx)
+    {
+      log_debug("SQLException during liveness check", sqlx);
+      return false;
+    }
+  }
+
+  /**
+   * Aborts the raw connection of a leaked {@link CacheConnection} which is
+   * being reclaimed, so any thread still using it fails promptly, and marks
+   * it as closed, so a subsequent call to {@link Connection#close()} by the
+   * borrower has no effect.
+   * @param cc connection being reclaimed
+   */
+  @Override
+  protected void reclaim(final CacheConnection cc)
+  {
+    if (cc == null)
+      return;
+    cc.setClosed();
+    try
+    {
+      cc.getRawConnection().abort(Runnable::run);
+    }
+    catch (SQLException | AbstractMethodError ex)
+    {
+      log_debug("Unable to abort reclaimed connection", ex);
+    }
+  }
+
   /**
    * Sets the validator class for {@link Connection} instances.
    * @param cv ConnectionValidator instance to use for this pool
@@ -412,17 +464,73 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
    * Gets a {@link Connection} from the pool, waiting a maximum of
    * {@code timeout} milliseconds for one to become available,
    * returning {@code null} if not.
+   * If the calling thread is interrupted while waiting, it stops waiting,
+   * its interrupted status is restored, and an {@code SQLException} is thrown.
+   * If the pool is overloaded (see {@link #setMaxWaiters(int)} and
+   * {@link #setMaxExpectedWait(long)}), the request fails immediately
+   * instead of waiting, by throwing a {@link ConnectionRejectedException}.
    * @param timeout timeout value in milliseconds
    * @return item from the pool, or {@code null} if nothing available within timeout period
-   * @throws SQLException if there is an error getting a connection
+   * @throws ConnectionRejectedException if the request is rejected as the pool is overloaded
+   * @throws SQLException if there is an error getting a connection, or the thread is interrupted
    */
   public Connection getConnection(long timeout) throws SQLException
+  {
+    return getConnection(timeout, Priority.NORMAL);
+  }
+
+  /**
+   * Gets a {@link Connection} from the pool with the specified priority,
+   * waiting a maximum of {@code timeout} milliseconds for one to become
+   * available, returning {@code null} if not.
+   * Waiting high-priority requests are served before normal-priority ones,
+   * and may use the connections reserved for them
+   * (see {@link #setHighPriorityReserve(int)}).
+   * @param timeout timeout value in milliseconds
+   * @param priority priority of the request
+   * @return item from the pool, or {@code null} if nothing available within timeout period
+   * @throws SQLException if there is an error getting a connection, or the thread is interrupted
+   */
+  public Connection getConnection(long timeout, Priority priority) throws SQLException
+  {
+    return getConnection(timeout, priority, null);
+  }
+
+  /**
+   * Gets a {@link Connection} from the pool on behalf of the specified tag
+   * (for example identifying a tenant or subsystem), waiting a maximum of
+   * {@code timeout} milliseconds for one to become available, returning
+   * {@code null} if not. The connection is counted against the quota for
+   * the tag (see {@link #setTagQuota(String, int, int)}).
+   * @param timeout timeout value in milliseconds
+   * @param tag tag of the request (null for none)
+   * @return item from the pool, or {@code null} if nothing available within timeout period
+   * @throws SQLException if there is an error getting a connection, or the thread is interrupted
+   */
+  public Connection getConnection(long timeout, String tag) throws SQLException
+  {
+    return getConnection(timeout, Priority.NORMAL, tag);
+  }
+
+  /**
+   * Gets a {@link Connection} from the pool with the specified priority,
+   * on behalf of the specified tag, waiting a maximum of {@code timeout}
+   * milliseconds for one to become available, returning {@code null} if not
+   * (see {@link ObjectPool#checkOut(long, Priority, String)}).
+   * @param timeout timeout value in milliseconds
+   * @param priority priority of the request
+   * @param tag tag of the request (null for none)
+   * @return item from the pool, or {@code null} if nothing available within timeout period
+   * @throws ConnectionRejectedException if the request is rejected as the pool is overloaded
+   * @throws SQLException if there is an error getting a connection, or the thread is interrupted
+   */
+  public Connection getConnection(long timeout, Priority priority, String tag) throws SQLException
   {
     if (timeout < 0)
       throw new IllegalArgumentException("Invalid timeout value specified: " + timeout);
     try
     {
-      CacheConnection cc = super.checkOut(timeout);
+      CacheConnection cc = super.checkOut(timeout, priority, tag);
       if (cc != null)
       {
         cc.setOpen();
@@ -430,6 +538,16 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
       }
       return null;
     }
+    catch (CheckOutRejectedException rx)
+    {
+      throw new ConnectionRejectedException(rx.getMessage(), rx);
+    }
+    catch (InterruptedException ix)
+    {
+      // Restore interrupted status for the caller.
+      Thread.currentThread().interrupt();
+      throw new SQLException(ix.getMessage(), ix);
+    }
     catch (Exception ex)
     {
       if (ex instanceof SQLException)
@@ -442,6 +560,113 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
     }
   }
 
+  /**
+   * Gets a number of {@link Connection} instances from the pool together,
+   * waiting a maximum of {@code timeout} milliseconds for them to become
+   * available, returning {@code null} if not.
+   * Either all the requested connections are obtained, or none are
+   * (see {@link ObjectPool#checkOut(int, long)}).
+   * If the calling thread is interrupted while waiting, it stops waiting,
+   * its interrupted status is restored, and an {@code SQLException} is thrown.
+   * @param n number of connections to get
+   * @param timeout timeout value in milliseconds
+   * @return list of {@code n} connections from the pool, or {@code null} if not available within timeout period
+   * @throws SQLException if there is an error getting the connections, or the thread is interrupted
+   */
+  public List<Connection> getConnections(int n, long timeout) throws SQLException
+  {
+    try
+    {
+      List<CacheConnection> list = super.checkOut(n, timeout);
+      if (list == null)
+        return null;
+      List<Connection> result = new ArrayList<>(list.size());
+      for (CacheConnection cc : list)
+      {
+        cc.setOpen();
+        result.add(cc);
+      }
+      return result;
+    }
+    catch (InterruptedException ix)
+    {
+      // Restore interrupted status for the caller.
+      Thread.currentThread().interrupt();
+      throw new SQLException(ix.getMessage(), ix);
+    }
+    catch (Exception ex)
+    {
+      if (ex instanceof SQLException)
+        throw (SQLException)ex;
+      else if (ex instanceof IllegalArgumentException)
+        throw (IllegalArgumentException)ex;
+      else
+      {
+        log_warn("Error getting connections", ex);
+        throw new SQLException(ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Asynchronously gets a {@link Connection} from the pool, waiting a maximum
+   * of {@code timeout} milliseconds for one to become available.
+   * The calling thread is never blocked; the returned future is completed
+   * with a connection when one becomes available, with {@code null} if
+   * nothing is available within the timeout period, or exceptionally with
+   * an {@link SQLException} if there is an error getting a connection.
+   * Cancelling the returned future withdraws the request.
+   * @param timeout timeout value in milliseconds
+   * @return future to be completed with a connection from the pool
+   * @see ObjectPool#checkOutAsync(long)
+   */
+  public CompletableFuture<Connection> getConnectionAsync(long timeout)
+  {
+    if (timeout < 0)
+      throw new IllegalArgumentException("Invalid timeout value specified: " + timeout);
+    final CompletableFuture<Connection> result = new CompletableFuture<>();
+    final CompletableFuture<CacheConnection> f = super.checkOutAsync(timeout);
+    f.whenComplete((cc, ex) ->
+    {
+      if (ex != null)
+      {
+        if (result.isDone())
+          return;
+        if (ex instanceof SQLException)
+          result.completeExceptionally(ex);
+        else
+        {
+          log_warn("Error getting connection", ex);
+          result.completeExceptionally(new SQLException(ex.getMessage(), ex));
+        }
+      }
+      else if (cc == null)
+        result.complete(null);
+      else
+      {
+        cc.setOpen();
+        // If no longer required (e.g. cancelled), return to pool.
+        if (!result.complete(cc))
+        {
+          try
+          {
+            cc.close();
+          }
+          catch (SQLException sqlx)
+          {
+            log_warn("Unable to return connection to pool", sqlx);
+          }
+        }
+      }
+    });
+    result.whenComplete((c, ex) ->
+    {
+      if (result.isCancelled())
+        f.cancel(false);
+    });
+    return result;
+  }
+
   /**
    * Returns a {@link Connection} to the pool (for internal use only).
    * Connections obtained from the pool should be returned by calling
@@ -618,13 +843,26 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
       return;
     ConnectionPoolEvent poolEvent = new ConnectionPoolEvent(this, type);
     // Setup event dispatch thread if necessary.
-    if (eventDispatcher == null)
+    EventDispatcher<ConnectionPoolListener,ConnectionPoolEvent> ed = eventDispatcher;
+    if (ed == null)
     {
-      eventDispatcher = new EventDispatcher<>(listeners, new Notifier());
-      eventDispatcher.start();
+      eventLock.lock();
+      try
+      {
+        if ((ed = eventDispatcher) == null)
+        {
+          ed = new EventDispatcher<>(listeners, new Notifier());
+          ed.start();
+          eventDispatcher = ed;
+        }
+      }
+      finally
+      {
+        eventLock.unlock();
+      }
     }
     // Dispatch event.
-    eventDispatcher.dispatchEvent(poolEvent);
+    ed.dispatchEvent(poolEvent);
   }
 
   /**
@@ -731,6 +969,12 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
       firePoolEvent(ConnectionPoolEvent.Type.MAX_SIZE_LIMIT_ERROR);
     }
 
+    @Override
+    public void checkOutRejected(ObjectPoolEvent<T> evt)
+    {
+      firePoolEvent(ConnectionPoolEvent.Type.CHECKOUT_REJECTED);
+    }
+
     @Override
     public void poolParametersChanged(ObjectPoolEvent<T> evt)
     {
@@ -787,6 +1031,9 @@ public class ConnectionPool extends ObjectPool<CacheConnection>
           case MAX_SIZE_LIMIT_ERROR:
             cpl.maxSizeLimitError(evt);
             break;
+          case CHECKOUT_REJECTED:
+            cpl.checkOutRejected(evt);
+            break;
           case PARAMETERS_CHANGED:
             cpl.poolParametersChanged(evt);
             break;
@@ -89,6 +89,11 @@ public class ConnectionPoolEventAdapter extends ObjectPoolEventAdapter<CacheConn
   {
   }
 
+  @Override
+  public void checkOutRejected(ConnectionPoolEvent evt)
+  {
+  }
+
   @Override
   public void poolParametersChanged(ConnectionPoolEvent evt)
   {
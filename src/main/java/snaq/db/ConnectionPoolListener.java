@@ -98,6 +98,16 @@ public interface ConnectionPoolListener extends EventListener
    */
   public void maxSizeLimitError(ConnectionPoolEvent evt);
 
+  /**
+   * Called when a connection request is rejected as the pool is overloaded.
+   * (The default implementation does nothing, for compatibility with
+   * existing implementations.)
+   * @param evt event instance
+   */
+  public default void checkOutRejected(ConnectionPoolEvent evt)
+  {
+  }
+
   /**
    * Called when the pool's parameters are changed.
    * @param evt event instance
@@ -73,6 +73,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import snaq.util.Housekeeper;
 import snaq.util.ObjectPool;
 import snaq.util.ObjectPoolListener;
 import snaq.util.logging.LogUtil;
@@ -128,6 +129,11 @@ import snaq.util.logging.LogUtil;
  * drivers*                        Class names of required JDBC Drivers (comma/space delimited)
  * logfile                         Specifies a custom log file for this pool manager
  * dateformat                      {@link SimpleDateFormat} formatting string for custom log entries
+ * housekeepingThreads             Number of threads shared by all pools for housekeeping (see {@link Housekeeper})
+ * destroyThreads                  Number of threads shared by all pools for asynchronous connection destruction
+ * createThreads                   Number of threads shared by all pools for connection creation during initialization
+ * asyncThreads                    Number of threads shared by all pools for servicing asynchronous connection requests
+ * eventThreads                    Number of threads shared by all pools for notifying event listeners
  *
  * &lt;poolname&gt;.url*                 JDBC URL for the database
  * &lt;poolname&gt;.user                 Database username for login
@@ -135,9 +141,23 @@ import snaq.util.logging.LogUtil;
  * &lt;poolname&gt;.minpool              Minimum number of pooled connections (0 if none)
  * &lt;poolname&gt;.maxpool              Maximum number of pooled connections (0 if none)
  * &lt;poolname&gt;.maxsize              Maximum number of possible connections (0 if no limit)
+ * &lt;poolname&gt;.minIdle              Minimum number of idle connections to maintain (0 if none)
+ * &lt;poolname&gt;.highPriorityReserve  Number of connections (of maxsize) reserved for high-priority requests (default:0)
+ * &lt;poolname&gt;.maxWaiters           Maximum number of requests waiting for a connection, beyond which requests are rejected (0 if no limit; default:0)
+ * &lt;poolname&gt;.maxExpectedWait      Maximum estimated wait in milliseconds for a connection, beyond which requests are rejected (0 if no limit; default:0)
+ * &lt;poolname&gt;.quota.<em>TAG</em>           Quota for requests tagged <em>TAG</em>, as <em>max</em>[,<em>min</em>]: maximum concurrent connections (0 if no limit), and guaranteed minimum (default:0); <em>TAG</em> is case-sensitive
+ * &lt;poolname&gt;.autoSizeMin          Lower bound for automatic adjustment of maxpool
+ * &lt;poolname&gt;.autoSizeMax          Upper bound for automatic adjustment of maxpool (0 to disable; default:0)
+ * &lt;poolname&gt;.autoSizeWait         Average wait time in milliseconds above which maxpool is increased (default:10)
  * &lt;poolname&gt;.idleTimeout          Connection idle timeout time in seconds (0 if no timeout)
+ * &lt;poolname&gt;.maxLifetime          Maximum connection lifetime in seconds, subject to random reduction of up to 10% (0 if unlimited)
  * &lt;poolname&gt;.validator            Class name of optional {@link ConnectionValidator} to use
  * &lt;poolname&gt;.validatorQuery       SQL statement used with {@link SimpleQueryValidator} for optional connection validation
+ * &lt;poolname&gt;.validationInterval   Time in milliseconds since last use/validation within which connections are not validated (default:0)
+ * &lt;poolname&gt;.idleValidationInterval Time in milliseconds after which idle connections are validated in the background (default:0)
+ * &lt;poolname&gt;.leakDetectionThreshold Time in milliseconds after which checked-out connections are reported as possible leaks (default:0)
+ * &lt;poolname&gt;.leakTraceSampleRate  Capture check-out stack trace for leak reports for 1 in N checkouts (0 if none; default:10)
+ * &lt;poolname&gt;.reclaimLeaks         Whether to abort and reclaim leaked connections (default:false)
  * &lt;poolname&gt;.decoder              Class name of optional {@link PasswordDecoder} to use
  * &lt;poolname&gt;.prop.<em>XXX</em>             Passes property <em>XXX</em> and its value to the JDBC driver
  * &lt;poolname&gt;.logfile              Filename of optional logfile for this pool (optional, deprecated)
@@ -146,6 +166,9 @@ import snaq.util.logging.LogUtil;
  * &lt;poolname&gt;.cache                Whether to cache Statements (default:true)
  * &lt;poolname&gt;.selection            Pool connection selection strategy ({LIFO, FIFO, RANDOM}, default:LIFO)
  * &lt;poolname&gt;.async                Whether to use asynchronous connection destruction (default:false)
+ * &lt;poolname&gt;.threadAffinity       Whether threads first try to reuse connections they recently returned (default:false)
+ * &lt;poolname&gt;.stripes              Number of stripes (sub-pools) in which to hold pooled connections (default:1)
+ * &lt;poolname&gt;.initParallelism      Number of connections to create concurrently when populating the pool (default:1)
  * &lt;poolname&gt;.releaseTimeout       Timeout of pool released before forcibly destroyed (-1 if none, 0 if immediately; default:0)
  * &lt;poolname&gt;.recycleAfterRaw      Whether to turn on recycling of connections that have had delegate accessed (default:false)
  * &lt;poolname&gt;.listenerN            Class name of {@link ConnectionPoolListener} to create (N=0, 1, ...)
@@ -615,7 +638,7 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
    * parsing of {@code ConnectionPool} definitions.
    * It simply removes case-sensitivity from all property keys
    * (It does not change the case of any additional properties specified for
-   * the JDBC Driver, or the names of pools.)
+   * the JDBC Driver, the tags of quotas, or the names of pools.)
    * @param props Properties instance to be processed
    */
   private static Properties processProperties(Properties props)
@@ -623,15 +646,19 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
     Properties propsP = new Properties();
     // Process non-driver properties to be case-insensitive.
     final Pattern dp = Pattern.compile("^([^.]+)(\\.prop\\.)(.+)$", Pattern.CASE_INSENSITIVE);
+    final Pattern qp = Pattern.compile("^([^.]+)(\\.quota\\.)(.+)$", Pattern.CASE_INSENSITIVE);
     final Pattern pp = Pattern.compile("^([^.]+)((?:\\.[^.]+)+)$");
     for (Enumeration<?> e = props.propertyNames(); e.hasMoreElements();)
     {
       String key = (String)e.nextElement();
       String newkey = null;
       Matcher mdp = dp.matcher(key);
+      Matcher mqp = qp.matcher(key);
       Matcher mpp = pp.matcher(key);
       if (mdp.matches())
         newkey = mdp.group(1) + mdp.group(2).toLowerCase() + mdp.group(3);
+      else if (mqp.matches())
+        newkey = mqp.group(1).toLowerCase() + mqp.group(2).toLowerCase() + mqp.group(3);
       else if (mpp.matches())
         newkey = mpp.group(1).toLowerCase() + mpp.group(2).toLowerCase();
 
@@ -692,6 +719,68 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
       }
     }
 
+    // Set number of housekeeping threads if specified.
+    String pThreads = props.getProperty("housekeepingThreads");
+    if (pThreads != null)
+    {
+      try
+      {
+        Housekeeper.setThreadCount(Integer.parseInt(pThreads.trim()));
+      }
+      catch (IllegalArgumentException iax)
+      {
+        log_warn("Invalid housekeepingThreads value " + pThreads);
+      }
+    }
+    String pDestroyThreads = props.getProperty("destroyThreads");
+    if (pDestroyThreads != null)
+    {
+      try
+      {
+        Housekeeper.setDestroyThreadCount(Integer.parseInt(pDestroyThreads.trim()));
+      }
+      catch (IllegalArgumentException iax)
+      {
+        log_warn("Invalid destroyThreads value " + pDestroyThreads);
+      }
+    }
+    String pCreateThreads = props.getProperty("createThreads");
+    if (pCreateThreads != null)
+    {
+      try
+      {
+        Housekeeper.setCreateThreadCount(Integer.parseInt(pCreateThreads.trim()));
+      }
+      catch (IllegalArgumentException iax)
+      {
+        log_warn("Invalid createThreads value " + pCreateThreads);
+      }
+    }
+    String pAsyncThreads = props.getProperty("asyncThreads");
+    if (pAsyncThreads != null)
+    {
+      try
+      {
+        Housekeeper.setAsyncThreadCount(Integer.parseInt(pAsyncThreads.trim()));
+      }
+      catch (IllegalArgumentException iax)
+      {
+        log_warn("Invalid asyncThreads value " + pAsyncThreads);
+      }
+    }
+    String pEventThreads = props.getProperty("eventThreads");
+    if (pEventThreads != null)
+    {
+      try
+      {
+        Housekeeper.setEventThreadCount(Integer.parseInt(pEventThreads.trim()));
+      }
+      catch (IllegalArgumentException iax)
+      {
+        log_warn("Invalid eventThreads value " + pEventThreads);
+      }
+    }
+
     loadDrivers(props);
     createPools(props);
   }
@@ -771,12 +860,28 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
         String pIdleTimeout = trimOrNull(props.getProperty(poolName + ".idletimeout"));
         String validator = trimOrNull(props.getProperty(poolName + ".validator"));
         String validatorQuery = trimOrNull(props.getProperty(poolName + ".validatorQuery"));
+        String pValidationInterval = props.getProperty(poolName + ".validationinterval", "0").trim();
+        String pIdleValidationInterval = props.getProperty(poolName + ".idlevalidationinterval", "0").trim();
+        String pLeakDetectionThreshold = props.getProperty(poolName + ".leakdetectionthreshold", "0").trim();
+        String pLeakTraceSampleRate = props.getProperty(poolName + ".leaktracesamplerate", "10").trim();
+        boolean reclaimLeaks = props.getProperty(poolName + ".reclaimleaks", "false").trim().equalsIgnoreCase("true");
         String decoder = trimOrNull(props.getProperty(poolName + ".decoder"));
         String pInit = props.getProperty(poolName + ".init", "0").trim();
         // "Advanced" properties.
         boolean noCache = props.getProperty(poolName + ".cache", "true").trim().equalsIgnoreCase("false");
         String selection = props.getProperty(poolName + ".selection");
         boolean async = props.getProperty(poolName + ".async", "false").trim().equalsIgnoreCase("true");
+        boolean threadAffinity = props.getProperty(poolName + ".threadaffinity", "false").trim().equalsIgnoreCase("true");
+        String pStripes = props.getProperty(poolName + ".stripes", "1").trim();
+        String pMinIdle = props.getProperty(poolName + ".minidle", "0").trim();
+        String pHighPriorityReserve = props.getProperty(poolName + ".highpriorityreserve", "0").trim();
+        String pMaxWaiters = props.getProperty(poolName + ".maxwaiters", "0").trim();
+        String pMaxExpectedWait = props.getProperty(poolName + ".maxexpectedwait", "0").trim();
+        String pMaxLifetime = props.getProperty(poolName + ".maxlifetime", "0").trim();
+        String pAutoSizeMin = props.getProperty(poolName + ".autosizemin", "0").trim();
+        String pAutoSizeMax = props.getProperty(poolName + ".autosizemax", "0").trim();
+        String pAutoSizeWait = props.getProperty(poolName + ".autosizewait", "10").trim();
+        String pInitParallelism = props.getProperty(poolName + ".initparallelism", "1").trim();
         String pReleaseTimeout = trimOrNull(props.getProperty(poolName + ".releasetimeout"));
         boolean recycleAfterDelegateUse = props.getProperty(poolName + ".recycleafterdelegateuse", "false").trim().equalsIgnoreCase("true");
         boolean mbean = props.getProperty(poolName + ".mbean", "false").trim().equalsIgnoreCase("true");
@@ -795,6 +900,14 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
           if (s.startsWith(prefix))
             poolProps.setProperty(s.substring(prefix.length()), props.getProperty(s));
         }
+        // Quotas for tagged requests.
+        Properties quotaProps = new Properties();
+        String quotaPrefix = poolName + ".quota.";
+        for (String s : props.stringPropertyNames())
+        {
+          if (s.startsWith(quotaPrefix))
+            quotaProps.setProperty(s.substring(quotaPrefix.length()), props.getProperty(s));
+        }
         if (!poolProps.isEmpty() && user != null && !"".equals(user))
         {
           poolProps.setProperty("user", user);
@@ -867,6 +980,138 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
           releaseTimeout = 0;
         }
 
+        // Validate validation interval.
+        long validationInterval = 0;
+        try
+        {
+          validationInterval = Long.parseLong(pValidationInterval);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid validationInterval value " + pValidationInterval + " for " + poolName);
+          validationInterval = 0;
+        }
+        // Validate idle validation interval.
+        long idleValidationInterval = 0;
+        try
+        {
+          idleValidationInterval = Long.parseLong(pIdleValidationInterval);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid idleValidationInterval value " + pIdleValidationInterval + " for " + poolName);
+          idleValidationInterval = 0;
+        }
+        // Validate leak detection parameters.
+        long leakDetectionThreshold = 0;
+        try
+        {
+          leakDetectionThreshold = Long.parseLong(pLeakDetectionThreshold);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid leakDetectionThreshold value " + pLeakDetectionThreshold + " for " + poolName);
+          leakDetectionThreshold = 0;
+        }
+        int leakTraceSampleRate = 10;
+        try
+        {
+          leakTraceSampleRate = Integer.parseInt(pLeakTraceSampleRate);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid leakTraceSampleRate value " + pLeakTraceSampleRate + " for " + poolName);
+          leakTraceSampleRate = 10;
+        }
+        // Validate stripe count.
+        int stripes = 1;
+        try
+        {
+          stripes = Integer.parseInt(pStripes);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid stripes value " + pStripes + " for " + poolName);
+          stripes = 1;
+        }
+        // Validate minimum idle connections.
+        int minIdle = 0;
+        try
+        {
+          minIdle = Integer.parseInt(pMinIdle);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid minIdle value " + pMinIdle + " for " + poolName);
+          minIdle = 0;
+        }
+        // Validate high-priority reserve.
+        int highPriorityReserve = 0;
+        try
+        {
+          highPriorityReserve = Integer.parseInt(pHighPriorityReserve);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid highPriorityReserve value " + pHighPriorityReserve + " for " + poolName);
+          highPriorityReserve = 0;
+        }
+        // Validate load-shedding limits.
+        int maxWaiters = 0;
+        try
+        {
+          maxWaiters = Math.max(Integer.parseInt(pMaxWaiters), 0);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid maxWaiters value " + pMaxWaiters + " for " + poolName);
+        }
+        long maxExpectedWait = 0;
+        try
+        {
+          maxExpectedWait = Math.max(Long.parseLong(pMaxExpectedWait), 0);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid maxExpectedWait value " + pMaxExpectedWait + " for " + poolName);
+        }
+        // Validate maximum connection lifetime.
+        long maxLifetime = 0;
+        try
+        {
+          maxLifetime = Long.parseLong(pMaxLifetime);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid maxLifetime value " + pMaxLifetime + " for " + poolName);
+          maxLifetime = 0;
+        }
+        // Validate auto-sizing parameters.
+        int autoSizeMin = 0, autoSizeMax = 0;
+        long autoSizeWait = 10;
+        try
+        {
+          autoSizeMin = Integer.parseInt(pAutoSizeMin);
+          autoSizeMax = Integer.parseInt(pAutoSizeMax);
+          autoSizeWait = Long.parseLong(pAutoSizeWait);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid auto-sizing values " + pAutoSizeMin + "/" + pAutoSizeMax + "/" + pAutoSizeWait + " for " + poolName);
+          autoSizeMax = 0;
+        }
+        // Validate initialization parallelism.
+        int initParallelism = 1;
+        try
+        {
+          initParallelism = Integer.parseInt(pInitParallelism);
+        }
+        catch (NumberFormatException nfx)
+        {
+          log_warn("Invalid initParallelism value " + pInitParallelism + " for " + poolName);
+          initParallelism = 1;
+        }
+
         // Validate pool size logic.
         minPool = Math.max(minPool, 0);  // (ensure pMin >= 0).
         maxPool = Math.max(maxPool, 0);  // (ensure pMax >= 0).
@@ -875,6 +1120,17 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
           maxSize = Math.max(maxSize, maxPool);
         idleTimeout = Math.max(idleTimeout, 0);  // (ensure idleTimeout >= 0).
         releaseTimeout = Math.min(Math.max(releaseTimeout, -1), 86400000);  // (ensure 86400000 >= releaseTimeout >= -1).
+        stripes = Math.max(stripes, 1);  // (ensure stripes >= 1).
+        initParallelism = Math.max(initParallelism, 1);  // (ensure initParallelism >= 1).
+        minIdle = Math.max(minIdle, 0);  // (ensure minIdle >= 0).
+        highPriorityReserve = Math.max(highPriorityReserve, 0);  // (ensure highPriorityReserve >= 0).
+        if (maxSize > 0)  // (if mSize > 0, ensure highPriorityReserve < mSize).
+          highPriorityReserve = Math.min(highPriorityReserve, maxSize - 1);
+        maxLifetime = Math.max(maxLifetime, 0);  // (ensure maxLifetime >= 0).
+        validationInterval = Math.max(validationInterval, 0);  // (ensure validationInterval >= 0).
+        idleValidationInterval = Math.max(idleValidationInterval, 0);  // (ensure idleValidationInterval >= 0).
+        leakDetectionThreshold = Math.max(leakDetectionThreshold, 0);  // (ensure leakDetectionThreshold >= 0).
+        leakTraceSampleRate = Math.max(leakTraceSampleRate, 0);  // (ensure leakTraceSampleRate >= 0).
 
         // Create connection pool.
         ConnectionPool pool = null;
@@ -934,6 +1190,66 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
         if (async)
           log_info("Enabling asynchronous destruction on pool " + poolName);
         pool.setAsyncDestroy(async);
+        if (threadAffinity)
+          log_info("Enabling thread-affinity on pool " + poolName);
+        pool.setThreadAffinity(threadAffinity);
+        if (stripes > 1)
+          log_info("Enabling striping (" + stripes + " stripes) on pool " + poolName);
+        pool.setStripeCount(stripes);
+        if (initParallelism > 1)
+          log_info("Enabling parallel initialization (" + initParallelism + " threads) on pool " + poolName);
+        pool.setInitParallelism(initParallelism);
+        if (highPriorityReserve > 0 && maxSize > 0)
+          log_info("Reserving " + highPriorityReserve + " connections for high-priority requests on pool " + poolName);
+        pool.setHighPriorityReserve(highPriorityReserve);
+        if (maxWaiters > 0)
+          log_info("Limiting waiting requests to " + maxWaiters + " on pool " + poolName);
+        pool.setMaxWaiters(maxWaiters);
+        if (maxExpectedWait > 0)
+          log_info(String.format("Limiting expected wait to %dms on pool %s", maxExpectedWait, poolName));
+        pool.setMaxExpectedWait(maxExpectedWait);
+        for (String tag : quotaProps.stringPropertyNames())
+        {
+          String pQuota = quotaProps.getProperty(tag).trim();
+          try
+          {
+            int i = pQuota.indexOf(',');
+            int max = Integer.parseInt((i < 0 ? pQuota : pQuota.substring(0, i)).trim());
+            int min = (i < 0) ? 0 : Integer.parseInt(pQuota.substring(i + 1).trim());
+            pool.setTagQuota(tag, max, min);
+            log_info("Setting quota for tag " + tag + " (max " + max + ", min " + min + ") on pool " + poolName);
+          }
+          catch (IllegalArgumentException iax)
+          {
+            log_warn("Invalid quota value " + pQuota + " for tag " + tag + " of " + poolName);
+          }
+        }
+        if (maxLifetime > 0)
+          log_info(String.format("Enabling maximum connection lifetime (%ds) on pool %s", maxLifetime, poolName));
+        pool.setMaxLifetime(maxLifetime * 1000L);
+        if (autoSizeMax > 0)
+        {
+          try
+          {
+            pool.enableAutoSizing(Math.max(autoSizeMin, minPool), autoSizeMax, Math.max(autoSizeWait, 0), 5000L);
+            log_info("Enabling auto-sizing (maxpool " + autoSizeMin + "-" + autoSizeMax + ") on pool " + poolName);
+          }
+          catch (IllegalArgumentException iax)
+          {
+            log_warn("Invalid auto-sizing values for " + poolName + ": " + iax.getMessage());
+          }
+        }
+        if (validationInterval > 0)
+          log_info(String.format("Enabling validation interval (%dms) on pool %s", validationInterval, poolName));
+        pool.setValidationInterval(validationInterval);
+        if (idleValidationInterval > 0)
+          log_info(String.format("Enabling background validation (%dms) on pool %s", idleValidationInterval, poolName));
+        pool.setIdleValidationInterval(idleValidationInterval);
+        if (leakDetectionThreshold > 0)
+          log_info(String.format("Enabling leak detection (%dms%s) on pool %s", leakDetectionThreshold, reclaimLeaks ? ", reclaiming" : "", poolName));
+        pool.setLeakTraceSampleRate(leakTraceSampleRate);
+        pool.setReclaimLeaks(reclaimLeaks);
+        pool.setLeakDetectionThreshold(leakDetectionThreshold);
         if (releaseTimeout > -1)
           log_info(String.format("Enabling release timeout (%dms) on pool %s", releaseTimeout, poolName));
         mapTimeout.put(pool, releaseTimeout);
@@ -998,12 +1314,8 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
 
         // Add new pool to collection, and show summary info.
         synchronized(pools) { pools.put(poolName, pool); }
-        String info = null;
-        synchronized(pool)
-        {
-          info = "minpool=" + pool.getMinPool() + ",maxpool=" + pool.getMaxPool() + ",maxsize=" + pool.getMaxSize() + ",idleTimeout=";
-          info += pool.getIdleTimeout() == 0 ? "none" : pool.getIdleTimeout();
-        }
+        String info = "minpool=" + pool.getMinPool() + ",maxpool=" + pool.getMaxPool() + ",maxsize=" + pool.getMaxSize() + ",idleTimeout=";
+        info += pool.getIdleTimeout() == 0 ? "none" : pool.getIdleTimeout();
         log_info("Created pool " + poolName + " (" + info + ")");
 
         // Parse pool listeners from properties.
@@ -1026,6 +1338,13 @@ public final class ConnectionPoolManager implements Comparable<ConnectionPoolMan
           pool.init(initSize);
         else
           pool.init();
+
+        // Maintain idle connections only once the pool is fully configured
+        // and initialized, so none are created before the validator/decoder
+        // are set, and initialization to minpool is not pre-empted.
+        if (minIdle > 0)
+          log_info("Maintaining " + minIdle + " idle connections on pool " + poolName);
+        pool.setMinIdle(minIdle);
       }
     }
   }
@@ -45,6 +45,7 @@ import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,45 +67,67 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
   /** {@code Driver} to use for database access. */
   protected transient Driver driver;
   /** {@code ConnectionPool} instance used to source connections. */
-  protected transient ConnectionPool pool;
+  protected transient volatile ConnectionPool pool;
   /** {@code PrintWriter} instance used for logging. */
-  protected transient PrintWriter logWriter;
+  protected transient volatile PrintWriter logWriter;
   // -------------------------------
   // Standard DataSource properties.
   // -------------------------------
   /** Description of this DataSource. */
-  private String description;
+  private volatile String description;
   // -----------------------------
   // Custom DataSource properties.
   // -----------------------------
   /** JNDI name of the {@code DBPoolDataSource}. */
-  private String name;
+  private volatile String name;
   /** Fully-qualified class name of the JDBC Driver for database access. */
-  private String driverClassName;
+  private volatile String driverClassName;
   /** JDBC URI protocol string. */
-  private String url;
+  private volatile String url;
   /** Fully-qualified class name of the {@link PasswordDecoder} for decoding passwords. */
-  private String passwordDecoderClassName;
+  private volatile String passwordDecoderClassName;
   /** Fully-qualified class name of the {@link ConnectionValidator} for validating database connections. */
-  private String validatorClassName;
+  private volatile String validatorClassName;
   /** SQL query string to use for validating database connections. */
-  private String validationQuery;
+  private volatile String validationQuery;
   /** Pool selection strategy. */
-  private String selection;
+  private volatile String selection;
   /** Connection pool {@code minPool} parameter. */
-  private int minPool = 0;
+  private volatile int minPool = 0;
   /** Connection pool {@code maxPool} parameter. */
-  private int maxPool = 0;
+  private volatile int maxPool = 0;
   /** Connection pool {@code maxSize} parameter. */
-  private int maxSize = 0;
+  private volatile int maxSize = 0;
+  /** Connection pool {@code minIdle} parameter. */
+  private volatile int minIdle = 0;
+  /** Connection pool {@code highPriorityReserve} parameter. */
+  private volatile int highPriorityReserve = 0;
+  /** Connection pool {@code maxWaiters} parameter. */
+  private volatile int maxWaiters = 0;
+  /** Connection pool {@code maxExpectedWait} parameter (milliseconds). */
+  private volatile long maxExpectedWait = 0;
   /** Connection pool {@code idleTimeout} parameter (seconds). */
-  private int idleTimeout = 0;
+  private volatile int idleTimeout = 0;
+  /** Connection pool {@code maxLifetime} parameter (seconds). */
+  private volatile int maxLifetime = 0;
+  /** Connection pool {@code validationInterval} parameter (milliseconds). */
+  private volatile long validationInterval = 0;
+  /** Connection pool {@code idleValidationInterval} parameter (milliseconds). */
+  private volatile long idleValidationInterval = 0;
+  /** Connection pool {@code leakDetectionThreshold} parameter (milliseconds). */
+  private volatile long leakDetectionThreshold = 0;
+  /** Connection pool {@code reclaimLeaks} parameter. */
+  private volatile boolean reclaimLeaks = false;
+  /** Connection pool {@code initParallelism} parameter. */
+  private volatile int initParallelism = 1;
   /** Timeout in seconds for database connection attempts. */
-  private int loginTimeout = 3;
+  private volatile int loginTimeout = 3;
   /** Properties to send to driver. */
   private Properties props = new Properties();
   /** Flag determining whether a pool shutdown-hook is registered. */
   private boolean shutdownHook = false;
+  /** Lock guarding pool creation/release (used instead of the monitor to avoid pinning virtual threads while creating the pool). */
+  private final ReentrantLock lock = new ReentrantLock();
 
   /**
    * Creates a new {@code DBPoolDataSource} instance.
@@ -117,28 +140,44 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Registers a shutdown hook for this ConnectionPoolManager instance
    * to ensure it is released if the JVM exits
    */
-  public synchronized void registerShutdownHook()
+  public void registerShutdownHook()
   {
-    this.shutdownHook = true;
-    if (pool != null)
-      pool.registerShutdownHook();
+    lock.lock();
+    try
+    {
+      this.shutdownHook = true;
+      if (pool != null)
+        pool.registerShutdownHook();
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   /**
    * Unregisters a registered shutdown hook for this ConnectionPoolManager instance.
    */
-  public synchronized void removeShutdownHook()
+  public void removeShutdownHook()
   {
-    this.shutdownHook = false;
-    if (pool != null)
-      pool.removeShutdownHook();
+    lock.lock();
+    try
+    {
+      this.shutdownHook = false;
+      if (pool != null)
+        pool.removeShutdownHook();
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   /**
    * Writes a message to the log.
    * @param message message to write
    */
-  protected synchronized void log(String message)
+  protected void log(String message)
   {
     String s = (name != null) ? (name + ": " + message) : message;
     logger.info(s);
@@ -151,7 +190,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @param message message to write
    * @param throwable {@code Throwable} instance to log
    */
-  protected synchronized void log(String message, Throwable throwable)
+  protected void log(String message, Throwable throwable)
   {
     String s = (name != null) ? (name + ": " + message) : message;
     logger.info(s, throwable);
@@ -166,83 +205,105 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Creates a new {@code DBPoolDataSource} instance.
    * @throws SQLException if required resources cannot be located/established
    */
-  protected synchronized void createConnectionPool() throws SQLException
+  protected void createConnectionPool() throws SQLException
   {
-    logger.debug("ClassLoader is of type: " + getClass().getClassLoader().getClass().getName());
-
-    // Registered JDBC driver (if required).
-    if (driver == null)
+    lock.lock();
+    try
     {
-      try
+      logger.debug("ClassLoader is of type: " + getClass().getClassLoader().getClass().getName());
+
+      // Registered JDBC driver (if required).
+      if (driver == null)
       {
-        driver = (Driver)Class.forName(getDriverClassName()).newInstance();
-        DriverManager.registerDriver(driver);
+        try
+        {
+          driver = (Driver)Class.forName(getDriverClassName()).newInstance();
+          DriverManager.registerDriver(driver);
+        }
+        catch (ClassNotFoundException | InstantiationException | IllegalAccessException | SQLException ex)
+        {
+          SQLException sqlx = new SQLException("Unable to register JDBC driver: " + getDriverClassName());
+          sqlx.initCause(ex);
+          log(sqlx.getMessage(), sqlx);
+          throw sqlx;
+        }
       }
-      catch (ClassNotFoundException | InstantiationException | IllegalAccessException | SQLException ex)
+      // Create connection pool.
+      String poolName = POOL_NAME_PREFIX + getName();
+
+      pool = new ConnectionPool(poolName, getMinPool(), getMaxPool(), getMaxSize(), getIdleTimeout(), getUrl(), props);
+      pool.addConnectionPoolListener(this);
+      if (getLogWriter() != null)
+        pool.setLog(getLogWriter());
+      if (shutdownHook)
+        pool.registerShutdownHook();
+
+      // Set ConnectionValidator as required.
+      if (validatorClassName != null && !"".equals(validatorClassName))
       {
-        SQLException sqlx = new SQLException("Unable to register JDBC driver: " + getDriverClassName());
-        sqlx.initCause(ex);
-        log(sqlx.getMessage(), sqlx);
-        throw sqlx;
+        try
+        {
+          ConnectionValidator cv = (ConnectionValidator)Class.forName(validatorClassName).newInstance();
+          pool.setValidator(cv);
+        }
+        catch (ClassNotFoundException | InstantiationException | IllegalAccessException ex)
+        {
+          log("Unable to instantiate validator class: " + validatorClassName);
+        }
       }
-    }
-    // Create connection pool.
-    String poolName = POOL_NAME_PREFIX + getName();
-
-    pool = new ConnectionPool(poolName, getMinPool(), getMaxPool(), getMaxSize(), getIdleTimeout(), getUrl(), props);
-    pool.addConnectionPoolListener(this);
-    if (getLogWriter() != null)
-      pool.setLog(getLogWriter());
-    if (shutdownHook)
-      pool.registerShutdownHook();
-
-    // Set ConnectionValidator as required.
-    if (validatorClassName != null && !"".equals(validatorClassName))
-    {
-      try
+      else if (validationQuery != null && !"".equals(validationQuery))
       {
-        ConnectionValidator cv = (ConnectionValidator)Class.forName(validatorClassName).newInstance();
+        ConnectionValidator cv = new SimpleQueryValidator(validationQuery);
         pool.setValidator(cv);
       }
-      catch (ClassNotFoundException | InstantiationException | IllegalAccessException ex)
-      {
-        log("Unable to instantiate validator class: " + validatorClassName);
-      }
-    }
-    else if (validationQuery != null && !"".equals(validationQuery))
-    {
-      ConnectionValidator cv = new SimpleQueryValidator(validationQuery);
-      pool.setValidator(cv);
-    }
 
-    // Set PasswordDecoder as required.
-    if (passwordDecoderClassName != null && !"".equals(passwordDecoderClassName))
-    {
-      try
+      pool.setValidationInterval(validationInterval);
+      pool.setIdleValidationInterval(idleValidationInterval);
+      pool.setReclaimLeaks(reclaimLeaks);
+      pool.setLeakDetectionThreshold(leakDetectionThreshold);
+      pool.setInitParallelism(initParallelism);
+      pool.setHighPriorityReserve(highPriorityReserve);
+      pool.setMaxWaiters(maxWaiters);
+      pool.setMaxExpectedWait(maxExpectedWait);
+      pool.setMaxLifetime(maxLifetime * 1000L);
+
+      // Set PasswordDecoder as required.
+      if (passwordDecoderClassName != null && !"".equals(passwordDecoderClassName))
       {
-        PasswordDecoder pd = (PasswordDecoder)Class.forName(passwordDecoderClassName).newInstance();
-        pool.setPasswordDecoder(pd);
+        try
+        {
+          PasswordDecoder pd = (PasswordDecoder)Class.forName(passwordDecoderClassName).newInstance();
+          pool.setPasswordDecoder(pd);
+        }
+        catch (ClassNotFoundException | InstantiationException | IllegalAccessException ex)
+        {
+          log("Unable to instantiate password decoder class: " + passwordDecoderClassName);
+        }
       }
-      catch (ClassNotFoundException | InstantiationException | IllegalAccessException ex)
+
+      // Set selection stragegy as required.
+      if (selection != null)
       {
-        log("Unable to instantiate password decoder class: " + passwordDecoderClassName);
+        switch (selection)
+        {
+          case "FIFO":
+            pool.setSelectionStrategy(ObjectPool.Strategy.SELECT_FIFO);
+            break;
+          case "RANDOM":
+            pool.setSelectionStrategy(ObjectPool.Strategy.SELECT_RANDOM);
+            break;
+          case "LIFO":
+          default:
+        }
       }
-    }
 
-    // Set selection stragegy as required.
-    if (selection != null)
+      // Maintain idle connections only once the pool is fully configured,
+      // so none are created before the validator/decoder are set.
+      pool.setMinIdle(minIdle);
+    }
+    finally
     {
-      switch (selection)
-      {
-        case "FIFO":
-          pool.setSelectionStrategy(ObjectPool.Strategy.SELECT_FIFO);
-          break;
-        case "RANDOM":
-          pool.setSelectionStrategy(ObjectPool.Strategy.SELECT_RANDOM);
-          break;
-        case "LIFO":
-        default:
-      }
+      lock.unlock();
     }
   }
 
@@ -252,12 +313,25 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @throws java.sql.SQLException if a database access error occurs
    */
   @Override
-  public synchronized Connection getConnection() throws SQLException
+  public Connection getConnection() throws SQLException
   {
-    if (pool == null)
-      createConnectionPool();
+    // Lock is only held to create the pool, not while waiting for a connection.
+    ConnectionPool cp;
+    int timeout;
+    lock.lock();
+    try
+    {
+      if (pool == null)
+        createConnectionPool();
+      cp = pool;
+      timeout = getLoginTimeout();
+    }
+    finally
+    {
+      lock.unlock();
+    }
     // Get connection from pool.
-    return getLoginTimeout() > 0 ? pool.getConnection(1000L * getLoginTimeout()) : pool.getConnection();
+    return timeout > 0 ? cp.getConnection(1000L * timeout) : cp.getConnection();
   }
 
   /**
@@ -268,7 +342,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @throws java.sql.SQLException if a database access error occurs
    */
   @Override
-  public synchronized Connection getConnection(String username, String password) throws SQLException
+  public Connection getConnection(String username, String password) throws SQLException
   {
     throw new UnsupportedOperationException("Unsupport method; use getConnection() instead.");
   }
@@ -279,16 +353,24 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @deprecated Use {@link #releaseImmediately()} instead
    */
   @Deprecated
-  public synchronized void releaseConnectionPool()
+  public void releaseConnectionPool()
   {
-    releaseImmediately();
+    lock.lock();
+    try
+    {
+      releaseImmediately();
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   /**
    * Returns the description of this DataSource.
    * @return The description of this DataSource
    */
-  public synchronized String getDescription()
+  public String getDescription()
   {
     return this.description;
   }
@@ -297,7 +379,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the description of this DataSource.
    * @param description description
    */
-  public synchronized void setDescription(String description)
+  public void setDescription(String description)
   {
     this.description = description;
   }
@@ -306,7 +388,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the username to use with this DataSource.
    * @return The username to use with this DataSource
    */
-  public synchronized String getUser()
+  public String getUser()
   {
     return props.getProperty("user");
   }
@@ -315,7 +397,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the username to use with this DataSource.
    * @param username username
    */
-  public synchronized void setUser(String username)
+  public void setUser(String username)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -326,7 +408,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the password to use with this DataSource.
    * @return The password to use with this DataSource
    */
-  public synchronized String getPassword()
+  public String getPassword()
   {
     return props.getProperty("password");
   }
@@ -335,7 +417,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the password to use with this DataSource.
    * @param password password
    */
-  public synchronized void setPassword(String password)
+  public void setPassword(String password)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -346,7 +428,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the JNDI name of the {@code DBPoolDataSource} instance.
    * @return The JNDI name of the {@code DBPoolDataSource} instance
    */
-  public synchronized String getName()
+  public String getName()
   {
     return name;
   }
@@ -355,7 +437,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the JNDI name of the {@code DBPoolDataSource} instance.
    * @param name JNDI name
    */
-  public synchronized void setName(String name)
+  public void setName(String name)
   {
     this.name = name;
   }
@@ -364,7 +446,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the fully-qualified class name for the JDBC driver to use.
    * @return The fully-qualified class name for the JDBC driver to use
    */
-  public synchronized String getDriverClassName()
+  public String getDriverClassName()
   {
     return this.driverClassName;
   }
@@ -373,7 +455,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the class name for the JDBC driver to use.
    * @param driverClassName fully-qualified driver class name to use
    */
-  public synchronized void setDriverClassName(String driverClassName)
+  public void setDriverClassName(String driverClassName)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -384,7 +466,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the fully-qualified class name of the {@link PasswordDecoder}.
    * @return The fully-qualified class name of the {@link PasswordDecoder}
    */
-  public synchronized String getPasswordDecoderClassName()
+  public String getPasswordDecoderClassName()
   {
     return this.passwordDecoderClassName;
   }
@@ -395,7 +477,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * and have a no-argument constructor which can be used to instantiate it for use.
    * @param decoderClassName fully-qualified class name of password decoder to use
    */
-  public synchronized void setPasswordDecoderClassName(String decoderClassName)
+  public void setPasswordDecoderClassName(String decoderClassName)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -406,7 +488,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the fully-qualified class name of the {@link ConnectionValidator}.
    * @return The fully-qualified class name of the {@link ConnectionValidator}
    */
-  public synchronized String getValidatorClassName()
+  public String getValidatorClassName()
   {
     return this.validatorClassName;
   }
@@ -418,7 +500,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * instantiate it for use.
    * @param validatorClassName fully-qualified class name of validator to use
    */
-  public synchronized void setValidatorClassName(String validatorClassName)
+  public void setValidatorClassName(String validatorClassName)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -432,7 +514,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * instance of {@link SimpleQueryValidator}.
    * @return SQL query string used for validation
    */
-  public synchronized String getValidationQuery()
+  public String getValidationQuery()
   {
     return this.validationQuery;
   }
@@ -444,7 +526,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * instance of {@link SimpleQueryValidator}.
    * @param validationQuery SQL query to use for validation
    */
-  public synchronized void setValidationQuery(String validationQuery)
+  public void setValidationQuery(String validationQuery)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -455,7 +537,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the JDBC URL to use with this DataSource.
    * @return The JDBC URL to use with this DataSource
    */
-  public synchronized String getUrl()
+  public String getUrl()
   {
     return this.url;
   }
@@ -464,7 +546,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the JDBC URL to use with this DataSource.
    * @param url JDBC URL to use
    */
-  public synchronized void setUrl(String url)
+  public void setUrl(String url)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -475,7 +557,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns the minimum number of pooled connections in the underlying {@link ConnectionPool}.
    * @return The minimum number of pooled connections in the underlying {@link ConnectionPool}
    */
-  public synchronized int getMinPool()
+  public int getMinPool()
   {
     return minPool;
   }
@@ -484,18 +566,19 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the minimum number of pooled connections in the underlying {@link ConnectionPool}.
    * @param minPool minimum number of pooled connections
    */
-  public synchronized void setMinPool(int minPool)
+  public void setMinPool(int minPool)
   {
     this.minPool = minPool;
-    if (pool != null)
-      pool.setParameters(this.minPool, pool.getMaxPool(), pool.getMaxSize(), pool.getIdleTimeout());
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setParameters(this.minPool, cp.getMaxPool(), cp.getMaxSize(), cp.getIdleTimeout());
   }
 
   /**
    * Returns the maximum number of pooled connections in the underlying {@link ConnectionPool}.
    * @return The maximum number of pooled connections in the underlying {@link ConnectionPool}
    */
-  public synchronized int getMaxPool()
+  public int getMaxPool()
   {
     return maxPool;
   }
@@ -504,18 +587,19 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the maximum number of pooled connections in the underlying {@link ConnectionPool}.
    * @param maxPool maximum number of pooled connections
    */
-  public synchronized void setMaxPool(int maxPool)
+  public void setMaxPool(int maxPool)
   {
     this.maxPool = maxPool;
-    if (pool != null)
-      pool.setParameters(pool.getMinPool(), this.maxPool, pool.getMaxSize(), pool.getIdleTimeout());
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setParameters(cp.getMinPool(), this.maxPool, cp.getMaxSize(), cp.getIdleTimeout());
   }
 
   /**
    * Returns the maximum number of connections in the underlying {@link ConnectionPool}.
    * @return The maximum number of connections in the underlying {@link ConnectionPool}
    */
-  public synchronized int getMaxSize()
+  public int getMaxSize()
   {
     return maxSize;
   }
@@ -524,18 +608,103 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the maximum number of connections in the underlying {@link ConnectionPool}.
    * @param maxSize maximum number of connections
    */
-  public synchronized void setMaxSize(int maxSize)
+  public void setMaxSize(int maxSize)
   {
     this.maxSize = maxSize;
-    if (pool != null)
-      pool.setParameters(pool.getMinPool(), pool.getMaxPool(), this.maxSize, pool.getIdleTimeout());
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setParameters(cp.getMinPool(), cp.getMaxPool(), this.maxSize, cp.getIdleTimeout());
+  }
+
+  /**
+   * Returns the minimum number of idle connections maintained by the underlying {@link ConnectionPool}.
+   * @return The minimum number of idle connections maintained by the underlying {@link ConnectionPool}
+   */
+  public int getMinIdle()
+  {
+    return minIdle;
+  }
+
+  /**
+   * Sets the minimum number of idle connections maintained by the underlying {@link ConnectionPool}.
+   * @param minIdle minimum number of idle connections (0 = none)
+   */
+  public void setMinIdle(int minIdle)
+  {
+    this.minIdle = minIdle;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setMinIdle(this.minIdle);
+  }
+
+  /**
+   * Returns the number of connections of the underlying {@link ConnectionPool} reserved for high-priority requests.
+   * @return The number of connections reserved for high-priority requests
+   */
+  public int getHighPriorityReserve()
+  {
+    return highPriorityReserve;
+  }
+
+  /**
+   * Sets the number of connections of the underlying {@link ConnectionPool} reserved for high-priority requests.
+   * @param highPriorityReserve number of connections reserved for high-priority requests (0 = none)
+   */
+  public void setHighPriorityReserve(int highPriorityReserve)
+  {
+    this.highPriorityReserve = highPriorityReserve;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setHighPriorityReserve(this.highPriorityReserve);
+  }
+
+  /**
+   * Returns the maximum number of threads which may wait for a connection from the underlying {@link ConnectionPool}.
+   * @return The maximum number of waiting threads
+   */
+  public int getMaxWaiters()
+  {
+    return maxWaiters;
+  }
+
+  /**
+   * Sets the maximum number of threads which may wait for a connection from the underlying {@link ConnectionPool}, beyond which requests are rejected.
+   * @param maxWaiters maximum number of waiting threads (0 = unlimited)
+   */
+  public void setMaxWaiters(int maxWaiters)
+  {
+    this.maxWaiters = maxWaiters;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setMaxWaiters(this.maxWaiters);
+  }
+
+  /**
+   * Returns the maximum expected wait for a connection from the underlying {@link ConnectionPool} (milliseconds).
+   * @return The maximum expected wait for a connection
+   */
+  public long getMaxExpectedWait()
+  {
+    return maxExpectedWait;
+  }
+
+  /**
+   * Sets the maximum expected wait for a connection from the underlying {@link ConnectionPool}, beyond which requests are rejected.
+   * @param maxExpectedWait maximum expected wait in milliseconds (0 = unlimited)
+   */
+  public void setMaxExpectedWait(long maxExpectedWait)
+  {
+    this.maxExpectedWait = maxExpectedWait;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setMaxExpectedWait(this.maxExpectedWait);
   }
 
   /**
    * Returns the idle timeout (seconds) for connections in the underlying {@link ConnectionPool}.
    * @return The idle timeout (seconds) for connections in the underlying {@link ConnectionPool}
    */
-  public synchronized int getIdleTimeout()
+  public int getIdleTimeout()
   {
     return idleTimeout;
   }
@@ -544,11 +713,140 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the idle timeout (seconds) for connections in the underlying {@link ConnectionPool}.
    * @param idleTimeout idle timeout (seconds)
    */
-  public synchronized void setIdleTimeout(int idleTimeout)
+  public void setIdleTimeout(int idleTimeout)
   {
     this.idleTimeout = idleTimeout;
-    if (pool != null)
-      pool.setParameters(pool.getMinPool(), pool.getMaxPool(), pool.getMaxSize(), this.idleTimeout * 1000L);
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setParameters(cp.getMinPool(), cp.getMaxPool(), cp.getMaxSize(), this.idleTimeout * 1000L);
+  }
+
+  /**
+   * Returns the maximum lifetime (seconds) for connections in the underlying {@link ConnectionPool}.
+   * @return The maximum lifetime (seconds) for connections in the underlying {@link ConnectionPool}
+   */
+  public int getMaxLifetime()
+  {
+    return maxLifetime;
+  }
+
+  /**
+   * Sets the maximum lifetime (seconds) for connections in the underlying {@link ConnectionPool}.
+   * The lifetime of each connection is randomly reduced by up to 10%.
+   * @param maxLifetime maximum lifetime (seconds; 0 = unlimited)
+   */
+  public void setMaxLifetime(int maxLifetime)
+  {
+    this.maxLifetime = maxLifetime;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setMaxLifetime(this.maxLifetime * 1000L);
+  }
+
+  /**
+   * Returns the validation interval (milliseconds) for connections in the underlying {@link ConnectionPool}.
+   * @return The validation interval (milliseconds) for connections in the underlying {@link ConnectionPool}
+   */
+  public long getValidationInterval()
+  {
+    return validationInterval;
+  }
+
+  /**
+   * Sets the validation interval (milliseconds) for connections in the underlying {@link ConnectionPool}.
+   * Connections used or validated more recently than this are not validated on check-out.
+   * @param validationInterval validation interval (milliseconds; 0 = always validate)
+   */
+  public void setValidationInterval(long validationInterval)
+  {
+    this.validationInterval = validationInterval;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setValidationInterval(this.validationInterval);
+  }
+
+  /**
+   * Returns the interval (milliseconds) after which idle connections in the underlying {@link ConnectionPool} are validated in the background.
+   * @return The idle validation interval (milliseconds) for connections in the underlying {@link ConnectionPool}
+   */
+  public long getIdleValidationInterval()
+  {
+    return idleValidationInterval;
+  }
+
+  /**
+   * Sets the interval (milliseconds) after which idle connections in the underlying {@link ConnectionPool} are validated in the background.
+   * @param idleValidationInterval idle validation interval (milliseconds; 0 = disabled)
+   */
+  public void setIdleValidationInterval(long idleValidationInterval)
+  {
+    this.idleValidationInterval = idleValidationInterval;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setIdleValidationInterval(this.idleValidationInterval);
+  }
+
+  /**
+   * Returns the time (milliseconds) after which connections checked out from the underlying {@link ConnectionPool} are reported as possible leaks.
+   * @return The leak detection threshold (milliseconds) for connections in the underlying {@link ConnectionPool}
+   */
+  public long getLeakDetectionThreshold()
+  {
+    return leakDetectionThreshold;
+  }
+
+  /**
+   * Sets the time (milliseconds) after which connections checked out from the underlying {@link ConnectionPool} are reported as possible leaks.
+   * @param leakDetectionThreshold leak detection threshold (milliseconds; 0 = disabled)
+   */
+  public void setLeakDetectionThreshold(long leakDetectionThreshold)
+  {
+    this.leakDetectionThreshold = leakDetectionThreshold;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setLeakDetectionThreshold(this.leakDetectionThreshold);
+  }
+
+  /**
+   * Returns whether leaked connections are reclaimed by the underlying {@link ConnectionPool}.
+   * @return Whether leaked connections are reclaimed by the underlying {@link ConnectionPool}
+   */
+  public boolean isReclaimLeaks()
+  {
+    return reclaimLeaks;
+  }
+
+  /**
+   * Sets whether leaked connections are aborted and reclaimed by the underlying {@link ConnectionPool}.
+   * @param reclaimLeaks whether to reclaim leaked connections
+   */
+  public void setReclaimLeaks(boolean reclaimLeaks)
+  {
+    this.reclaimLeaks = reclaimLeaks;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setReclaimLeaks(this.reclaimLeaks);
+  }
+
+  /**
+   * Returns the number of connections created concurrently when populating the underlying {@link ConnectionPool}.
+   * @return The number of connections created concurrently when populating the underlying {@link ConnectionPool}
+   */
+  public int getInitParallelism()
+  {
+    return initParallelism;
+  }
+
+  /**
+   * Sets the number of connections created concurrently when populating the underlying {@link ConnectionPool}.
+   * @param initParallelism number of connections to create concurrently (at least 1)
+   */
+  public void setInitParallelism(int initParallelism)
+  {
+    this.initParallelism = initParallelism;
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setInitParallelism(this.initParallelism);
   }
 
   /**
@@ -556,7 +854,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @param key property key
    * @return the driver property for the specified key
    */
-  public synchronized String getConnectionProperty(String key)
+  public String getConnectionProperty(String key)
   {
     Objects.requireNonNull(key);
     return props.getProperty(key);
@@ -567,7 +865,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @param key property key
    * @param value value of property
    */
-  public synchronized void setConnectionProperty(String key, String value)
+  public void setConnectionProperty(String key, String value)
   {
     Objects.requireNonNull(key);
     if (pool != null)
@@ -581,7 +879,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Returns a string denoting the pool selection strategy to use (one of LIFO/FIFO/RANDOM).
    * @return A string denoting the pool selection strategy to use (one of LIFO/FIFO/RANDOM)
    */
-  public synchronized String getSelectionStrategy()
+  public String getSelectionStrategy()
   {
     return this.selection;
   }
@@ -590,7 +888,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Sets the class name for the JDBC driver to use.
    * @param selection string representing pool selection strategy to use (one of LIFO/FIFO/RANDOM)
    */
-  public synchronized void setSelectionStrategy(String selection)
+  public void setSelectionStrategy(String selection)
   {
     if (pool != null)
       throw new IllegalStateException("Cannot call this method after DBPoolDataSource has been initialized");
@@ -616,7 +914,7 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * Retrieves the log writer for this DataSource.
    */
   @Override
-  public synchronized PrintWriter getLogWriter()
+  public PrintWriter getLogWriter()
   {
     return logWriter;
   }
@@ -626,11 +924,12 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @param out the new log writer; to disable logging, set to null
    */
   @Override
-  public synchronized void setLogWriter(PrintWriter out)
+  public void setLogWriter(PrintWriter out)
   {
     this.logWriter = out;
-    if (pool != null)
-      pool.setLog(this.logWriter);
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.setLog(this.logWriter);
   }
 
   /**
@@ -643,13 +942,13 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    * @param seconds the DataSource login time limit
    */
   @Override
-  public synchronized void setLoginTimeout(int seconds)
+  public void setLoginTimeout(int seconds)
   {
     this.loginTimeout = seconds;
   }
 
   @Override
-  public synchronized int getLoginTimeout()
+  public int getLoginTimeout()
   {
     return this.loginTimeout;
   }
@@ -659,8 +958,9 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    */
   public void release()
   {
-    if (pool != null)
-      pool.release();
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.release();
   }
 
   /**
@@ -673,8 +973,9 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    */
   public void release(long timeout)
   {
-    if (pool != null)
-      pool.release(timeout);
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.release(timeout);
   }
 
   /**
@@ -682,8 +983,9 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    */
   public void releaseAsync()
   {
-    if (pool != null)
-      pool.releaseAsync();
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.releaseAsync();
   }
 
   /**
@@ -692,8 +994,9 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    */
   public void releaseAsync(long timeout)
   {
-    if (pool != null)
-      pool.releaseAsync(timeout);
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.releaseAsync(timeout);
   }
 
   /**
@@ -704,8 +1007,9 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
   @Deprecated
   public void releaseForcibly()
   {
-    if (pool != null)
-      pool.releaseForcibly();
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.releaseForcibly();
   }
 
   /**
@@ -713,12 +1017,13 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
    */
   public void releaseImmediately()
   {
-    if (pool != null)
-      pool.releaseImmediately();
+    ConnectionPool cp = pool;
+    if (cp != null)
+      cp.releaseImmediately();
   }
 
   @Override
-  public synchronized String toString()
+  public String toString()
   {
     StringBuilder sb = new StringBuilder();
     sb.append(getClass().getName());
@@ -746,13 +1051,13 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
   }
 
   @Override
-  public synchronized boolean isWrapperFor(Class<?> iface) throws SQLException
+  public boolean isWrapperFor(Class<?> iface) throws SQLException
   {
     return iface.isInstance(pool);
   }
 
   @Override
-  public synchronized <T> T unwrap(Class<T> iface) throws SQLException
+  public <T> T unwrap(Class<T> iface) throws SQLException
   {
     try
     {
@@ -816,22 +1121,30 @@ public class DBPoolDataSource implements DataSource, ConnectionPoolListener
 
   // Synchronizes parameters in case they are changed externally.
   @Override
-  public synchronized void poolParametersChanged(ConnectionPoolEvent evt)
+  public void poolParametersChanged(ConnectionPoolEvent evt)
   {
-    synchronized(pool)
-    {
-      this.minPool = pool.getMinPool();
-      this.maxPool = pool.getMaxPool();
-      this.maxSize = pool.getMaxSize();
-      this.idleTimeout = (int)pool.getIdleTimeout();
-    }
+    ConnectionPool cp = evt.getConnectionPool();
+    this.minPool = cp.getMinPool();
+    this.maxPool = cp.getMaxPool();
+    this.maxSize = cp.getMaxSize();
+    this.idleTimeout = (int)cp.getIdleTimeout();
   }
 
   @Override
-  public synchronized void poolReleased(ConnectionPoolEvent evt)
+  public void poolReleased(ConnectionPoolEvent evt)
   {
-    pool.removeConnectionPoolListener(this);
-    pool = null;
+    lock.lock();
+    try
+    {
+      ConnectionPool cp = evt.getConnectionPool();
+      cp.removeConnectionPoolListener(this);
+      if (pool == cp)
+        pool = null;
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   //**********************************
@@ -205,6 +205,18 @@ public class DBPoolDataSourceFactory implements ObjectFactory
         }
         logger.trace("Set DataSource maxSize: " + refValue);
       }
+      else if (refName.equalsIgnoreCase("minIdle"))
+      {
+        try
+        {
+          ds.setMinIdle(Integer.parseInt(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource minIdle: " + refValue);
+      }
       else if (refName.equalsIgnoreCase("idleTimeout"))
       {
         try
@@ -217,6 +229,107 @@ public class DBPoolDataSourceFactory implements ObjectFactory
         }
         logger.trace("Set DataSource idleTimeout: " + refValue);
       }
+      else if (refName.equalsIgnoreCase("validationInterval"))
+      {
+        try
+        {
+          ds.setValidationInterval(Long.parseLong(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource validationInterval: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("idleValidationInterval"))
+      {
+        try
+        {
+          ds.setIdleValidationInterval(Long.parseLong(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource idleValidationInterval: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("initParallelism"))
+      {
+        try
+        {
+          ds.setInitParallelism(Integer.parseInt(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource initParallelism: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("maxLifetime"))
+      {
+        try
+        {
+          ds.setMaxLifetime(Integer.parseInt(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource maxLifetime: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("leakDetectionThreshold"))
+      {
+        try
+        {
+          ds.setLeakDetectionThreshold(Long.parseLong(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource leakDetectionThreshold: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("reclaimLeaks"))
+      {
+        ds.setReclaimLeaks(Boolean.parseBoolean(refValue));
+        logger.trace("Set DataSource reclaimLeaks: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("highPriorityReserve"))
+      {
+        try
+        {
+          ds.setHighPriorityReserve(Integer.parseInt(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource highPriorityReserve: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("maxWaiters"))
+      {
+        try
+        {
+          ds.setMaxWaiters(Integer.parseInt(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource maxWaiters: " + refValue);
+      }
+      else if (refName.equalsIgnoreCase("maxExpectedWait"))
+      {
+        try
+        {
+          ds.setMaxExpectedWait(Long.parseLong(refValue));
+        }
+        catch (NumberFormatException nfx)
+        {
+          throw new NamingException("Invalid '" + refName + "' value: " + refValue);
+        }
+        logger.trace("Set DataSource maxExpectedWait: " + refValue);
+      }
       else if (refName.equalsIgnoreCase("loginTimeout"))
       {
         try
@@ -45,6 +45,10 @@ import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Utility class to perform asynchronous event dispatch.
@@ -53,6 +57,17 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * to be propagated to the registered listeners in a separate thread.
  * The mechanism of actual event notification is specified using an
  * implementation of {@link EventNotifier}.
+ * <p>Events are propagated using the shared event dispatch threads of the
+ * {@link Housekeeper} (see {@link Housekeeper#setEventThreadCount(int)})
+ * rather than a dedicated thread, although each dispatcher still propagates
+ * its events one at a time, in the order they were dispatched.
+ * A slow listener may therefore delay events of other dispatchers while
+ * all event dispatch threads are busy, but never delays housekeeping.
+ * Note that as a consequence this class no longer extends {@link Thread};
+ * the {@code Thread} methods used to manage a dispatcher are retained as
+ * deprecated methods ({@link #isAlive()}, {@link #interrupt()}), and
+ * {@link #start()}, {@link #join()} and {@link #join(long)} behave as before,
+ * but instances can no longer be used as {@code Thread} instances.</p>
  * <p>The {@link EventListener} list provided on creation should ideally
  * be an instance of {@link CopyOnWriteArrayList}, which allows safe iteration
  * without making a copy. If this type is not used, a copy of of the listeners
@@ -63,7 +78,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * @param <L> class type of event listener
  * @param <E> class type of event object
  */
-public class EventDispatcher<L extends EventListener, E extends EventObject> extends Thread
+public class EventDispatcher<L extends EventListener, E extends EventObject>
 {
   /** Event listeners to which to dispatch events. */
   private final List<L> listeners;
@@ -71,7 +86,15 @@ public class EventDispatcher<L extends EventListener, E extends EventObject> ext
   private final EventNotifier<L,E> notifier;
   /** Queue of events to dispatch. */
   private final Queue<E> events = new ConcurrentLinkedQueue<>();
-  /** Flag determining whether the cleaner has been stopped. */
+  /** Flag indicating whether a task to propagate events is scheduled/running. */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  /** Lock for waiting on completion of event propagation. */
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Condition signalled when event propagation task completes. */
+  private final Condition idle = lock.newCondition();
+  /** Flag determining whether the dispatcher has been started. */
+  private volatile boolean started = false;
+  /** Flag determining whether the dispatcher has been stopped. */
   private volatile boolean stopped = false;
 
   public EventDispatcher(List<L> listeners, EventNotifier<L,E> notifier)
@@ -80,23 +103,87 @@ public class EventDispatcher<L extends EventListener, E extends EventObject> ext
     Objects.requireNonNull(notifier);
     this.listeners = listeners;
     this.notifier = notifier;
-    this.setDaemon(true);
   }
 
-  @Override
+  /**
+   * Starts this dispatcher, allowing events to be propagated.
+   */
   public void start()
   {
     stopped = false;
-    super.start();
+    started = true;
+    schedule();
   }
 
   /**
-   * Halts this thread (use instead of {@link #stop()}).
+   * Halts this dispatcher; any events not yet propagated are discarded.
    */
   public void halt()
   {
     stopped = true;
-    this.interrupt();
+    events.clear();
+  }
+
+  /**
+   * Returns whether this dispatcher has been started and not yet halted.
+   * @return true if this dispatcher is propagating events, false otherwise
+   * @deprecated retained for compatibility from when this class extended {@link Thread}
+   */
+  @Deprecated
+  public boolean isAlive()
+  {
+    return started && !stopped;
+  }
+
+  /**
+   * Does nothing, as this dispatcher no longer has a dedicated thread
+   * (interruption of which was previously ignored); use {@link #halt()}
+   * to stop the dispatcher.
+   * @deprecated retained for compatibility from when this class extended {@link Thread}
+   */
+  @Deprecated
+  public void interrupt()
+  {
+  }
+
+  /**
+   * Waits for any event propagation in progress to complete.
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void join() throws InterruptedException
+  {
+    join(0);
+  }
+
+  /**
+   * Waits at most {@code millis} milliseconds for any event propagation
+   * in progress to complete. A timeout of 0 means to wait forever.
+   * @param millis time to wait in milliseconds
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void join(long millis) throws InterruptedException
+  {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    lock.lock();
+    try
+    {
+      while (scheduled.get())
+      {
+        if (millis <= 0)
+          idle.await();
+        else
+        {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0)
+            return;
+          idle.awaitNanos(remaining);
+        }
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   /**
@@ -105,35 +192,32 @@ public class EventDispatcher<L extends EventListener, E extends EventObject> ext
    */
   public void dispatchEvent(E event)
   {
-    if (event == null)
+    if (event == null || stopped)
       return;
     events.add(event);
-    synchronized (this)
-    {
-      this.notify();
-    }
+    schedule();
   }
 
-  @Override
-  public void run()
+  /**
+   * Schedules a task to propagate queued events, unless one is already
+   * scheduled/running.
+   */
+  private void schedule()
   {
-    while (!stopped)
+    if (!stopped && !events.isEmpty() && scheduled.compareAndSet(false, true))
+      Housekeeper.executeEvent(this::run);
+  }
+
+  /**
+   * Propagates queued events to listeners.
+   */
+  private void run()
+  {
+    try
     {
-      if (events.isEmpty())
-      {
-        synchronized (this)
-        {
-          try { this.wait(); }
-          catch (InterruptedException ix) {}  // Interruption ignored.
-        }
-      }
-      else
+      E event = null;
+      while (!stopped && (event = events.poll()) != null)
       {
-        // Get next event to propagate.
-        E event = events.poll();
-        if (event == null)
-          continue;
-
         // Check if a copy needs to be taken before iterating over listeners.
         List<L> temp = null;
         boolean safe = (listeners instanceof CopyOnWriteArrayList);
@@ -156,5 +240,20 @@ public class EventDispatcher<L extends EventListener, E extends EventObject> ext
         }
       }
     }
+    finally
+    {
+      lock.lock();
+      try
+      {
+        scheduled.set(false);
+        idle.signalAll();
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+    // Reschedule if events were added after the queue was found empty.
+    schedule();
   }
 }
@@ -0,0 +1,374 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared scheduler for the housekeeping tasks of all {@link ObjectPool}
+ * instances, which includes purging of idle items, background validation,
+ * pool initialization/replenishment, asynchronous item destruction,
+ * and event dispatch.
+ * <p>All housekeeping is performed by a single pool of daemon threads,
+ * so the number of threads used does not grow with the number of pools.
+ * The number of threads may be specified using the system property
+ * {@code snaq.util.housekeepingThreads}, or using the
+ * {@link #setThreadCount(int)} method.</p>
+ * <p>Asynchronous destruction of items, which may block for long periods
+ * (e.g. closing connections to a failed database server), is performed by a
+ * separate bounded executor, so as not to delay other housekeeping.
+ * Its number of threads and maximum queue length may be specified using the
+ * system properties {@code snaq.util.destroyThreads} and
+ * {@code snaq.util.destroyQueueSize} respectively. If the queue is full,
+ * items are destroyed synchronously instead.</p>
+ * <p>Similarly, pool initialization/replenishment, which creates items and
+ * may block for long periods (e.g. connecting to a slow database server),
+ * is performed by a separate bounded executor, the number of threads of
+ * which may be specified using the system property
+ * {@code snaq.util.createThreads}. Initialization tasks are queued when all
+ * its threads are busy, so the shared housekeeping threads are only used
+ * for short, non-blocking tasks.</p>
+ * <p>Asynchronous check-outs (see {@link ObjectPool#checkOutAsync(long)})
+ * are serviced and completed by another bounded executor (unless a pool
+ * is given its own executor), the number of threads of which may be
+ * specified using the system property {@code snaq.util.asyncThreads}.</p>
+ * <p>Events are propagated to listeners (see {@link EventDispatcher}) by
+ * another bounded executor, so that slow listeners cannot delay
+ * housekeeping, the number of threads of which may be specified using
+ * the system property {@code snaq.util.eventThreads}.</p>
+ *
+ * @author Giles Winstanley
+ */
+public final class Housekeeper
+{
+  /** System property specifying the number of housekeeping threads. */
+  public static final String THREADS_PROPERTY = "snaq.util.housekeepingThreads";
+  /** Default number of housekeeping threads. */
+  private static final int DEFAULT_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+  /** System property specifying the number of threads for asynchronous item destruction. */
+  public static final String DESTROY_THREADS_PROPERTY = "snaq.util.destroyThreads";
+  /** System property specifying the maximum number of items queued for asynchronous destruction. */
+  public static final String DESTROY_QUEUE_PROPERTY = "snaq.util.destroyQueueSize";
+  /** System property specifying the number of threads for pool initialization. */
+  public static final String CREATE_THREADS_PROPERTY = "snaq.util.createThreads";
+  /** Default number of threads for pool initialization. */
+  private static final int DEFAULT_CREATE_THREADS = 4;
+  /** System property specifying the number of threads for asynchronous check-outs. */
+  public static final String ASYNC_THREADS_PROPERTY = "snaq.util.asyncThreads";
+  /** Default number of threads for asynchronous check-outs. */
+  private static final int DEFAULT_ASYNC_THREADS = DEFAULT_THREADS;
+  /** System property specifying the number of threads for event dispatch. */
+  public static final String EVENT_THREADS_PROPERTY = "snaq.util.eventThreads";
+  /** Default number of threads for event dispatch. */
+  private static final int DEFAULT_EVENT_THREADS = 4;
+  /** Default number of threads for asynchronous item destruction. */
+  private static final int DEFAULT_DESTROY_THREADS = 4;
+  /** Default maximum number of items queued for asynchronous destruction. */
+  private static final int DEFAULT_DESTROY_QUEUE_SIZE = 1000;
+  /** Executor which runs all housekeeping tasks. */
+  private static final ScheduledThreadPoolExecutor executor;
+  /** Executor which performs asynchronous item destruction. */
+  private static final ThreadPoolExecutor destroyer;
+  /** Executor which performs pool initialization. */
+  private static final ThreadPoolExecutor creator;
+  /** Executor which services asynchronous check-outs. */
+  private static final ThreadPoolExecutor asyncWorker;
+  /** Executor which propagates events to listeners. */
+  private static final ThreadPoolExecutor dispatcher;
+  static
+  {
+    int n = Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS);
+    executor = new ScheduledThreadPoolExecutor(Math.max(n, 1), daemonThreadFactory("DBPool-housekeeper-"));
+    executor.setRemoveOnCancelPolicy(true);
+    int dn = Math.max(Integer.getInteger(DESTROY_THREADS_PROPERTY, DEFAULT_DESTROY_THREADS), 1);
+    int dq = Math.max(Integer.getInteger(DESTROY_QUEUE_PROPERTY, DEFAULT_DESTROY_QUEUE_SIZE), 1);
+    destroyer = new ThreadPoolExecutor(dn, dn, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(dq), daemonThreadFactory("DBPool-destroyer-"));
+    destroyer.allowCoreThreadTimeOut(true);
+    int cn = Math.max(Integer.getInteger(CREATE_THREADS_PROPERTY, DEFAULT_CREATE_THREADS), 1);
+    creator = new ThreadPoolExecutor(cn, cn, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreadFactory("DBPool-creator-"));
+    creator.allowCoreThreadTimeOut(true);
+    int an = Math.max(Integer.getInteger(ASYNC_THREADS_PROPERTY, DEFAULT_ASYNC_THREADS), 1);
+    asyncWorker = new ThreadPoolExecutor(an, an, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreadFactory("DBPool-async-"));
+    asyncWorker.allowCoreThreadTimeOut(true);
+    int en = Math.max(Integer.getInteger(EVENT_THREADS_PROPERTY, DEFAULT_EVENT_THREADS), 1);
+    dispatcher = new ThreadPoolExecutor(en, en, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreadFactory("DBPool-events-"));
+    dispatcher.allowCoreThreadTimeOut(true);
+  }
+
+  private Housekeeper()
+  {
+  }
+
+  /**
+   * Sets the number of threads used to perform housekeeping tasks.
+   * @param n number of threads (must be at least 1)
+   */
+  public static void setThreadCount(int n)
+  {
+    if (n < 1)
+      throw new IllegalArgumentException("Invalid number of housekeeping threads specified: " + n);
+    executor.setCorePoolSize(n);
+  }
+
+  /**
+   * Returns the number of threads used to perform housekeeping tasks.
+   * @return The number of threads used to perform housekeeping tasks
+   */
+  public static int getThreadCount()
+  {
+    return executor.getCorePoolSize();
+  }
+
+  /**
+   * Sets the number of threads used to perform asynchronous item destruction.
+   * @param n number of threads (must be at least 1)
+   */
+  public static void setDestroyThreadCount(int n)
+  {
+    if (n < 1)
+      throw new IllegalArgumentException("Invalid number of destroy threads specified: " + n);
+    // Order of changes must maintain core <= maximum.
+    if (n > destroyer.getMaximumPoolSize())
+    {
+      destroyer.setMaximumPoolSize(n);
+      destroyer.setCorePoolSize(n);
+    }
+    else
+    {
+      destroyer.setCorePoolSize(n);
+      destroyer.setMaximumPoolSize(n);
+    }
+  }
+
+  /**
+   * Returns the number of threads used to perform asynchronous item destruction.
+   * @return The number of threads used to perform asynchronous item destruction
+   */
+  public static int getDestroyThreadCount()
+  {
+    return destroyer.getMaximumPoolSize();
+  }
+
+  /**
+   * Sets the number of threads used to perform pool initialization.
+   * @param n number of threads (must be at least 1)
+   */
+  public static void setCreateThreadCount(int n)
+  {
+    if (n < 1)
+      throw new IllegalArgumentException("Invalid number of create threads specified: " + n);
+    // Order of changes must maintain core <= maximum.
+    if (n > creator.getMaximumPoolSize())
+    {
+      creator.setMaximumPoolSize(n);
+      creator.setCorePoolSize(n);
+    }
+    else
+    {
+      creator.setCorePoolSize(n);
+      creator.setMaximumPoolSize(n);
+    }
+  }
+
+  /**
+   * Returns the number of threads used to perform pool initialization.
+   * @return The number of threads used to perform pool initialization
+   */
+  public static int getCreateThreadCount()
+  {
+    return creator.getMaximumPoolSize();
+  }
+
+  /**
+   * Executes the specified item creation task (e.g. pool initialization)
+   * as soon as a creation thread is available.
+   * @param task task to execute
+   */
+  static void executeCreate(Runnable task)
+  {
+    creator.execute(task);
+  }
+
+  /**
+   * Sets the number of threads used by default to service asynchronous check-outs.
+   * @param n number of threads (must be at least 1)
+   */
+  public static void setAsyncThreadCount(int n)
+  {
+    if (n < 1)
+      throw new IllegalArgumentException("Invalid number of async threads specified: " + n);
+    // Order of changes must maintain core <= maximum.
+    if (n > asyncWorker.getMaximumPoolSize())
+    {
+      asyncWorker.setMaximumPoolSize(n);
+      asyncWorker.setCorePoolSize(n);
+    }
+    else
+    {
+      asyncWorker.setCorePoolSize(n);
+      asyncWorker.setMaximumPoolSize(n);
+    }
+  }
+
+  /**
+   * Returns the number of threads used by default to service asynchronous check-outs.
+   * @return The number of threads used to service asynchronous check-outs
+   */
+  public static int getAsyncThreadCount()
+  {
+    return asyncWorker.getMaximumPoolSize();
+  }
+
+  /**
+   * Executes the specified asynchronous check-out task as soon as a thread
+   * is available (the default executor for asynchronous check-outs).
+   * @param task task to execute
+   */
+  static void executeAsync(Runnable task)
+  {
+    asyncWorker.execute(task);
+  }
+
+  /**
+   * Sets the number of threads used to propagate events to listeners.
+   * @param n number of threads (must be at least 1)
+   */
+  public static void setEventThreadCount(int n)
+  {
+    if (n < 1)
+      throw new IllegalArgumentException("Invalid number of event threads specified: " + n);
+    // Order of changes must maintain core <= maximum.
+    if (n > dispatcher.getMaximumPoolSize())
+    {
+      dispatcher.setMaximumPoolSize(n);
+      dispatcher.setCorePoolSize(n);
+    }
+    else
+    {
+      dispatcher.setCorePoolSize(n);
+      dispatcher.setMaximumPoolSize(n);
+    }
+  }
+
+  /**
+   * Returns the number of threads used to propagate events to listeners.
+   * @return The number of threads used to propagate events to listeners
+   */
+  public static int getEventThreadCount()
+  {
+    return dispatcher.getMaximumPoolSize();
+  }
+
+  /**
+   * Executes the specified event propagation task as soon as an event
+   * dispatch thread is available.
+   * @param task task to execute
+   */
+  static void executeEvent(Runnable task)
+  {
+    dispatcher.execute(task);
+  }
+
+  /**
+   * Executes the specified item destruction task asynchronously,
+   * unless the queue of such tasks is full.
+   * @param task task to execute
+   * @return true if the task was accepted, false if it must be run by the caller
+   */
+  static boolean executeDestroy(Runnable task)
+  {
+    try
+    {
+      destroyer.execute(task);
+      return true;
+    }
+    catch (RejectedExecutionException rex)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Schedules the specified task to execute after the given delay.
+   * @param task task to execute
+   * @param delay delay before execution
+   * @param unit time unit of delay
+   * @return future representing the pending task
+   */
+  static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit)
+  {
+    return executor.schedule(task, delay, unit);
+  }
+
+  /**
+   * Schedules the specified task to execute periodically, with the given
+   * delay between the end of one execution and the start of the next.
+   * @param task task to execute
+   * @param delay delay between executions
+   * @param unit time unit of delay
+   * @return future representing the pending task
+   */
+  static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay, TimeUnit unit)
+  {
+    return executor.scheduleWithFixedDelay(task, delay, delay, unit);
+  }
+
+  /**
+   * Creates a factory for daemon threads with the specified name prefix.
+   * @param prefix prefix for thread names
+   * @return thread factory
+   */
+  static ThreadFactory daemonThreadFactory(final String prefix)
+  {
+    final AtomicInteger count = new AtomicInteger();
+    return r ->
+    {
+      Thread t = new Thread(r, prefix + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+}
@@ -127,6 +127,41 @@ public class JmxUtils
     ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
     oi.add(new ModelMBeanOperationInfo(method.getName(), method));
 
+    name = "highPriorityReserve";
+    desc = name;
+    method = pool.getClass().getMethod("getHighPriorityReserve", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "maxWaiters";
+    desc = name;
+    method = pool.getClass().getMethod("getMaxWaiters", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "maxExpectedWait";
+    desc = name;
+    method = pool.getClass().getMethod("getMaxExpectedWait", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "tagUsage";
+    desc = name;
+    method = pool.getClass().getMethod("getTagUsage", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "stripeCount";
+    desc = name;
+    method = pool.getClass().getMethod("getStripeCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
     name = "size";
     desc = name;
     method = pool.getClass().getMethod("getSize", new Class[]{});
@@ -162,6 +197,109 @@ public class JmxUtils
     ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
     oi.add(new ModelMBeanOperationInfo(method.getName(), method));
 
+    name = "waitingCount";
+    desc = name;
+    method = pool.getClass().getMethod("getWaitingCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "peakWaitingCount";
+    desc = name;
+    method = pool.getClass().getMethod("getPeakWaitingCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "pendingDestroyCount";
+    desc = name;
+    method = pool.getClass().getMethod("getPendingDestroyCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "averageDestroyTime";
+    desc = name;
+    method = pool.getClass().getMethod("getAverageDestroyTime", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "destroyFallbackCount";
+    desc = name;
+    method = pool.getClass().getMethod("getDestroyFallbackCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "leakDetectionThreshold";
+    desc = name;
+    method = pool.getClass().getMethod("getLeakDetectionThreshold", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "leakCount";
+    desc = name;
+    method = pool.getClass().getMethod("getLeakCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "reclaimCount";
+    desc = name;
+    method = pool.getClass().getMethod("getReclaimCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "rejectedCount";
+    desc = name;
+    method = pool.getClass().getMethod("getRejectedCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "autoSizing";
+    desc = name;
+    method = pool.getClass().getMethod("isAutoSizing", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "autoSizeAdjustmentCount";
+    desc = name;
+    method = pool.getClass().getMethod("getAutoSizeAdjustmentCount", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "lastAutoSizeDecision";
+    desc = name;
+    method = pool.getClass().getMethod("getLastAutoSizeDecision", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+    ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+
+    name = "resetLatencyHistograms";
+    method = pool.getClass().getMethod("resetLatencyHistograms", new Class[]{});
+    ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=operation" });
+    oi.add(new ModelMBeanOperationInfo(method.getName(), method, ds));
+
+    // Percentiles of latency histograms (milliseconds).
+    for (String h : new String[] { "acquireTime", "holdTime", "creationTime", "validationTime" })
+    {
+      for (String p : new String[] { "P50", "P90", "P99", "P999" })
+      {
+        name = h + p;
+        desc = name + " (ms)";
+        method = pool.getClass().getMethod("get" + Character.toUpperCase(name.charAt(0)) + name.substring(1), new Class[]{});
+        ds = new DescriptorSupport(new String[] { "name=" + name, "descriptorType=attribute", "getMethod=" + method.getName() });
+        ai.add(new ModelMBeanAttributeInfo(name, desc, method, null, ds));
+        oi.add(new ModelMBeanOperationInfo(method.getName(), method));
+      }
+    }
+
     // Create MBean.
     ModelMBeanInfo mbi = new ModelMBeanInfoSupport(
       pool.getClass().getName(),
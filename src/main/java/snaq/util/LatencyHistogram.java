@@ -0,0 +1,195 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size histogram for recording latencies (in nanoseconds), used by
+ * {@link ObjectPool} to record time-to-acquire, hold time, creation time,
+ * and validation time of items.
+ * <p>Values are recorded in log-linear buckets: each power-of-two range is
+ * divided into 16 linear sub-buckets, so the value reported for a percentile
+ * is within about 3% of the true value. Values above about 73 minutes are
+ * recorded as the maximum trackable value. Memory use is fixed (about 5KB)
+ * and recording a value neither locks nor allocates, so a histogram may be
+ * safely updated by many threads concurrently.</p>
+ * <p>Values are accumulated from creation of the histogram or the last call
+ * to {@link #reset()}. As values are read without locking, the results of
+ * a histogram which is being concurrently updated may be marginally
+ * inconsistent.</p>
+ *
+ * @see snaq.util.ObjectPool
+ * @author Giles Winstanley
+ */
+public final class LatencyHistogram
+{
+  /** Number of bits used for the linear sub-buckets of each power of two. */
+  private static final int SUB_BITS = 4;
+  /** Number of linear sub-buckets for each power of two. */
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  /** Exponent of the highest power of two that can be tracked. */
+  private static final int MAX_EXPONENT = 41;
+  /** Maximum trackable value (nanoseconds); higher values are recorded as this value. */
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+  /** Bucket counts. */
+  private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT - SUB_BITS + 2) << SUB_BITS);
+  /** Total of values recorded (nanoseconds). */
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * Records a value.
+   * @param nanos value to record (nanoseconds); negative values are recorded as zero
+   */
+  public void record(long nanos)
+  {
+    long v = Math.min(Math.max(nanos, 0), MAX_VALUE);
+    counts.incrementAndGet(indexOf(v));
+    total.add(v);
+  }
+
+  /**
+   * Returns the bucket index for the specified value.
+   * Values below {@code SUB_COUNT} each have their own bucket; above that,
+   * each power-of-two range has {@code SUB_COUNT} buckets of equal width.
+   */
+  private static int indexOf(long v)
+  {
+    if (v < SUB_COUNT)
+      return (int)v;
+    int shift = (63 - Long.numberOfLeadingZeros(v)) - SUB_BITS;
+    return ((shift + 1) << SUB_BITS) + (int)((v >>> shift) - SUB_COUNT);
+  }
+
+  /**
+   * Returns the lowest value recorded in the bucket with the specified index.
+   */
+  private static long lowestValueAt(int index)
+  {
+    if (index < SUB_COUNT)
+      return index;
+    int shift = (index >>> SUB_BITS) - 1;
+    return ((long)(index & (SUB_COUNT - 1)) + SUB_COUNT) << shift;
+  }
+
+  /**
+   * Returns the width of the bucket with the specified index.
+   */
+  private static long widthAt(int index)
+  {
+    return (index < SUB_COUNT) ? 1 : 1L << ((index >>> SUB_BITS) - 1);
+  }
+
+  /**
+   * Returns the number of values recorded.
+   * @return The number of values recorded
+   */
+  public long getCount()
+  {
+    long n = 0;
+    for (int i = 0; i < counts.length(); i++)
+      n += counts.get(i);
+    return n;
+  }
+
+  /**
+   * Returns the mean of the values recorded (nanoseconds).
+   * @return The mean of the values recorded (nanoseconds), or 0 if none recorded
+   */
+  public long getMean()
+  {
+    long n = getCount();
+    return (n == 0) ? 0 : total.sum() / n;
+  }
+
+  /**
+   * Returns the value at the specified percentile (nanoseconds).
+   * For example, {@code getValueAtPercentile(99.0)} returns a value which
+   * is not exceeded by 99% of the recorded values.
+   * @param percentile percentile (between 0 and 100)
+   * @return The value at the specified percentile (nanoseconds), or 0 if none recorded
+   */
+  public long getValueAtPercentile(double percentile)
+  {
+    if (percentile < 0 || percentile > 100)
+      throw new IllegalArgumentException("Invalid percentile specified: " + percentile);
+    // Counts are copied, so the percentile is computed from a single reading.
+    final int len = counts.length();
+    long[] snapshot = new long[len];
+    long n = 0;
+    for (int i = 0; i < len; i++)
+      n += (snapshot[i] = counts.get(i));
+    if (n == 0)
+      return 0;
+    long target = Math.max((long)Math.ceil(percentile / 100.0 * n), 1);
+    long cum = 0;
+    for (int i = 0; i < len; i++)
+    {
+      cum += snapshot[i];
+      if (cum >= target)
+        return lowestValueAt(i) + (widthAt(i) >>> 1);
+    }
+    return MAX_VALUE;
+  }
+
+  /**
+   * Resets the histogram, discarding all recorded values.
+   */
+  public void reset()
+  {
+    for (int i = 0; i < counts.length(); i++)
+      counts.set(i, 0);
+    total.reset();
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder();
+    sb.append(getClass().getName());
+    sb.append("[count=");
+    sb.append(getCount());
+    sb.append(",p50=");
+    sb.append(getValueAtPercentile(50.0));
+    sb.append(",p99=");
+    sb.append(getValueAtPercentile(99.0));
+    sb.append(']');
+    return sb.toString();
+  }
+}
@@ -38,11 +38,27 @@
 package snaq.util;
 
 import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import snaq.util.logging.LogUtil;
@@ -92,6 +108,32 @@ import snaq.util.logging.LogUtil;
  * time which would delay the {@code checkIn} method. This also applies
  * to the release of the pool after its final use, which should always be
  * done using one of the {@code release...} methods.</p>
+ * <p>Pooled and checked-out items are held in non-blocking collections, and
+ * the item counts are maintained atomically, so checking out an available
+ * item and checking an item back in do not acquire any lock.
+ * New items are created without holding a lock; capacity for each is
+ * reserved beforehand (counting towards the pool size while pending), then
+ * the item is created and published to the pool. This prevents slow item
+ * creation from blocking other threads. A lock is only used for
+ * administrative operations (initialization, changing parameters, flushing,
+ * purging, and release). The pool uses explicit locks and
+ * {@link LockSupport} parking rather than object monitors, so is suitable
+ * for use by virtual threads without pinning their carrier threads.</p>
+ *
+ * <p>Threads waiting to check out an item (using {@link #checkOut(long)})
+ * are queued in order of arrival. An item being checked in is handed
+ * directly to the longest-waiting thread, which alone is woken, so threads
+ * are served fairly and without contention when the pool is saturated.</p>
+ * <p>For use on machines with many processors the pool may be striped
+ * (see {@link #setStripeCount(int)}), in which case free items are held in
+ * several sub-pools. Each thread checks in items to, and checks out items
+ * from, its own home stripe, only taking items from other stripes when its
+ * own is empty. The pool limits and statistics still apply to the pool
+ * as a whole.</p>
+ * <p>Optionally the pool may be configured for thread-affinity
+ * (see {@link #setThreadAffinity(boolean)}), in which case each thread
+ * remembers the items it most recently checked in, and attempts to reclaim
+ * one of those before resorting to the shared free list.</p>
  *
  * @param <T> the type of reusable objects held in this pool
  * @author Giles Winstanley
@@ -102,46 +144,148 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
   protected Logger log;
   /** Enumeration of selection strategies. */
   public enum Strategy { SELECT_FIFO, SELECT_LIFO, SELECT_RANDOM }
+  /** Enumeration of check-out priorities. */
+  public enum Priority { HIGH, NORMAL }
   /** Strategy for selecting next object from the pool. */
-  private Strategy selection = Strategy.SELECT_LIFO;
-  /** Random number generator instance. */
-  private Random randGen = null;
+  private volatile Strategy selection = Strategy.SELECT_LIFO;
   /** Custom logging utility for non-standard log writing. */
   private LogUtil logUtil;
   /** Name of the pool. */
   private String name;
   /** Counter for naming unnamed pools. */
   private static int unnamedCount = 0;
-  /** Collection to hold pooled objects. */
-  private List<TimeWrapper<T>> free;
-  /** Collection to hold checked out objects. */
-  private List<T> used;
+  /** Collections (stripes) to hold pooled objects (checked-in to the tail end). */
+  private volatile Deque<TimeWrapper<T>>[] stripes = newStripes(1, null);
+  /** Number of stripes to which checked-in items are assigned (may be fewer than held). */
+  private volatile int stripeCount = 1;
+  /** Counter for distributing newly initialized items between stripes. */
+  private final AtomicInteger nextStripe = new AtomicInteger();
+  /** Collection to hold checked out objects, mapped to their wrappers. */
+  private final Map<T,TimeWrapper<T>> used = new ConcurrentHashMap<>();
+  /** Maximum number of recently checked-in items remembered by each thread. */
+  private static final int AFFINITY_DEPTH = 8;
+  /** Time (milliseconds) since last use/validation within which items are not re-validated (0 = always validate). */
+  private volatile long validationInterval = 0;
+  /** Time (milliseconds) after which idle items are validated by the cleaner (0 = no background validation). */
+  private volatile long idleValidationInterval = 0;
+  /** Number of items which may be created concurrently during initialization. */
+  private volatile int initParallelism = 1;
+  /** Flag determining whether threads first try to reclaim items they recently checked in. */
+  private volatile boolean threadAffinity = false;
+  /** Recently checked-in items for each thread (used for thread-affinity). */
+  private final ThreadLocal<List<WeakReference<TimeWrapper<T>>>> affine = ThreadLocal.withInitial(ArrayList::new);
+  /** Number of pooled objects (the size of {@code free} is not a constant-time operation). */
+  private final AtomicInteger freeCount = new AtomicInteger();
+  /** Total number of objects held (available, checked-out, and pending creation). */
+  private final AtomicInteger size = new AtomicInteger();
+  /** Number of objects for which capacity is reserved pending creation. */
+  private final AtomicInteger pending = new AtomicInteger();
+  /** Lock for administrative operations (used instead of the pool's monitor, to avoid pinning virtual threads). */
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Condition signalled when an item is checked in, or capacity becomes available. */
+  private final Condition available = lock.newCondition();
+  /** Number of threads waiting on the {@code available} condition. */
+  private final AtomicInteger waiters = new AtomicInteger();
+  /** Queue of threads waiting to check out an item (oldest first). */
+  private final Deque<Waiter<T>> waitQueue = new ConcurrentLinkedDeque<>();
+  /** Queue of high-priority threads waiting to check out an item (oldest first; served before {@code waitQueue}). */
+  private final Deque<Waiter<T>> highQueue = new ConcurrentLinkedDeque<>();
+  /** Number of threads in the wait queue (the size of {@code waitQueue} is not a constant-time operation). */
+  private final AtomicInteger queued = new AtomicInteger();
+  /** Maximum number of threads observed in the wait queue. */
+  private final AtomicInteger peakQueued = new AtomicInteger();
   /** Minimum number of objects that can be pooled at any time (0=none). */
-  private int minPool;
+  private volatile int minPool;
+  /** Minimum number of free items to maintain (0 = none). */
+  private volatile int minIdle = 0;
+  /** Number of items of capacity reserved for high-priority check-outs (0 = none). */
+  private volatile int highPriorityReserve = 0;
+  /** Quotas for check-outs with tags, mapped by tag. */
+  private final Map<String,TagQuota> tagQuotas = new ConcurrentHashMap<>();
+  /** Checked out items with tags, mapped to their tag quotas. */
+  private final Map<T,TagQuota> tagged = new ConcurrentHashMap<>();
+  /** Number of items of capacity reserved for unfulfilled guaranteed tag minimums. */
+  private final AtomicInteger tagShortfall = new AtomicInteger();
   /** Maximum number of objects that can be pooled at any time (0=none). */
-  private int maxPool;
+  private volatile int maxPool;
   /** Maximum number of objects that can be checked out at any time (0=infinite). */
-  private int maxSize;
+  private volatile int maxSize;
   /** Allowed time for pooled objects to be idle before being expired (milliseconds). */
-  private long idleTimeout;
+  private volatile long idleTimeout;
+  /** Maximum lifetime of pooled objects before being retired (milliseconds; 0 = unlimited). */
+  private volatile long maxLifetime = 0;
+  /** Maximum proportion by which the lifetime of each item is randomly reduced. */
+  private static final double LIFETIME_JITTER = 0.1;
+  /** Time for which items may be checked out before being reported as possible leaks (milliseconds; 0 = disabled). */
+  private volatile long leakDetectionThreshold = 0;
+  /** Sampling rate for capturing check-out stack traces for leak reports (1 in N check-outs; 0 = never). */
+  private volatile int leakTraceSampleRate = 10;
+  /** Flag determining whether leaked items are reclaimed by the pool. */
+  private volatile boolean reclaimLeaks = false;
+  /** Time after which the cleaner next checks all free items for maximum lifetime (guarded by lock). */
+  private long nextLifetimeCheck = 0;
   /** Count of number of requests for objects. */
-  private long requests;
+  private final LongAdder requests = new LongAdder();
   /** Count of number of pool hits for objects. */
-  private long hits;
+  private final LongAdder hits = new LongAdder();
+  /** Count of number of items created. */
+  private final LongAdder creations = new LongAdder();
+  /** Total time spent by threads waiting to check out items (nanoseconds). */
+  private final LongAdder waitTime = new LongAdder();
+  /** Number of items queued for asynchronous destruction. */
+  private final AtomicInteger pendingDestroys = new AtomicInteger();
+  /** Count of number of items destroyed. */
+  private final LongAdder destroys = new LongAdder();
+  /** Total time spent destroying items (nanoseconds). */
+  private final LongAdder destroyTime = new LongAdder();
+  /** Count of number of items destroyed synchronously as the asynchronous destruction queue was full. */
+  private final LongAdder destroyFallbacks = new LongAdder();
+  /** Count of number of items reported as possible leaks. */
+  private final LongAdder leaks = new LongAdder();
+  /** Count of number of leaked items reclaimed. */
+  private final LongAdder reclaims = new LongAdder();
+  /** Count of number of check-outs rejected as the pool was overloaded. */
+  private final LongAdder rejections = new LongAdder();
+  /** Count of number of items checked in (used to estimate the check-in rate). */
+  private final LongAdder checkIns = new LongAdder();
+  /** Time at which the check-in rate was last sampled (nanoseconds; 0 = never). */
+  private final AtomicLong rateSampleTime = new AtomicLong();
+  /** Check-in count when the check-in rate was last sampled. */
+  private volatile long rateSampleCount;
+  /** Estimated recent check-in rate (items per second; negative = unknown). */
+  private volatile double checkInRate = -1;
+  /** Minimum interval between samples of the check-in rate (nanoseconds). */
+  private static final long RATE_SAMPLE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+  /** Maximum number of threads waiting to check out an item, beyond which check-outs are rejected (0 = unlimited). */
+  private volatile int maxWaiters = 0;
+  /** Maximum estimated wait to check out an item (milliseconds), beyond which check-outs are rejected (0 = unlimited). */
+  private volatile long maxExpectedWait = 0;
+  /** Histogram of time taken to check out items. */
+  private final LatencyHistogram acquireTimes = new LatencyHistogram();
+  /** Histogram of time for which items are checked out. */
+  private final LatencyHistogram holdTimes = new LatencyHistogram();
+  /** Histogram of time taken to create items. */
+  private final LatencyHistogram creationTimes = new LatencyHistogram();
+  /** Histogram of time taken to validate items. */
+  private final LatencyHistogram validationTimes = new LatencyHistogram();
+  /** Controller for automatic adjustment of {@code maxPool} (null if disabled). */
+  private volatile AutoSizer autoSizer;
   /** Flag indicating whether the pool has been released. */
   private volatile boolean released = false;
   /** Flag determining whether object destruction occurs asynchronously. */
   private boolean asyncDestroy = false;
   /** Event dispatcher thread instance to issue events in a thread-safe manner. */
-  private EventDispatcher<ObjectPoolListener<T>,ObjectPoolEvent<T>> eventDispatcher;
+  private volatile EventDispatcher<ObjectPoolListener<T>,ObjectPoolEvent<T>> eventDispatcher;
   /** Worker thread instance to clean up expired objects. */
-  private Cleaner cleaner;
+  private volatile Cleaner cleaner;
   /** Worker thread instance to initialize new objects. */
-  private InitThread initer;
+  private volatile Initializer initer;
   /** Thread to perform shutdown/release of this pool. */
   private Thread shutdownHook = null;
-  /** Shared counter for naming cleaner threads. */
-  private static int cleanerCount = 0;
+  /** Default executor for asynchronous check-out attempts (shared by all pools). */
+  private static final Executor DEFAULT_ASYNC_EXECUTOR = Housekeeper::executeAsync;
+  /** Executor for asynchronous check-out attempts (which may create items) and completions. */
+  private volatile Executor asyncExecutor = DEFAULT_ASYNC_EXECUTOR;
   /** List to hold listeners for {@link ObjectPoolEvent} events. */
   private final List<ObjectPoolListener<T>> listeners = new CopyOnWriteArrayList<>();
 
@@ -153,30 +297,15 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * @param maxSize maximum number of possible objects, or 0 for no limit
    * @param idleTimeout idle timeout for pooled objects, or 0 for no timeout
    */
-  @SuppressWarnings("unchecked")
   protected ObjectPool(String name, int minPool, int maxPool, int maxSize, long idleTimeout)
   {
-    Class<? extends List> type = getPoolClass();
-    if (type == null)
-      throw new NullPointerException("Invalid pool class type specified: null");
-    else if (!List.class.isAssignableFrom(type))
-      throw new IllegalArgumentException("Invalid pool class type specified: " + type.getName() + " (must implement java.util.List)");
-    try
-    {
-      free = (List<TimeWrapper<T>>)type.newInstance();
-      used = (List<T>)type.newInstance();
-    }
-    catch (InstantiationException | IllegalAccessException ex)
-    {
-      throw new RuntimeException("Unable to instantiate pool class type: " + type.getName());
-    }
     if (name == null || name.equals(""))
       this.name = "unknown" + unnamedCount++;
     else
       this.name = name;
     log = LoggerFactory.getLogger(getClass().getName() + "." + name);
     // Set pooling parameters.
-    // This starts cleaner thread too, which is potentially dangerous in a
+    // This starts cleaner task too, which is potentially dangerous in a
     // constructor, so cleaner must be responsible and not change state yet.
     setParameters(minPool, maxPool, maxSize, idleTimeout);
   }
@@ -197,39 +326,55 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * Registers a shutdown hook for this ConnectionPoolManager instance
    * to ensure it is released if the JVM exits.
    */
-  public synchronized void registerShutdownHook()
+  public void registerShutdownHook()
   {
-    if (shutdownHook != null)
-      return;
+    lock.lock();
     try
     {
-      shutdownHook = new Releaser(this);
-      Runtime.getRuntime().addShutdownHook(shutdownHook);
-    }
-    catch (IllegalArgumentException iax)
-    {
-      System.err.println("Shutdown-hook not registered (unsupported) for pool " + this);
+      if (shutdownHook != null)
+        return;
+      try
+      {
+        shutdownHook = new Releaser(this);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+      }
+      catch (IllegalArgumentException iax)
+      {
+        System.err.println("Shutdown-hook not registered (unsupported) for pool " + this);
+      }
+      catch (Exception ex)
+      {
+        System.err.println("Error registering shutdown-hook for pool " + this);
+        ex.printStackTrace();
+      }
     }
-    catch (Exception ex)
+    finally
     {
-      System.err.println("Error registering shutdown-hook for pool " + this);
-      ex.printStackTrace();
+      lock.unlock();
     }
   }
 
   /**
    * Unregisters a registered shutdown hook for this ConnectionPoolManager instance.
    */
-  public synchronized void removeShutdownHook()
+  public void removeShutdownHook()
   {
-    if (shutdownHook != null)
-      Runtime.getRuntime().removeShutdownHook(shutdownHook);
-    shutdownHook = null;
+    lock.lock();
+    try
+    {
+      if (shutdownHook != null)
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      shutdownHook = null;
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   /** Returns a descriptive string for this pool instance. */
   @Override
-  public synchronized String toString()
+  public String toString()
   {
     StringBuilder sb = new StringBuilder();
     sb.append(getClass().getName());
@@ -261,23 +406,64 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
 
   /**
    * Initializes the pool with the default (i.e. minpool) number of items.
-   * This spawns a new thread to create them in the background, but only if
-   * there is currently no other initialization thread running.
+   * This starts a task to create them in the background, but only if
+   * there is currently no other initialization task running (a task only
+   * maintaining {@code minIdle} free items is replaced).
    * The most common use of this method is immediately after creation of a
    * pool, to ensure it starts to populate with minPool items.
    */
-  public final synchronized void init()
+  public final void init()
+  {
+    lock.lock();
+    try
+    {
+      if (initer != null && !initer.idle)
+        return;
+      int dif = minPool - getSize();
+      if (dif > 0)
+        init(minPool);
+      else
+        replenish();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Starts a task to create new items in the background if the number of
+   * free items is below the {@code minIdle} level, so that bursts of demand
+   * may be served from spare items rather than waiting for item creation.
+   * Items are created up to the {@code minIdle} level, subject to the
+   * {@code maxSize} limit, but only if there is currently no other
+   * initialization task running.
+   */
+  private void replenish()
   {
-    if (initer != null)
+    // Check without locking first, as called on each check-out.
+    int n = minIdle;
+    if (n <= 0 || released || initer != null || freeCount.get() >= n)
       return;
-    int dif = minPool - getSize();
-    if (dif > 0)
-      init(minPool);
+    if (maxSize > 0 && size.get() >= maxSize)
+      return;
+    lock.lock();
+    try
+    {
+      if (released || initer != null)
+        return;
+      initer = new Initializer(this, n, true);
+      initer.start();
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   /**
    * Asynchronously initializes up to the specified number of items in the pool.
-   * This spawns a new thread to create them in the background.
+   * This starts a task to create them in the background.
    * Note that the number of items specified for initialization is the final
    * number of free items required in the pool, not the number to initialize.
    * If free items already exist in the pool, these are included in the count.
@@ -287,26 +473,32 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * for a pool with minPool=0.</p>
    * @param num number of objects to initialize
    */
-  public final synchronized void init(int num)
+  public final void init(int num)
   {
-    if (num == 0)
-      return;
-    // Validate the number of items requested.
-    if (num < 0)
-      throw new IllegalArgumentException("Invalid number of items specified for initialization: " + num);
-    else if (idleTimeout == 0 && maxSize == 0 && num > maxPool)
-      throw new IllegalArgumentException("Invalid number of items specified for initialization: " + num + " (max " + getMaxPool() + ")");
-    else if (maxSize > 0 && num > maxSize)
-      throw new IllegalArgumentException("Invalid number of items specified for initialization: " + num + " (max " + getMaxSize() + ")");
+    lock.lock();
+    try
+    {
+      if (num == 0)
+        return;
+      // Validate the number of items requested.
+      if (num < 0)
+        throw new IllegalArgumentException("Invalid number of items specified for initialization: " + num);
+      else if (idleTimeout == 0 && maxSize == 0 && num > maxPool)
+        throw new IllegalArgumentException("Invalid number of items specified for initialization: " + num + " (max " + getMaxPool() + ")");
+      else if (maxSize > 0 && num > maxSize)
+        throw new IllegalArgumentException("Invalid number of items specified for initialization: " + num + " (max " + getMaxSize() + ")");
 
-    if (initer != null)
+      // Existing initializer stops itself once replaced, so no need to wait
+      // for it here (which might otherwise block while it creates an item).
+      if (initer != null)
+        initer.halt();
+      initer = new Initializer(this, num, false);
+      initer.start();
+    }
+    finally
     {
-      initer.halt();
-      try { initer.join(); }
-      catch (InterruptedException ix) { log_warn(ix.getMessage(), ix); }
+      lock.unlock();
     }
-    initer = new InitThread(this, num);
-    initer.start();
   }
 
   /**
@@ -317,333 +509,1551 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * @return item from the pool, or {@code null} if nothing available
    * @throws Exception if there is an error creating a new object
    */
-  public final synchronized T checkOut() throws Exception
+  public final T checkOut() throws Exception
+  {
+    final long start = System.nanoTime();
+    return acquired(checkOut(true, Priority.NORMAL), start);
+  }
+
+  /**
+   * Records the time taken to check out an item.
+   * @param o item checked out (or null if none)
+   * @param start time at which check-out started (as {@link System#nanoTime()})
+   * @return the item checked out
+   */
+  private T acquired(T o, long start)
+  {
+    if (o != null)
+      acquireTimes.record(System.nanoTime() - start);
+    return o;
+  }
+
+  /**
+   * Checks out an item from the pool.
+   * @param create whether to create a new item if no free item is available
+   * @param priority priority of the check-out
+   * @return item from the pool, or {@code null} if nothing available
+   * @throws Exception if there is an error creating a new object
+   */
+  private T checkOut(boolean create, Priority priority) throws Exception
+  {
+    return checkOut(create, priority, null);
+  }
+
+  /**
+   * Checks out an item from the pool, optionally on behalf of an
+   * asynchronous request, the future of which is completed with the item.
+   * If the future has already been completed (e.g. timed out or cancelled),
+   * the item is returned to the pool without counting as a check-out.
+   * @param create whether to create a new item if no free item is available
+   * @param priority priority of the check-out
+   * @param future future of asynchronous request (or null if none)
+   * @return item from the pool, or {@code null} if nothing available
+   * @throws Exception if there is an error creating a new object
+   */
+  private T checkOut(boolean create, Priority priority, CompletableFuture<T> future) throws Exception
   {
     if (released)
       throw new IllegalStateException("Pool no longer valid for use");
-    int preTotal = used.size() + free.size();
 
-    TimeWrapper<T> tw = null;
+    // Get a valid object from the free list (without locking).
     T o = null;
-    if (free.size() > 0)
+    TimeWrapper<T> tw = null;
+    while (o == null && canTake(priority, 0) && (tw = claimFree()) != null)
     {
-      // Get an object from the free list.
-      switch(selection)
-      {
-        case SELECT_FIFO:
-          tw = free.remove(0);
-          break;
-        case SELECT_RANDOM:
-          tw = free.remove(randGen.nextInt(free.size()));
-          break;
-        case SELECT_LIFO:
-        default:
-          tw = free.remove(free.size() - 1);
-      }
       o = tw.getObject();
-      boolean valid = isValid(o);
-      while (!valid && free.size() > 0)
+      if (!validate(tw))
       {
+        tw.setState(TimeWrapper.REMOVED);
+        size.decrementAndGet();
         destroyObject(o);
         log_info("Removed invalid item from pool");
         firePoolEvent(ObjectPoolEvent.Type.VALIDATION_ERROR);
-        switch(selection)
-        {
-          case SELECT_FIFO:
-            tw = free.remove(0);
-            break;
-          case SELECT_RANDOM:
-            tw = free.remove(randGen.nextInt(free.size()));
-            break;
-          case SELECT_LIFO:
-          default:
-            tw = free.remove(free.size() - 1);
-        }
-        o = tw.getObject();
-        valid = isValid(o);
-      }
-      if (free.isEmpty() && !valid)
         o = null;
+      }
     }
     boolean hit = (o != null);
 
     // If no free items and can create more...create new item.
-    if (o == null)
+    int postTotal = -1;
+    if (o == null && create)
     {
-      if (maxSize > 0 && used.size() == maxSize)
+      postTotal = reserveCapacity(reserveFor(priority));
+      if (postTotal < 0)
         firePoolEvent(ObjectPoolEvent.Type.MAX_SIZE_LIMIT_ERROR);
-      else if (maxSize == 0 || used.size() < maxSize)
+      else
       {
-        o = create();
-        if (!isValid(o))
-        {
-          firePoolEvent(ObjectPoolEvent.Type.VALIDATION_ERROR);
-          throw new RuntimeException("Unable to create a valid item");
-        }
+        o = createReserved();
+        tw = wrap(o, 0);
+        tw.setState(TimeWrapper.IN_USE);
       }
     }
 
     // If an item has been obtained/created, add it to used items collection.
-    if (o != null)
+    if (o != null && !recordCheckOut(tw, hit, future))
+      o = null;
+    if (postTotal >= 0)
     {
-      used.add(o);
-      requests++;
-      if (hit)
-        hits++;
-      firePoolEvent(ObjectPoolEvent.Type.CHECKOUT);
       // Check for limit reaching so events can be fired.
       // (Events only fired on increase of pool numbers).
-      int postTotal = used.size() + free.size();
-      if (postTotal == maxPool && postTotal > preTotal)
+      if (postTotal == maxPool)
         firePoolEvent(ObjectPoolEvent.Type.MAX_POOL_LIMIT_REACHED);
-      else if (postTotal == maxPool + 1 && postTotal > preTotal)
+      else if (postTotal == maxPool + 1)
         firePoolEvent(ObjectPoolEvent.Type.MAX_POOL_LIMIT_EXCEEDED);
-      if (postTotal == maxSize && postTotal > preTotal)
+      if (postTotal == maxSize)
         firePoolEvent(ObjectPoolEvent.Type.MAX_SIZE_LIMIT_REACHED);
     }
     if (log.isDebugEnabled())
     {
-      String ratio = used.size() + "/" + (used.size() + free.size());
+      String ratio = getCheckedOut() + "/" + getSize();
       String hitRate = " (HitRate=" + (getPoolHitRate() * 100f) + "%)";
       log_debug("Checkout - " + ratio + hitRate + (o == null ? " - null returned" : ""));
     }
+    // Top-up free items in background (if required).
+    replenish();
     return o;
   }
 
   /**
-   * Checks out an item from the pool.
-   * If there is no pooled item available and the maximum number
-   * possible has not been reached, another is created.
-   * If a free item is detected as being invalid it is removed
-   * from the pool and the another is retrieved.
-   * If an item is not available and the maximum number possible
-   * has been reached, the method waits for the timeout period
-   * for one to become available by being checked in.
-   * @param timeout timeout value in milliseconds
-   * @return item from the pool, or {@code null} if nothing available within timeout period
-   * @throws Exception if there is an error creating a new object
+   * Validates a pooled item prior to check-out, unless it has been used or
+   * validated within the validation interval (see {@link #setValidationInterval(long)}).
+   * If background validation is enabled (see {@link #setIdleValidationInterval(long)})
+   * and the item has been used or validated within the period covered by
+   * the cleaner, only the cheaper {@link #isAlive(Reusable)} check is made.
+   * @param tw wrapper of item to validate
+   * @return true if the item is valid (or validation is not due), false otherwise
+   */
+  private boolean validate(TimeWrapper<T> tw)
+  {
+    long since = System.currentTimeMillis() - Math.max(tw.getAccessed(), tw.getValidated());
+    long interval = validationInterval;
+    if (interval > 0 && since < interval)
+      return true;
+    interval = idleValidationInterval;
+    Cleaner c = cleaner;
+    if (interval > 0 && c != null && since < interval + c.interval)
+      return isAlive(tw.getObject());
+    if (!validateTimed(tw.getObject()))
+      return false;
+    tw.updateValidated();
+    return true;
+  }
+
+  /**
+   * Records the check-out of an item, adding it to the used items collection.
+   * If a future is specified, it is completed with the item, unless it has
+   * already been completed (e.g. timed out or cancelled), in which case the
+   * item is instead returned to the pool without counting as a check-out.
+   * @param tw wrapper of item being checked out
+   * @param hit whether the item was a free item (rather than a new item)
+   * @param future future of asynchronous request (or null if none)
+   * @return true if the item was checked out, false if returned to the pool
    */
-  public final synchronized T checkOut(long timeout) throws Exception
+  private boolean recordCheckOut(TimeWrapper<T> tw, boolean hit, CompletableFuture<T> future)
   {
-    long time = System.currentTimeMillis();
-    T o = checkOut();
-    while (o == null && (System.currentTimeMillis() - time < timeout))
+    if (future != null && future.isDone())
     {
-      try
-      {
-        log_debug("No pooled items spare...waiting for up to " + timeout + "ms");
-        wait(timeout);  // Wait to be notified of available item, or timeout.
-        o = checkOut();  // Try again, returning null if timeout.
-      }
-      catch (InterruptedException e)
-      {
-        log_warn("Checkout interrupted", e);
-      }
+      restore(tw);
+      return false;
     }
-    return o;
+    T o = tw.getObject();
+    markCheckedOut(tw);
+    used.put(o, tw);
+    requests.increment();
+    if (hit)
+      hits.increment();
+    firePoolEvent(ObjectPoolEvent.Type.CHECKOUT);
+    if (future != null && !future.complete(o))
+    {
+      // Future completed concurrently, so revert the check-out.
+      used.remove(o);
+      requests.decrement();
+      if (hit)
+        hits.decrement();
+      tw.setCheckOut(0, null);
+      restore(tw);
+      return false;
+    }
+    return true;
   }
 
   /**
-   * Checks an object into the pool, and notifies other threads that may be
-   * waiting for one to become available.
-   * @param o object to check in
+   * Records the check-out of an item, capturing the stack trace of the
+   * check-out for a sample of check-outs if leak detection is enabled.
+   * @param tw wrapper of item being checked out
    */
-  public final void checkIn(T o)
+  private void markCheckedOut(TimeWrapper<T> tw)
   {
-    if (o == null)
+    Throwable trace = null;
+    if (leakDetectionThreshold > 0)
     {
-      log_info("Attempt to return null item");
-      return;
+      int rate = leakTraceSampleRate;
+      if (rate == 1 || (rate > 1 && ThreadLocalRandom.current().nextInt(rate) == 0))
+        trace = new Throwable("Checked out by thread: " + Thread.currentThread().getName());
     }
+    tw.setCheckOut(System.nanoTime(), trace);
+  }
 
-    synchronized(this)
+  /**
+   * Validates an item using {@link #isValid(Reusable)}, recording the time taken.
+   * @param o item to validate
+   * @return true if the item is valid, false otherwise
+   */
+  private boolean validateTimed(T o)
+  {
+    final long start = System.nanoTime();
+    try
     {
-      firePoolEvent(ObjectPoolEvent.Type.CHECKIN);
-
-      // Check if item is from this pool.
-      if (!used.remove(o))
-      {
-        log_warn("Attempt to return item not belonging to pool");
-        throw new IllegalArgumentException("Attempt to return item not belonging to pool " + name);
-      }
-
-      // Determine whether to recycle or destroy the object.
-      // This is the primary deterministic logic for the pooling strategy.
-      // Checked-in item is non-recyclable if either:
-      //     1) Max items are limited & #extant items >= maxPool
-      // or  2) Max items   unlimited & #free   items >= maxPool
-      boolean nonRecyclable = (maxSize > 0 && getSize() >= maxPool) ||
-                              (maxSize == 0 && getFreeCount() >= maxPool);
-      if (o.isDirty() || nonRecyclable)
-      {
-        destroyObject(o);
-        log_debug("Checkin* - " + used.size() + "/" + (used.size() + free.size()));
-      }
-      else
-      {
-        try
-        {
-          // Recycle object for next use.
-          o.recycle();
-          // Add object to free list.
-          free.add(new TimeWrapper<>(o, idleTimeout));
-          log_debug("Checkin  - " + used.size() + "/" + (used.size()+free.size()));
-          notifyAll();  // Notify waiting threads of available item.
-        }
-        catch (Exception e)
-        {
-          // If unable to recycle object, destroy it.
-          destroyObject(o);
-          log_info("Unable to recycle item - destroyed", e);
-        }
-      }
+      return isValid(o);
+    }
+    finally
+    {
+      validationTimes.record(System.nanoTime() - start);
     }
   }
 
   /**
-   * Releases all items from the pool, and shuts the pool down.
-   * If any items are still checked-out, this method waits until all items have
-   * been checked-in before returning.
+   * Creates a new wrapper for a newly created item, setting its maximum
+   * lifetime (if applicable).
+   * @param o newly created item
+   * @param expiry item's idle time before expiry in milliseconds (0 - eternal)
+   * @return wrapper for the item
    */
-  public final void release()
+  private TimeWrapper<T> wrap(T o, long expiry)
   {
-    release(-1);
+    TimeWrapper<T> tw = new TimeWrapper<>(o, expiry);
+    tw.setMaxLifetime(jitteredLifetime());
+    return tw;
   }
 
   /**
-   * Returns whether the pool has been released (and can no longer be used).
-   * @return true if pool has been released, false otherwise
+   * Returns a maximum lifetime for an item, randomly reduced by up to
+   * {@code LIFETIME_JITTER} of the {@code maxLifetime} value, so that items
+   * created at the same time (e.g. during initialization) are not all
+   * retired at the same time.
+   * @return lifetime in milliseconds (0 = unlimited)
    */
-  public final boolean isReleased()
+  private long jitteredLifetime()
   {
-    return released;
+    long lifetime = maxLifetime;
+    if (lifetime <= 0)
+      return 0;
+    long jitter = (long)(lifetime * LIFETIME_JITTER * ThreadLocalRandom.current().nextDouble());
+    return Math.max(lifetime - jitter, 1);
   }
 
   /**
-   * Forcibly releases all items from the pool, and shuts the pool down.
-   * If any items are still checked-out, this method forcibly destroys them
-   * and then returns.
-   * This method is being deprecated due to API change allowing forcible timeout
-   * release via the {@link #release(long)} method. The equivalent behaviour
-   * can be achieved using {@link #releaseImmediately()}.
-   * @deprecated Use {@link #releaseImmediately()} instead
+   * Reserves capacity for the creation of a new item, if the maximum number
+   * of items has not been reached. Reserved capacity counts towards the pool
+   * size, so must either be filled by calling {@link #createReserved()},
+   * or relinquished by calling {@link #releaseCapacity()}.
+   * @return total number of items including the reservation, or -1 if no capacity available
    */
-  @Deprecated
-  public final void releaseForcibly()
+  private int reserveCapacity()
   {
-    releaseImmediately();
+    return reserveCapacity(0);
   }
 
   /**
-   * Immediately releases all items from the pool, and shuts the pool down.
-   * If any items are still checked-out, this method forcibly destroys them
-   * and then returns.
+   * Reserves capacity for the creation of a new item, if doing so leaves the
+   * specified amount of capacity unreserved (see {@link #reserveCapacity()}).
+   * @param keep number of items of capacity which must remain unreserved
+   * @return total number of items including the reservation, or -1 if no capacity available
    */
-  public final void releaseImmediately()
+  private int reserveCapacity(int keep)
   {
-    release(0);
+    while (true)
+    {
+      int s = size.get();
+      if (maxSize > 0 && s >= maxSize - keep)
+        return -1;
+      if (size.compareAndSet(s, s + 1))
+      {
+        pending.incrementAndGet();
+        return s + 1;
+      }
+    }
   }
 
   /**
-   * Releases all items from the pool, and shuts the pool down.
-   * This method returns immediately; a background thread is created to perform the release.
+   * Returns the number of items of capacity which must remain available
+   * after a check-out with the specified priority.
+   * @param priority priority of the check-out
+   * @return number of items of capacity reserved for higher-priority check-outs,
+   * and for the guaranteed minimums of tag quotas
    */
-  public final void releaseAsync()
+  private int reserveFor(Priority priority)
   {
-    releaseAsync(-1);
+    if (maxSize <= 0)
+      return 0;
+    int reserve = Math.max(tagShortfall.get(), 0);
+    return (priority == Priority.HIGH) ? reserve : reserve + highPriorityReserve;
   }
 
   /**
-   * Releases all items from the pool, and shuts the pool down.
-   * This method returns immediately; a background thread is created to perform the release.
+   * Determines whether a check-out with the specified priority may take an
+   * item, leaving the capacity reserved for high-priority check-outs and
+   * guaranteed tag minimums available (as free items, or capacity to create
+   * new items). The check is made without locking, so is only approximate.
+   * @param priority priority of the check-out
+   * @param extra number of available items not included in the free count (e.g. being handed over)
+   * @return true if the check-out may take an item, false otherwise
    */
-  public final void releaseAsync(final long timeout)
+  private boolean canTake(Priority priority, int extra)
   {
-    Thread t = new Thread(new Runnable()
+    int reserve = reserveFor(priority);
+    if (reserve <= 0)
+      return true;
+    return freeCount.get() + extra + (maxSize - size.get()) > reserve;
+  }
+
+  /**
+   * Checks whether a check-out which would otherwise wait should instead be
+   * rejected, as either the maximum number of threads are already waiting,
+   * or the estimated wait (based on the recent check-in rate) is too long.
+   * The first waiting thread is always admitted by the wait estimate.
+   * @throws CheckOutRejectedException if the check-out is rejected
+   */
+  private void checkOverload() throws CheckOutRejectedException
+  {
+    int max = maxWaiters;
+    long maxWait = maxExpectedWait;
+    if (max <= 0 && maxWait <= 0)
+      return;
+    int n = queued.get();
+    String reason = null;
+    if (max > 0 && n >= max)
+      reason = n + " threads already waiting";
+    else if (maxWait > 0 && n > 0)
     {
-      @Override
-      public void run()
+      double rate = sampleCheckInRate();
+      if (rate >= 0)
       {
-        release(timeout);
+        // Estimate time to serve existing waiters, and this one.
+        double est = (rate > 0) ? (n + 1) * 1000 / rate : Double.POSITIVE_INFINITY;
+        if (est > maxWait)
+          reason = (rate > 0) ? String.format("estimated wait %.0fms", est) : "no items recently checked in";
       }
-    });
-    t.start();
+    }
+    if (reason == null)
+      return;
+    rejections.increment();
+    log_debug("Checkout rejected: " + reason);
+    firePoolEvent(ObjectPoolEvent.Type.CHECKOUT_REJECTED);
+    throw new CheckOutRejectedException("Checkout rejected (" + reason + ") by pool " + name);
   }
 
   /**
-   * Releases all items from the pool, and shuts the pool down, allowing
-   * {@code timeout} milliseconds for the connections to be gracefully returned
-   * to the pool before they are forcibly destroyed.
-   * A negative timeout is equivalent to no timeout, and the method will wait
-   * for items to be checked in before destruction. If timeout &gt;= 0 then
-   * items will be forcibly destroyed after the specified time has elapsed.
-   * @param timeout timeout after which to forcibly destroy items (-1 for no timeout)
+   * Returns the estimated recent rate at which items are checked in,
+   * sampling the check-in count if not sampled recently.
+   * Sampling is only done by threads about to wait for an item, so may
+   * cover a longer interval when the pool has not recently been busy.
+   * @return estimated check-in rate (items per second; negative if unknown)
    */
-  public final void release(long timeout)
+  private double sampleCheckInRate()
   {
-    if (released)
+    long now = System.nanoTime();
+    long t = rateSampleTime.get();
+    if (t != 0 && now - t < RATE_SAMPLE_INTERVAL)
+      return checkInRate;
+    // Only one thread takes each sample.
+    if (!rateSampleTime.compareAndSet(t, now))
+      return checkInRate;
+    long count = checkIns.sum();
+    long prev = rateSampleCount;
+    rateSampleCount = count;
+    if (t == 0)
+      return checkInRate;
+    double rate = (count - prev) * 1e9 / (now - t);
+    double last = checkInRate;
+    // Smooth successive samples, but replace an old estimate outright.
+    checkInRate = (last < 0 || now - t > 10 * RATE_SAMPLE_INTERVAL) ? rate : (rate + last) / 2;
+    return checkInRate;
+  }
+
+  /**
+   * Releases the slot in the tag quota (if any) used by a checked out item.
+   * @param o item no longer checked out
+   */
+  private void releaseTag(T o)
+  {
+    if (tagged.isEmpty())
       return;
-    long startTime = System.currentTimeMillis();
-    boolean hasTimeout = (timeout >= 0);
-    // Set released flag to prevent check-out of new items.
-    released = true;
-    // Allow sub-class to clean up.
-    preRelease();
+    TagQuota q = tagged.remove(o);
+    if (q != null)
+      q.release();
+  }
+
+  /**
+   * Relinquishes previously reserved capacity for which no item was created,
+   * notifying any threads waiting for capacity to become available.
+   */
+  private void releaseCapacity()
+  {
+    pending.decrementAndGet();
+    size.decrementAndGet();
+    notifyWaiters();
+  }
+
+  /**
+   * Creates a new valid item to fill previously reserved capacity.
+   * This method must be called without holding the pool's lock.
+   * If an exception is thrown, the reserved capacity is relinquished.
+   * @return newly created item
+   * @throws Exception if there is an error creating a new object
+   */
+  private T createReserved() throws Exception
+  {
+    T o = null;
+    try
+    {
+      final long start = System.nanoTime();
+      o = create();
+      creationTimes.record(System.nanoTime() - start);
+    }
+    catch (Exception | Error ex)
+    {
+      releaseCapacity();
+      throw ex;
+    }
+    if (!validateTimed(o))
+    {
+      releaseCapacity();
+      firePoolEvent(ObjectPoolEvent.Type.VALIDATION_ERROR);
+      destroy(o);
+      throw new RuntimeException("Unable to create a valid item");
+    }
+    pending.decrementAndGet();
+    creations.increment();
+    return o;
+  }
 
-    synchronized(this)
+  /**
+   * Notifies waiting threads (if any) that an item or capacity may have
+   * become available. The longest-waiting thread in the wait queue is woken
+   * to try again, as are any threads waiting on the {@code available} condition.
+   */
+  private void notifyWaiters()
+  {
+    signalWaiter();
+    if (waiters.get() > 0)
     {
-      // Destroy init thread.
-      if (initer != null)
+      lock.lock();
+      try
       {
-        initer.halt();
-        initer = null;
+        available.signalAll();
       }
-      // Destroy cleaner thread.
-      if (cleaner != null)
+      finally
       {
-        cleaner.halt();
-        cleaner = null;
+        lock.unlock();
       }
+    }
+  }
 
-      int releasedCount = 0, failedCount = 0;
-      // Destroy all currently free items.
-      for (TimeWrapper<T> tw : free)
-      {
-        T o = tw.getObject();
-        try
-        {
-          destroy(o);
-          releasedCount++;
-        }
-        catch (Exception ex)
+  /**
+   * Claims a free item for use, trying first any items recently checked in
+   * by the current thread (if thread-affinity is enabled), then items from
+   * the shared free list according to the selection strategy.
+   * @return wrapper of the item claimed, or null if none available
+   */
+  private TimeWrapper<T> claimFree()
+  {
+    TimeWrapper<T> tw = null;
+    if (threadAffinity)
+    {
+      // Reclaim most recently returned item first; any that have
+      // been taken by other threads in the meantime are forgotten.
+      List<WeakReference<TimeWrapper<T>>> list = affine.get();
+      for (int i = list.size() - 1; i >= 0; i--)
+      {
+        tw = list.remove(i).get();
+        if (tw != null && tw.claim())
+        {
+          freeCount.decrementAndGet();
+          return tw;
+        }
+      }
+    }
+    // Items claimed by thread-affinity remain in the free list until polled,
+    // so any found to be no longer free are simply discarded from it.
+    while ((tw = pollFree()) != null)
+    {
+      tw.clearEnqueued();
+      if (tw.claim())
+      {
+        freeCount.decrementAndGet();
+        return tw;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes an item from the free list according to the selection strategy.
+   * If the pool is striped, the home stripe of the current thread is tried
+   * first, followed by the other stripes in turn.
+   * @return item removed from the free list, or null if none available
+   */
+  private TimeWrapper<T> pollFree()
+  {
+    Deque<TimeWrapper<T>>[] s = stripes;
+    if (s.length == 1)
+      return pollStripe(s[0], freeCount.get());
+    int start = (selection == Strategy.SELECT_RANDOM)
+            ? ThreadLocalRandom.current().nextInt(s.length)
+            : homeStripeIndex(stripeCount);
+    int estimate = freeCount.get() / s.length;
+    for (int i = 0; i < s.length; i++)
+    {
+      TimeWrapper<T> tw = pollStripe(s[(start + i) % s.length], estimate);
+      if (tw != null)
+        return tw;
+    }
+    return null;
+  }
+
+  /**
+   * Removes an item from a stripe of the free list according to the selection strategy.
+   * @param stripe stripe from which to remove an item
+   * @param estimate estimate of the number of items in the stripe
+   * @return item removed from the stripe, or null if none available
+   */
+  private TimeWrapper<T> pollStripe(Deque<TimeWrapper<T>> stripe, int estimate)
+  {
+    switch(selection)
+    {
+      case SELECT_FIFO:
+        return stripe.pollFirst();
+      case SELECT_RANDOM:
+        return pollFreeRandom(stripe, estimate);
+      case SELECT_LIFO:
+      default:
+        return stripe.pollLast();
+    }
+  }
+
+  /**
+   * Removes a randomly selected item from a stripe of the free list.
+   * Random selection is not a constant-time operation for a linked structure,
+   * so falls back to LIFO selection if the chosen item is taken concurrently.
+   * @param stripe stripe from which to remove an item
+   * @param estimate estimate of the number of items in the stripe
+   */
+  private TimeWrapper<T> pollFreeRandom(Deque<TimeWrapper<T>> stripe, int estimate)
+  {
+    if (estimate > 1)
+    {
+      int skip = ThreadLocalRandom.current().nextInt(estimate);
+      for (TimeWrapper<T> tw : stripe)
+      {
+        if (skip-- == 0)
+        {
+          if (stripe.removeFirstOccurrence(tw))
+            return tw;
+          break;
+        }
+      }
+    }
+    return stripe.pollLast();
+  }
+
+  /**
+   * Returns the index of the home stripe of the current thread.
+   * @param n number of stripes in use
+   * @return index of the home stripe
+   */
+  private static int homeStripeIndex(int n)
+  {
+    if (n == 1)
+      return 0;
+    long id = Thread.currentThread().getId();
+    int h = (int)(id ^ (id >>> 32)) * 0x9E3779B9;
+    return (h >>> 1) % n;
+  }
+
+  /**
+   * Returns the home stripe of the current thread, to which it checks in items.
+   * @return stripe of the free list
+   */
+  private Deque<TimeWrapper<T>> homeStripe()
+  {
+    Deque<TimeWrapper<T>>[] s = stripes;
+    return s[homeStripeIndex(Math.min(stripeCount, s.length))];
+  }
+
+  /**
+   * Creates an array of stripes, reusing existing stripes where possible.
+   * @param n number of stripes
+   * @param existing existing stripes (or null if none)
+   * @return array of stripes
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <E> Deque<TimeWrapper<E>>[] newStripes(int n, Deque<TimeWrapper<E>>[] existing)
+  {
+    Deque<TimeWrapper<E>>[] s = (Deque<TimeWrapper<E>>[])new Deque[n];
+    int i = 0;
+    if (existing != null)
+    {
+      for (; i < existing.length && i < n; i++)
+        s[i] = existing[i];
+    }
+    for (; i < n; i++)
+      s[i] = new ConcurrentLinkedDeque<>();
+    return s;
+  }
+
+  /**
+   * Checks out an item from the pool.
+   * If there is no pooled item available and the maximum number
+   * possible has not been reached, another is created.
+   * If a free item is detected as being invalid it is removed
+   * from the pool and the another is retrieved.
+   * If an item is not available and the maximum number possible
+   * has been reached, the method waits for the timeout period
+   * for one to become available by being checked in.
+   * The timeout is measured using a monotonic clock ({@link System#nanoTime()}),
+   * so is unaffected by changes to the system time.
+   * If the calling thread is interrupted while waiting, it stops waiting
+   * and an {@code InterruptedException} is thrown (clearing the thread's
+   * interrupted status).
+   * If the pool is overloaded (see {@link #setMaxWaiters(int)} and
+   * {@link #setMaxExpectedWait(long)}), the method fails immediately
+   * instead of waiting, by throwing a {@link CheckOutRejectedException}.
+   * @param timeout timeout value in milliseconds
+   * @return item from the pool, or {@code null} if nothing available within timeout period
+   * @throws InterruptedException if the thread is interrupted while waiting
+   * @throws CheckOutRejectedException if the pool is overloaded
+   * @throws Exception if there is an error creating a new object
+   */
+  public final T checkOut(long timeout) throws Exception
+  {
+    return checkOut(timeout, Priority.NORMAL);
+  }
+
+  /**
+   * Checks out an item from the pool with the specified priority.
+   * This method behaves as {@link #checkOut(long)}, except that waiting
+   * high-priority requests are handed checked-in items before any waiting
+   * normal-priority requests, and high-priority requests may use the
+   * capacity reserved for them (see {@link #setHighPriorityReserve(int)}).
+   * @param timeout timeout value in milliseconds
+   * @param priority priority of the check-out
+   * @return item from the pool, or {@code null} if nothing available within timeout period
+   * @throws InterruptedException if the thread is interrupted while waiting
+   * @throws Exception if there is an error creating a new object
+   */
+  public final T checkOut(long timeout, Priority priority) throws Exception
+  {
+    if (priority == null)
+      throw new IllegalArgumentException("Invalid priority specified: " + priority);
+    final long start = System.nanoTime();
+    final long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+    T o = checkOut(true, priority);
+    if (o != null || timeout <= 0)
+      return acquired(o, start);
+    checkOverload();
+
+    // Join the wait queue, then try again before waiting, so that an item
+    // checked in before joining the queue is not missed.
+    Waiter<T> w = new Waiter<>(Thread.currentThread(), null, deadline, priority);
+    enqueueWaiter(w, false);
+    try
+    {
+      while (o == null)
+      {
+        o = checkOut(true, priority);
+        if (o != null)
+          break;
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0)
+          break;
+        log_debug("No pooled items spare...waiting for up to " + TimeUnit.NANOSECONDS.toMillis(remaining) + "ms");
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.interrupted())
+        {
+          long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+          log_debug("Checkout interrupted after waiting " + waited + "ms");
+          throw new InterruptedException("Interrupted after waiting " + waited + "ms for item from pool " + name);
+        }
+        if (w.isSatisfied())
+        {
+          // Item handed over by check-in; if it proves invalid,
+          // rejoin the queue and try again.
+          o = acceptHandOff(w.take());
+          if (o == null)
+            enqueueWaiter(w, true);
+        }
+        else if (w.rearm())
+        {
+          // Woken to try again; rejoin the head of the queue to retain position.
+          enqueueWaiter(w, true);
+        }
+      }
+    }
+    catch (Exception | Error ex)
+    {
+      TimeWrapper<T> tw = leaveQueue(w);
+      if (tw != null)
+        returnHandOff(tw);
+      throw ex;
+    }
+    finally
+    {
+      waitTime.add(System.nanoTime() - start);
+    }
+    TimeWrapper<T> tw = leaveQueue(w);
+    if (tw != null)
+    {
+      if (o == null)
+        o = acceptHandOff(tw);
+      else
+        returnHandOff(tw);
+    }
+    if (o == null && log.isDebugEnabled())
+      log_debug("Checkout timed out after waiting " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    return acquired(o, start);
+  }
+
+  /**
+   * Checks out an item from the pool on behalf of the specified tag
+   * (for example identifying a tenant or subsystem).
+   * This method behaves as {@link #checkOut(long)}, except that the item
+   * is counted against the quota for the tag (see {@link #setTagQuota(String, int, int)}).
+   * @param timeout timeout value in milliseconds
+   * @param tag tag of the check-out (null for none)
+   * @return item from the pool, or {@code null} if nothing available within timeout period
+   * @throws InterruptedException if the thread is interrupted while waiting
+   * @throws Exception if there is an error creating a new object
+   */
+  public final T checkOut(long timeout, String tag) throws Exception
+  {
+    return checkOut(timeout, Priority.NORMAL, tag);
+  }
+
+  /**
+   * Checks out an item from the pool with the specified priority, on behalf
+   * of the specified tag (for example identifying a tenant or subsystem).
+   * This method behaves as {@link #checkOut(long, Priority)}, except that
+   * the item is counted against the quota for the tag.
+   * If the maximum number of items for the tag are already checked out, the
+   * method first waits for one of them to be checked in, so a tag exceeding
+   * its quota waits without affecting check-outs with other tags.
+   * Items checked out with a tag may also use the capacity reserved for the
+   * tag's guaranteed minimum. The timeout applies to the whole check-out.
+   * @param timeout timeout value in milliseconds
+   * @param priority priority of the check-out
+   * @param tag tag of the check-out (null for none)
+   * @return item from the pool, or {@code null} if nothing available within timeout period
+   * @throws InterruptedException if the thread is interrupted while waiting
+   * @throws Exception if there is an error creating a new object
+   * @see #setTagQuota(String, int, int)
+   */
+  public final T checkOut(long timeout, Priority priority, String tag) throws Exception
+  {
+    if (tag == null)
+      return checkOut(timeout, priority);
+    if (priority == null)
+      throw new IllegalArgumentException("Invalid priority specified: " + priority);
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    TagQuota q = tagQuotas.computeIfAbsent(tag, t -> new TagQuota(t, tagShortfall));
+    if (!q.acquire(deadline))
+    {
+      log_debug("Checkout timed out waiting for quota of tag " + tag);
+      return null;
+    }
+    T o = null;
+    try
+    {
+      long remaining = Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 0);
+      o = checkOut(remaining, priority);
+      if (o != null)
+      {
+        tagged.put(o, q);
+        q.checkedOut();
+      }
+    }
+    finally
+    {
+      if (o == null)
+        q.release();
+    }
+    return o;
+  }
+
+  /**
+   * Checks out a number of items from the pool together.
+   * Either all the requested items are checked out, or none are.
+   * Free items are claimed, and capacity reserved for any new items required,
+   * in a single step while holding the pool's lock. If not enough items or
+   * capacity are available, any claimed items are returned to the pool, and
+   * the method waits for items to be checked in (or capacity to become
+   * available) before trying again, for up to the timeout period.
+   * As no items are held while waiting, concurrent batch requests cannot
+   * deadlock by each holding some of the items required by the others.
+   * Any new items required are created without holding the lock, and if
+   * creation fails all items obtained are returned to the pool.
+   * <p>Note that items checked in are passed to threads waiting in
+   * {@link #checkOut(long)} in preference to waiting batch requests.</p>
+   * @param n number of items to check out
+   * @param timeout timeout value in milliseconds
+   * @return list of {@code n} items from the pool, or {@code null} if not available within timeout period
+   * @throws InterruptedException if the thread is interrupted while waiting
+   * @throws Exception if there is an error creating a new object
+   */
+  public final List<T> checkOut(int n, long timeout) throws Exception
+  {
+    if (n < 1)
+      throw new IllegalArgumentException("Invalid number of items specified: " + n);
+    if (timeout < 0)
+      throw new IllegalArgumentException("Invalid timeout value specified: " + timeout);
+    if (maxSize > 0 && n > maxSize)
+      throw new IllegalArgumentException("Number of items requested (" + n + ") exceeds maximum size of pool (" + maxSize + ")");
+    final long start = System.nanoTime();
+    final long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+    List<TimeWrapper<T>> items = new ArrayList<>(n);
+    int reserved = 0;
+    int claimed = 0;
+    while (true)
+    {
+      lock.lock();
+      try
+      {
+        // Registering as a waiter before trying ensures that notification
+        // of items checked in after the attempt is not missed.
+        waiters.incrementAndGet();
+        try
+        {
+          while (true)
+          {
+            if (released)
+              throw new IllegalStateException("Pool no longer valid for use");
+            // Claim free items, then reserve capacity for the remainder.
+            TimeWrapper<T> tw = null;
+            while (items.size() < n && canTake(Priority.NORMAL, 0) && (tw = claimFree()) != null)
+              items.add(tw);
+            while (items.size() + reserved < n && reserveCapacity(reserveFor(Priority.NORMAL)) >= 0)
+              reserved++;
+            if (items.size() + reserved == n)
+              break;
+            relinquish(items, reserved);
+            reserved = 0;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+            {
+              log_debug("Batch checkout of " + n + " items timed out after waiting " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+              return null;
+            }
+            available.awaitNanos(remaining);
+          }
+        }
+        finally
+        {
+          waiters.decrementAndGet();
+        }
+      }
+      finally
+      {
+        lock.unlock();
+      }
+
+      // Validate claimed items (without holding lock, as may be slow),
+      // replacing any invalid items with new ones.
+      boolean shortfall = false;
+      for (Iterator<TimeWrapper<T>> iter = items.iterator(); iter.hasNext();)
+      {
+        TimeWrapper<T> tw = iter.next();
+        if (validate(tw))
+          continue;
+        iter.remove();
+        tw.setState(TimeWrapper.REMOVED);
+        size.decrementAndGet();
+        destroyObject(tw.getObject());
+        log_info("Removed invalid item from pool");
+        firePoolEvent(ObjectPoolEvent.Type.VALIDATION_ERROR);
+        if (reserveCapacity(reserveFor(Priority.NORMAL)) >= 0)
+          reserved++;
+        else
+          shortfall = true;
+      }
+      if (shortfall)
+      {
+        // Capacity taken by another thread; start again.
+        relinquish(items, reserved);
+        reserved = 0;
+        continue;
+      }
+      claimed = items.size();
+
+      // Create new items to fill reserved capacity.
+      try
+      {
+        while (reserved > 0)
         {
-          failedCount++;
-          log_warn("Unable to release item in pool", ex);
+          T o = createReserved();
+          reserved--;
+          TimeWrapper<T> tw = wrap(o, 0);
+          tw.setState(TimeWrapper.IN_USE);
+          items.add(tw);
+        }
+      }
+      catch (Exception | Error ex)
+      {
+        // Capacity of the failed item has already been relinquished.
+        relinquish(items, reserved - 1);
+        throw ex;
+      }
+      break;
+    }
+
+    // Add all items to used items collection, then fire events.
+    List<T> result = new ArrayList<>(n);
+    for (TimeWrapper<T> tw : items)
+    {
+      T o = tw.getObject();
+      markCheckedOut(tw);
+      used.put(o, tw);
+      result.add(o);
+    }
+    requests.add(n);
+    hits.add(claimed);
+    final long elapsed = System.nanoTime() - start;
+    for (int i = 0; i < n; i++)
+    {
+      acquireTimes.record(elapsed);
+      firePoolEvent(ObjectPoolEvent.Type.CHECKOUT);
+    }
+    log_debug("Batch checkout of " + n + " items - " + getCheckedOut() + "/" + getSize());
+    // Top-up free items in background (if required).
+    replenish();
+    return result;
+  }
+
+  /**
+   * Returns items obtained by an unsuccessful batch check-out to the pool,
+   * and relinquishes any capacity reserved.
+   * @param items wrappers of items obtained (cleared by this method)
+   * @param reserved number of items for which capacity is reserved
+   */
+  private void relinquish(List<TimeWrapper<T>> items, int reserved)
+  {
+    for (TimeWrapper<T> tw : items)
+      returnHandOff(tw);
+    items.clear();
+    for (int i = 0; i < reserved; i++)
+      releaseCapacity();
+  }
+
+  /**
+   * Asynchronously checks out an item from the pool.
+   * This method behaves as {@link #checkOut(long)}, but never blocks the
+   * calling thread; instead the returned future is completed with an item
+   * when one is checked in or created, or with {@code null} if nothing is
+   * available within the timeout period. Waiting requests hold no thread,
+   * and join the same queue as threads waiting in {@link #checkOut(long)},
+   * so are served in order of arrival.
+   * <p>If no free item is immediately available, any new item is created
+   * using a background thread of the pool's asynchronous executor (see
+   * {@link #setAsyncExecutor(Executor)}), which also completes the future
+   * when an item is checked in, so the thread which checks in an item never
+   * performs the validation of the item, or any dependent actions registered
+   * using the non-async methods of the future. If the timeout expires, the
+   * future is completed directly by a housekeeping thread, so that timeouts
+   * are not delayed while the executor's threads are busy (e.g. creating
+   * items for a slow database). Such dependent actions should therefore not
+   * block for long. Cancelling the returned future withdraws the request
+   * from the queue.</p>
+   * @param timeout timeout value in milliseconds
+   * @return future to be completed with an item from the pool, or {@code null} if nothing available within timeout period
+   */
+  public final CompletableFuture<T> checkOutAsync(long timeout)
+  {
+    if (timeout < 0)
+      throw new IllegalArgumentException("Invalid timeout value specified: " + timeout);
+    final long start = System.nanoTime();
+    CompletableFuture<T> future = new CompletableFuture<>();
+    T o = null;
+    try
+    {
+      o = checkOut(false, Priority.NORMAL);
+    }
+    catch (Exception | Error ex)
+    {
+      future.completeExceptionally(ex);
+      return future;
+    }
+    if (o != null)
+    {
+      future.complete(acquired(o, start));
+      return future;
+    }
+
+    final long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+    final Waiter<T> w = new Waiter<>(null, future, deadline, Priority.NORMAL);
+    final ScheduledFuture<?> timer = (timeout > 0) ? Housekeeper.schedule(() -> future.complete(null), timeout, TimeUnit.MILLISECONDS) : null;
+    future.whenComplete((item, ex) ->
+    {
+      // Withdraw from wait queue once completed (e.g. cancelled/timed out).
+      if (timer != null)
+        timer.cancel(false);
+      if (w.cancel())
+      {
+        if (queueFor(w).removeFirstOccurrence(w))
+          queued.decrementAndGet();
+      }
+      else if (w.rearm())
+      {
+        // Pass on wake-up signal not yet acted upon.
+        signalWaiter();
+      }
+      acquired(item, start);
+    });
+    asyncExecutor.execute(() -> serviceAsync(w));
+    return future;
+  }
+
+  /**
+   * Attempts to check out an item on behalf of an asynchronous waiter,
+   * completing its future if successful, or otherwise returning it to the
+   * head of the wait queue (unless timed out).
+   * The waiter must not be in the wait queue when this method is called.
+   * @param w asynchronous waiter
+   */
+  private void serviceAsync(Waiter<T> w)
+  {
+    final boolean signalled = w.rearm();
+    while (!w.future.isDone())
+    {
+      T o = null;
+      try
+      {
+        o = checkOut(true, w.priority, w.future);
+      }
+      catch (Exception | Error ex)
+      {
+        w.future.completeExceptionally(ex);
+        return;
+      }
+      // Item (if any) returned to pool if future completed concurrently.
+      if (o != null || w.future.isDone())
+        return;
+      if (System.nanoTime() - w.deadline >= 0)
+      {
+        w.future.complete(null);
+        return;
+      }
+      // Join the wait queue, then check for items checked in before joining.
+      enqueueWaiter(w, true);
+      try
+      {
+        // Any item concurrently handed over is returned by the hand-over.
+        checkOut(false, w.priority, w.future);
+      }
+      catch (Exception | Error ex)
+      {
+        w.future.completeExceptionally(ex);
+      }
+      return;
+    }
+    // Pass on wake-up signal if no longer waiting (e.g. cancelled/timed out).
+    if (signalled)
+      signalWaiter();
+  }
+
+  /**
+   * Completes the check-out of an item handed over to an asynchronous waiter.
+   * @param w asynchronous waiter which has been handed an item
+   */
+  private void completeAsync(Waiter<T> w)
+  {
+    if (acceptHandOff(w.take(), w.future) == null)
+      asyncExecutor.execute(() -> serviceAsync(w));
+  }
+
+  /**
+   * Adds a waiting thread to the wait queue.
+   * @param w waiter to add
+   * @param head whether to add to the head of the queue (otherwise the tail)
+   */
+  private void enqueueWaiter(Waiter<T> w, boolean head)
+  {
+    if (head)
+      queueFor(w).addFirst(w);
+    else
+      queueFor(w).addLast(w);
+    int n = queued.incrementAndGet();
+    int peak;
+    while (n > (peak = peakQueued.get()) && !peakQueued.compareAndSet(peak, n));
+  }
+
+  /**
+   * Returns the wait queue for the specified waiter, according to its priority.
+   * @param w waiter
+   * @return wait queue for the waiter
+   */
+  private Deque<Waiter<T>> queueFor(Waiter<T> w)
+  {
+    return (w.priority == Priority.HIGH) ? highQueue : waitQueue;
+  }
+
+  /**
+   * Removes the longest-waiting waiter from the wait queues, taking
+   * high-priority waiters first.
+   * @return waiter removed, or null if none waiting
+   */
+  private Waiter<T> pollWaiter()
+  {
+    Waiter<T> w = highQueue.pollFirst();
+    return (w != null) ? w : waitQueue.pollFirst();
+  }
+
+  /**
+   * Removes a waiting thread from the wait queue when it no longer requires
+   * an item. If an item has already been handed over to the waiter it is
+   * returned, and if the waiter was woken to try again, the next waiter is
+   * woken instead.
+   * @param w waiter to remove
+   * @return wrapper of item handed over to the waiter, or null if none
+   */
+  private TimeWrapper<T> leaveQueue(Waiter<T> w)
+  {
+    if (w.cancel())
+    {
+      if (queueFor(w).removeFirstOccurrence(w))
+        queued.decrementAndGet();
+      return null;
+    }
+    if (w.isSatisfied())
+      return w.take();
+    // Pass on unused wake-up signal.
+    if (w.rearm())
+      signalWaiter();
+    return null;
+  }
+
+  /**
+   * Hands over a checked-in item to the longest-waiting thread (if any),
+   * serving high-priority waiters first. Normal-priority waiters are only
+   * handed an item if the capacity reserved for high-priority check-outs
+   * remains available, and no waiters are handed an item if the capacity
+   * reserved for guaranteed tag minimums would not remain available.
+   * @param tw wrapper of item to hand over
+   * @return true if the item was handed over, false otherwise
+   */
+  private boolean handOff(TimeWrapper<T> tw)
+  {
+    Waiter<T> w;
+    while ((canTake(Priority.HIGH, 1) && (w = highQueue.pollFirst()) != null) || (canTake(Priority.NORMAL, 1) && (w = waitQueue.pollFirst()) != null))
+    {
+      queued.decrementAndGet();
+      if (w.offer(tw))
+      {
+        // Complete asynchronous waiters using the executor, so the thread
+        // checking in the item does not perform validation or dependent actions.
+        if (w.future != null)
+        {
+          final Waiter<T> aw = w;
+          asyncExecutor.execute(() -> completeAsync(aw));
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Wakes the longest-waiting thread (if any) to try again to check out an
+   * item, waking high-priority waiters first.
+   */
+  private void signalWaiter()
+  {
+    Waiter<T> w;
+    while ((w = pollWaiter()) != null)
+    {
+      queued.decrementAndGet();
+      if (w.signal())
+      {
+        if (w.future != null)
+        {
+          final Waiter<T> aw = w;
+          asyncExecutor.execute(() -> serviceAsync(aw));
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Completes the check-out of an item handed over by check-in.
+   * If the item is no longer valid it is destroyed.
+   * @param tw wrapper of item handed over
+   * @return item checked out, or null if the item was invalid
+   */
+  private T acceptHandOff(TimeWrapper<T> tw)
+  {
+    return acceptHandOff(tw, null);
+  }
+
+  /**
+   * Completes the check-out of an item handed over by check-in, optionally
+   * on behalf of an asynchronous request (see
+   * {@link #recordCheckOut(TimeWrapper, boolean, CompletableFuture)}).
+   * If the item is no longer valid it is destroyed.
+   * @param tw wrapper of item handed over
+   * @param future future of asynchronous request (or null if none)
+   * @return item checked out, or null if the item was invalid (or returned to the pool)
+   */
+  private T acceptHandOff(TimeWrapper<T> tw, CompletableFuture<T> future)
+  {
+    T o = tw.getObject();
+    if (!validate(tw))
+    {
+      tw.setState(TimeWrapper.REMOVED);
+      size.decrementAndGet();
+      destroyObject(o);
+      log_info("Removed invalid item from pool");
+      firePoolEvent(ObjectPoolEvent.Type.VALIDATION_ERROR);
+      return null;
+    }
+    if (!recordCheckOut(tw, true, future))
+      return null;
+    log_debug("Checkout - " + getCheckedOut() + "/" + getSize() + " (handed over)");
+    return o;
+  }
+
+  /**
+   * Returns an item handed over by check-in (or claimed for a batch
+   * check-out) which is no longer required, without counting as a check-in.
+   * @param tw wrapper of item handed over
+   */
+  private void returnHandOff(TimeWrapper<T> tw)
+  {
+    tw.setCheckOut(0, null);
+    restore(tw);
+  }
+
+  /**
+   * Checks an object into the pool, and notifies other threads that may be
+   * waiting for one to become available.
+   * @param o object to check in
+   */
+  public final void checkIn(T o)
+  {
+    if (o == null)
+    {
+      log_info("Attempt to return null item");
+      return;
+    }
+
+    firePoolEvent(ObjectPoolEvent.Type.CHECKIN);
+
+    // Check if item is from this pool.
+    TimeWrapper<T> tw = used.remove(o);
+    if (tw == null)
+    {
+      log_warn("Attempt to return item not belonging to pool");
+      throw new IllegalArgumentException("Attempt to return item not belonging to pool " + name);
+    }
+    releaseTag(o);
+    checkIns.increment();
+    long t = tw.getCheckOutTime();
+    if (t != 0)
+      holdTimes.record(System.nanoTime() - t);
+    restore(tw);
+  }
+
+  /**
+   * Returns an item to the pool (or destroys it), handing it over to
+   * the longest-waiting thread if possible.
+   * The item must not be in the used items collection.
+   * @param tw wrapper of item to return
+   */
+  private void restore(TimeWrapper<T> tw)
+  {
+    final T o = tw.getObject();
+    // Determine whether to recycle or destroy the object.
+    // This is the primary deterministic logic for the pooling strategy.
+    // Checked-in item is non-recyclable if either:
+    //     1) Max items are limited & #extant items >= maxPool
+    // or  2) Max items   unlimited & #free   items >= maxPool
+    // The relevant counter is updated atomically with the decision, so
+    // concurrent check-ins cannot together overshoot the limit.
+    // Items which have exceeded their maximum lifetime are also destroyed.
+    final boolean limited = (maxSize > 0);
+    boolean recycle = false;
+    if (o.isDirty() || tw.isLifetimeExpired())
+      size.decrementAndGet();
+    else
+      recycle = reserveFreeSlot(limited);
+    if (!recycle)
+    {
+      tw.setState(TimeWrapper.REMOVED);
+      destroyObject(o);
+      log_debug("Checkin* - " + getCheckedOut() + "/" + getSize());
+      // Notify waiting threads of available capacity.
+      notifyWaiters();
+    }
+    else
+    {
+      try
+      {
+        // Recycle object for next use.
+        o.recycle();
+        tw.setLiveTime(idleTimeout);
+        tw.updateAccessed();
+        if (handOff(tw))
+        {
+          // Item passed directly to longest-waiting thread.
+          if (!limited)
+            freeCount.decrementAndGet();
+          log_debug("Checkin  - " + getCheckedOut() + "/" + getSize() + " (handed over)");
+          return;
+        }
+        // Add object to free list (unless still held there from an
+        // earlier check-in, having since been reclaimed by thread-affinity).
+        if (limited)
+          freeCount.incrementAndGet();
+        tw.setState(TimeWrapper.FREE);
+        if (tw.markEnqueued())
+          homeStripe().addLast(tw);
+        if (threadAffinity)
+        {
+          List<WeakReference<TimeWrapper<T>>> list = affine.get();
+          if (list.size() >= AFFINITY_DEPTH)
+            list.remove(0);
+          list.add(new WeakReference<>(tw));
+        }
+        log_debug("Checkin  - " + getCheckedOut() + "/" + getSize());
+        // Notify waiting threads of available item
+        // (which may have joined the wait queue since the hand-over attempt).
+        notifyWaiters();
+      }
+      catch (Exception e)
+      {
+        // If unable to recycle object, destroy it.
+        tw.setState(TimeWrapper.REMOVED);
+        if (!limited)
+          freeCount.decrementAndGet();
+        size.decrementAndGet();
+        destroyObject(o);
+        log_info("Unable to recycle item - destroyed", e);
+        notifyWaiters();
+      }
+    }
+  }
+
+  /**
+   * Determines whether a checked-in item may be returned to the free list,
+   * updating the item counters to reflect the decision.
+   * If the item is to be destroyed, the total item count is decremented.
+   * If the item is recyclable and the number of items is unlimited
+   * ({@code maxSize=0}), the free count is incremented to reserve the slot.
+   * @param limited whether the maximum number of items is limited ({@code maxSize>0})
+   * @return true if the item should be recycled, false if it should be destroyed
+   */
+  private boolean reserveFreeSlot(boolean limited)
+  {
+    if (limited)
+    {
+      // Item still counted in size, so destroy if #extant items > maxPool.
+      while (true)
+      {
+        int s = size.get();
+        if (s <= maxPool)
+          return true;
+        if (size.compareAndSet(s, s - 1))
+          return false;
+      }
+    }
+    while (true)
+    {
+      int f = freeCount.get();
+      if (f >= maxPool)
+      {
+        size.decrementAndGet();
+        return false;
+      }
+      if (freeCount.compareAndSet(f, f + 1))
+        return true;
+    }
+  }
+
+  /**
+   * Releases all items from the pool, and shuts the pool down.
+   * If any items are still checked-out, this method waits until all items have
+   * been checked-in before returning.
+   */
+  public final void release()
+  {
+    release(-1);
+  }
+
+  /**
+   * Returns whether the pool has been released (and can no longer be used).
+   * @return true if pool has been released, false otherwise
+   */
+  public final boolean isReleased()
+  {
+    return released;
+  }
+
+  /**
+   * Forcibly releases all items from the pool, and shuts the pool down.
+   * If any items are still checked-out, this method forcibly destroys them
+   * and then returns.
+   * This method is being deprecated due to API change allowing forcible timeout
+   * release via the {@link #release(long)} method. The equivalent behaviour
+   * can be achieved using {@link #releaseImmediately()}.
+   * @deprecated Use {@link #releaseImmediately()} instead
+   */
+  @Deprecated
+  public final void releaseForcibly()
+  {
+    releaseImmediately();
+  }
+
+  /**
+   * Immediately releases all items from the pool, and shuts the pool down.
+   * If any items are still checked-out, this method forcibly destroys them
+   * and then returns.
+   */
+  public final void releaseImmediately()
+  {
+    release(0);
+  }
+
+  /**
+   * Releases all items from the pool, and shuts the pool down.
+   * This method returns immediately; a background thread is created to perform the release.
+   */
+  public final void releaseAsync()
+  {
+    releaseAsync(-1);
+  }
+
+  /**
+   * Releases all items from the pool, and shuts the pool down.
+   * This method returns immediately; a background thread is created to perform the release.
+   */
+  public final void releaseAsync(final long timeout)
+  {
+    Thread t = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        release(timeout);
+      }
+    });
+    t.start();
+  }
+
+  /**
+   * Releases all items from the pool, and shuts the pool down, allowing
+   * {@code timeout} milliseconds for the connections to be gracefully returned
+   * to the pool before they are forcibly destroyed.
+   * A negative timeout is equivalent to no timeout, and the method will wait
+   * for items to be checked in before destruction. If timeout &gt;= 0 then
+   * items will be forcibly destroyed after the specified time has elapsed.
+   * @param timeout timeout after which to forcibly destroy items (-1 for no timeout)
+   */
+  public final void release(long timeout)
+  {
+    if (released)
+      return;
+    long startTime = System.currentTimeMillis();
+    boolean hasTimeout = (timeout >= 0);
+    // Set released flag to prevent check-out of new items.
+    released = true;
+    disableAutoSizing();
+    // Wake all threads waiting to check out items (which then fail).
+    Waiter<T> w;
+    while ((w = pollWaiter()) != null)
+    {
+      queued.decrementAndGet();
+      if (w.signal() && w.future != null)
+      {
+        final Waiter<T> aw = w;
+        asyncExecutor.execute(() -> serviceAsync(aw));
+      }
+    }
+    // Allow sub-class to clean up.
+    preRelease();
+
+    lock.lock();
+    try
+    {
+      // Stop initialization.
+      if (initer != null)
+      {
+        initer.halt();
+        initer = null;
+      }
+      // Stop cleaner.
+      if (cleaner != null)
+      {
+        cleaner.halt();
+        cleaner = null;
+      }
+
+      int releasedCount = 0, failedCount = 0;
+      // Destroy all currently free items.
+      TimeWrapper<T> tw = null;
+      for (Deque<TimeWrapper<T>> stripe : stripes)
+      {
+        while ((tw = stripe.pollFirst()) != null)
+        {
+          tw.clearEnqueued();
+          if (!tw.retire())
+            continue;
+          freeCount.decrementAndGet();
+          size.decrementAndGet();
+          T o = tw.getObject();
+          try
+          {
+            destroy(o);
+            releasedCount++;
+          }
+          catch (Exception ex)
+          {
+            failedCount++;
+            log_warn("Unable to release item in pool", ex);
+          }
         }
       }
-      free.clear();
 
       // Destroy all items still in use.
       if (log.isDebugEnabled() && !used.isEmpty())
         log_debug("Waiting for used items to be checked-in...");
       long dif = System.currentTimeMillis() - startTime;
-      while (!used.isEmpty() && hasTimeout && dif < timeout)
+      waiters.incrementAndGet();
+      try
       {
-        try
-        {
-          wait(timeout - dif);
-        }
-        catch (InterruptedException ix)
+        while (!used.isEmpty() && hasTimeout && dif < timeout)
         {
-          log_warn(ix.getMessage(), ix);
+          try
+          {
+            available.await(timeout - dif, TimeUnit.MILLISECONDS);
+          }
+          catch (InterruptedException ix)
+          {
+            log_warn(ix.getMessage(), ix);
+          }
+          dif = System.currentTimeMillis() - startTime;
         }
-        dif = System.currentTimeMillis() - startTime;
+      }
+      finally
+      {
+        waiters.decrementAndGet();
       }
       // If timeout expired, forcibly destroy items.
       if (!used.isEmpty() && hasTimeout && dif > timeout)
       {
-        for (T o : used)
+        for (T o : used.keySet())
         {
+          if ((tw = used.remove(o)) == null)
+            continue;
+          tw.setState(TimeWrapper.REMOVED);
+          size.decrementAndGet();
           try
           {
             destroy(o);
@@ -655,7 +2065,6 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
             log_warn("Unable to release item in pool", ex);
           }
         }
-        used.clear();
       }
 
       // Destroy log reference.
@@ -667,11 +2076,16 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
         log_debug(s);
       }
     }
+    finally
+    {
+      lock.unlock();
+    }
     // Fire released event, synchronously to ensure listeners receive it
     // before the event-dispatcher is shutdown.
     firePoolReleasedEvent();
 
-    synchronized(this)
+    lock.lock();
+    try
     {
       // Close custom log if open.
       if (logUtil != null)
@@ -702,6 +2116,10 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
       }
       eventDispatcher = null;
     }
+    finally
+    {
+      lock.unlock();
+    }
     // Allow sub-class to clean up.
     postRelease();
     shutdownHook = null;
@@ -720,7 +2138,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * Method to give a sub-class the opportunity to cleanup resources after
    * the pool is officially released. This method is called as the last thing
    * after the main {@code ObjectPool} release implementation.
-   * Be aware that the event-dispatch thread, cleaner thread, any init threads,
+   * Be aware that the event-dispatcher, cleaner, any initialization tasks,
    * and the custom log have all been terminated before this method is called.
    */
   protected void postRelease()
@@ -746,6 +2164,35 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    */
   protected abstract boolean isValid(final T o);
 
+  /**
+   * Object liveness check method.
+   * This method is called when checking-out an item which has recently been
+   * validated by the cleaner thread (see {@link #setIdleValidationInterval(long)}),
+   * in place of {@link #isValid(Reusable)}. It should be a cheap local check,
+   * which does not incur the cost of a full validation.
+   * This implementation always returns true.
+   * @param o object to check
+   * @return true if o appears usable, false otherwise
+   */
+  protected boolean isAlive(final T o)
+  {
+    return true;
+  }
+
+  /**
+   * Leaked item reclamation method.
+   * This method is called when an item which has been checked out for
+   * longer than the leak detection threshold is reclaimed by the pool
+   * (see {@link #setReclaimLeaks(boolean)}), prior to it being destroyed.
+   * The item may still be in use by the thread which checked it out, so a
+   * sub-class may override this method to forcibly prevent further use.
+   * This implementation does nothing.
+   * @param o object being reclaimed
+   */
+  protected void reclaim(final T o)
+  {
+  }
+
   /**
    * Object destruction method.
    * This method is called when an object needs to be destroyed due to pool
@@ -756,6 +2203,8 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
 
   /**
    * Destroys the given object (asynchronously if necessary).
+   * If asynchronous destruction is enabled but its queue is full,
+   * the object is destroyed synchronously instead.
    */
   private void destroyObject(final T o)
   {
@@ -763,42 +2212,609 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
       return;
     if (asyncDestroy)
     {
-      Thread t = new Thread(new Runnable()
+      pendingDestroys.incrementAndGet();
+      Runnable task = () ->
       {
-        @Override
-        public void run()
+        try
+        {
+          timedDestroy(o);
+        }
+        finally
         {
-          destroy(o);
+          pendingDestroys.decrementAndGet();
         }
-      });
-      t.start();
+      };
+      if (Housekeeper.executeDestroy(task))
+        return;
+      pendingDestroys.decrementAndGet();
+      destroyFallbacks.increment();
+      log_debug("Asynchronous destruction queue full; destroying item synchronously");
+    }
+    timedDestroy(o);
+  }
+
+  /**
+   * Destroys the given object, recording the time taken.
+   */
+  private void timedDestroy(final T o)
+  {
+    long start = System.nanoTime();
+    try
+    {
+      destroy(o);
+    }
+    finally
+    {
+      destroyTime.add(System.nanoTime() - start);
+      destroys.increment();
+    }
+  }
+
+  /**
+   * Determines whether to perform asynchronous object destruction.
+   * If set to true then each time an object is destroyed (invalid object
+   * during pool operation, or when the pool is finally released) the operation
+   * is done by a shared, bounded executor (see {@link Housekeeper}), allowing
+   * the method to return immediately. If the executor's queue is full, the
+   * object is instead destroyed synchronously.
+   * This can be useful when calling the destroy method on an object takes a
+   * long time to complete.
+   * @param b whether to enable asynchronous object destruction
+   */
+  public final void setAsyncDestroy(boolean b)
+  {
+    asyncDestroy = b;
+  }
+
+  /**
+   * Returns whether asynchronous object destruction is enabled.
+   * (Default: false)
+   * @return true if asynchronous object destruction is enabled, false otherwise
+   */
+  public final boolean isAsyncDestroy()
+  {
+    return asyncDestroy;
+  }
+
+  /**
+   * Determines whether to use thread-affinity when checking out items.
+   * If set to true then each thread remembers the items it most recently
+   * checked in, and when checking out tries to reclaim one of those items
+   * before resorting to the shared free list (taking items recently returned
+   * by other threads if necessary). This is useful when threads frequently
+   * check out and return items, as it reduces contention on the free list,
+   * and means a thread tends to reuse the same items (for example keeping
+   * a connection's statement cache populated with its usual statements).
+   * When enabled the selection strategy only applies to the shared free list.
+   * @param b whether to enable thread-affinity
+   */
+  public final void setThreadAffinity(boolean b)
+  {
+    threadAffinity = b;
+  }
+
+  /**
+   * Returns whether thread-affinity is enabled.
+   * (Default: false)
+   * @return true if thread-affinity is enabled, false otherwise
+   */
+  public final boolean isThreadAffinity()
+  {
+    return threadAffinity;
+  }
+
+  /**
+   * Sets the validation interval (milliseconds).
+   * Items which have been used (checked in) or validated more recently than
+   * this interval are not validated again when checked out, which avoids
+   * the cost of validation (often a round trip to a server) for items which
+   * are in frequent use. A value of zero means that items are always
+   * validated when checked out.
+   * @param interval validation interval in milliseconds (0 = always validate)
+   */
+  public final void setValidationInterval(long interval)
+  {
+    if (interval < 0)
+      throw new IllegalArgumentException("Invalid validation interval specified: " + interval);
+    this.validationInterval = interval;
+  }
+
+  /**
+   * Returns the validation interval (milliseconds).
+   * (Default: 0)
+   * @return validation interval in milliseconds (0 = always validate)
+   */
+  public final long getValidationInterval()
+  {
+    return validationInterval;
+  }
+
+  /**
+   * Sets the maximum lifetime of items in the pool (milliseconds).
+   * Items are retired once this time has elapsed since their creation,
+   * regardless of use, either when checked in, or by the cleaner if free
+   * (items are never retired while checked out). The cleaner checks free
+   * items for retirement at intervals of 1% of the maximum lifetime. To avoid all items
+   * created at the same time being retired (and replaced) at the same time,
+   * the lifetime of each item is randomly reduced by up to 10%.
+   * The new value also applies to existing items.
+   * @param lifetime maximum lifetime in milliseconds (0 = unlimited)
+   */
+  public final void setMaxLifetime(long lifetime)
+  {
+    if (lifetime < 0)
+      throw new IllegalArgumentException("Invalid maximum lifetime specified: " + lifetime);
+    lock.lock();
+    try
+    {
+      this.maxLifetime = lifetime;
+      // Update existing items to use new lifetime.
+      for (TimeWrapper<T> tw : used.values())
+        tw.setMaxLifetime(jitteredLifetime());
+      for (Deque<TimeWrapper<T>> stripe : stripes)
+      {
+        for (TimeWrapper<T> tw : stripe)
+          tw.setMaxLifetime(jitteredLifetime());
+      }
+      if (released)
+        return;
+      if (cleaner != null)
+      {
+        cleaner.halt();
+        cleaner = null;
+      }
+      startCleaner();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the time for which items may be checked out before being reported
+   * as possible leaks (milliseconds). Items checked out for longer are
+   * reported (once per check-out) in the log by the cleaner, including the
+   * stack trace of the check-out if captured (see {@link #setLeakTraceSampleRate(int)}).
+   * If reclamation is enabled (see {@link #setReclaimLeaks(boolean)}) such
+   * items are also removed from the pool and destroyed.
+   * @param threshold leak detection threshold in milliseconds (0 = disabled)
+   */
+  public final void setLeakDetectionThreshold(long threshold)
+  {
+    if (threshold < 0)
+      throw new IllegalArgumentException("Invalid leak detection threshold specified: " + threshold);
+    lock.lock();
+    try
+    {
+      this.leakDetectionThreshold = threshold;
+      if (released)
+        return;
+      if (cleaner != null)
+      {
+        cleaner.halt();
+        cleaner = null;
+      }
+      startCleaner();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the leak detection threshold (milliseconds).
+   * (Default: 0)
+   * @return leak detection threshold in milliseconds (0 = disabled)
+   */
+  public final long getLeakDetectionThreshold()
+  {
+    return leakDetectionThreshold;
+  }
+
+  /**
+   * Sets the sampling rate for capturing stack traces of check-outs, which
+   * are included in reports of possible leaks. Capturing a stack trace is
+   * relatively expensive, so by default it is only done for a sample of
+   * check-outs; a persistent leak is likely to be captured eventually.
+   * Stack traces are only captured when leak detection is enabled.
+   * @param rate capture stack trace for 1 in every {@code rate} check-outs (1 = all, 0 = none)
+   */
+  public final void setLeakTraceSampleRate(int rate)
+  {
+    if (rate < 0)
+      throw new IllegalArgumentException("Invalid leak trace sample rate specified: " + rate);
+    this.leakTraceSampleRate = rate;
+  }
+
+  /**
+   * Returns the sampling rate for capturing stack traces of check-outs.
+   * (Default: 10)
+   * @return sampling rate (1 in N check-outs; 0 = none)
+   */
+  public final int getLeakTraceSampleRate()
+  {
+    return leakTraceSampleRate;
+  }
+
+  /**
+   * Determines whether items detected as leaked are reclaimed by the pool.
+   * If set to true, items checked out for longer than the leak detection
+   * threshold are removed from the pool and destroyed (after calling
+   * {@link #reclaim(Reusable)}), freeing capacity for other threads.
+   * Any subsequent attempt to check in a reclaimed item fails, as it no
+   * longer belongs to the pool.
+   * @param b whether to reclaim leaked items
+   */
+  public final void setReclaimLeaks(boolean b)
+  {
+    reclaimLeaks = b;
+  }
+
+  /**
+   * Returns whether items detected as leaked are reclaimed by the pool.
+   * (Default: false)
+   * @return true if leaked items are reclaimed, false otherwise
+   */
+  public final boolean isReclaimLeaks()
+  {
+    return reclaimLeaks;
+  }
+
+  /**
+   * Returns the maximum lifetime of items in the pool (milliseconds).
+   * (Default: 0)
+   * @return maximum lifetime in milliseconds (0 = unlimited)
+   */
+  public final long getMaxLifetime()
+  {
+    return maxLifetime;
+  }
+
+  /**
+   * Sets the minimum number of free (idle) items to maintain in the pool.
+   * Whenever the number of free items drops below this level, new items are
+   * created in the background (subject to the {@code maxSize} limit), so that
+   * bursts of demand may be served from spare items. Idle items are also not
+   * expired if that would reduce the number of free items below this level.
+   * Note that items created in excess of {@code maxPool} remain subject to
+   * the usual rules for destruction on check-in.
+   * As items may be created as soon as this method is called, it should
+   * only be called once the pool is otherwise fully configured.
+   * @param minIdle minimum number of free items to maintain (0 = none)
+   */
+  public final void setMinIdle(int minIdle)
+  {
+    if (minIdle < 0)
+      throw new IllegalArgumentException("Invalid minIdle value specified: " + minIdle);
+    this.minIdle = minIdle;
+    replenish();
+  }
+
+  /**
+   * Returns the minimum number of free (idle) items to maintain in the pool.
+   * (Default: 0)
+   * @return minimum number of free items to maintain (0 = none)
+   */
+  public final int getMinIdle()
+  {
+    return minIdle;
+  }
+
+  /**
+   * Sets the number of items of capacity reserved for high-priority
+   * check-outs (see {@link #checkOut(long, Priority)}). Normal-priority
+   * check-outs do not take items (or create new ones) if doing so would
+   * leave fewer than this number of items available, whether free or as
+   * capacity to create new items. The reserve only applies if the maximum
+   * number of items ({@code maxSize}) is limited, and should be less than it.
+   * @param n number of items reserved for high-priority check-outs (0 = none)
+   */
+  public final void setHighPriorityReserve(int n)
+  {
+    if (n < 0)
+      throw new IllegalArgumentException("Invalid high-priority reserve specified: " + n);
+    this.highPriorityReserve = n;
+    // Normal-priority waiters may now be able to proceed.
+    notifyWaiters();
+  }
+
+  /**
+   * Returns the number of items of capacity reserved for high-priority check-outs.
+   * (Default: 0)
+   * @return number of items reserved for high-priority check-outs (0 = none)
+   */
+  public final int getHighPriorityReserve()
+  {
+    return highPriorityReserve;
+  }
+
+  /**
+   * Sets the quota for check-outs with the specified tag
+   * (see {@link #checkOut(long, Priority, String)}).
+   * At most {@code max} items may be checked out concurrently with the tag,
+   * and further check-outs with the tag wait for one to be checked in.
+   * Capacity for {@code min} items is reserved for check-outs with the tag,
+   * so other check-outs do not take items (or create new ones) if doing so
+   * would leave less than the unused guaranteed minimums of all tags
+   * available. As for {@link #setHighPriorityReserve(int)}, guaranteed
+   * minimums only apply if the maximum number of items ({@code maxSize})
+   * is limited, and in total should be less than it.
+   * Check-outs with tags for which no quota is set are not limited,
+   * but their usage is still recorded.
+   * @param tag tag to which the quota applies
+   * @param max maximum number of items checked out with the tag (0 = unlimited)
+   * @param min guaranteed minimum number of items for the tag (0 = none)
+   * @see #getTagQuota(String)
+   */
+  public final void setTagQuota(String tag, int max, int min)
+  {
+    if (tag == null)
+      throw new IllegalArgumentException("Invalid tag specified: " + tag);
+    if (max < 0 || min < 0 || (max > 0 && min > max))
+      throw new IllegalArgumentException("Invalid quota specified for tag " + tag + ": " + max + "/" + min);
+    tagQuotas.computeIfAbsent(tag, t -> new TagQuota(t, tagShortfall)).setLimits(max, min);
+    // Waiters may now be able to proceed.
+    notifyWaiters();
+  }
+
+  /**
+   * Returns the quota and usage statistics for check-outs with the specified tag.
+   * @param tag tag for which to return the quota
+   * @return quota for the tag, or null if no quota is set and no item has been checked out with the tag
+   */
+  public final TagQuota getTagQuota(String tag)
+  {
+    return (tag == null) ? null : tagQuotas.get(tag);
+  }
+
+  /**
+   * Returns the quotas and usage statistics for check-outs with all tags
+   * used with this pool (whether or not a quota is set).
+   * @return list of tag quotas (sorted by tag)
+   */
+  public final List<TagQuota> getTagQuotas()
+  {
+    List<TagQuota> list = new ArrayList<>(tagQuotas.values());
+    list.sort((a, b) -> a.getTag().compareTo(b.getTag()));
+    return list;
+  }
+
+  /**
+   * Returns a summary of the number of items checked out with each tag,
+   * and the quota for each tag, suitable for display
+   * (e.g. {@code "batch=2/4, web=7/unlimited (min 5)"}).
+   * @return summary of items checked out with each tag
+   */
+  public final String getTagUsage()
+  {
+    StringBuilder sb = new StringBuilder();
+    for (TagQuota q : getTagQuotas())
+    {
+      if (sb.length() > 0)
+        sb.append(", ");
+      sb.append(q);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Sets the maximum number of threads which may wait to check out an item
+   * (see {@link #checkOut(long)}). When this number of threads are already
+   * waiting, further check-outs which would wait are rejected immediately,
+   * instead of tying up more threads until they time out.
+   * The check is made without locking, so the limit may briefly be exceeded
+   * by threads starting to wait concurrently.
+   * @param n maximum number of waiting threads (0 = unlimited)
+   */
+  public final void setMaxWaiters(int n)
+  {
+    if (n < 0)
+      throw new IllegalArgumentException("Invalid maximum number of waiters specified: " + n);
+    this.maxWaiters = n;
+  }
+
+  /**
+   * Returns the maximum number of threads which may wait to check out an item.
+   * (Default: 0)
+   * @return maximum number of waiting threads (0 = unlimited)
+   */
+  public final int getMaxWaiters()
+  {
+    return maxWaiters;
+  }
+
+  /**
+   * Sets the maximum expected wait to check out an item (see {@link #checkOut(long)}).
+   * When threads are already waiting, the wait of a further check-out is
+   * estimated from the number of waiting threads and the recent rate at
+   * which items are checked in, and if it exceeds this time the check-out
+   * is rejected immediately, instead of waiting until it times out.
+   * @param ms maximum expected wait in milliseconds (0 = unlimited)
+   */
+  public final void setMaxExpectedWait(long ms)
+  {
+    if (ms < 0)
+      throw new IllegalArgumentException("Invalid maximum expected wait specified: " + ms);
+    this.maxExpectedWait = ms;
+  }
+
+  /**
+   * Returns the maximum expected wait to check out an item.
+   * (Default: 0)
+   * @return maximum expected wait in milliseconds (0 = unlimited)
+   */
+  public final long getMaxExpectedWait()
+  {
+    return maxExpectedWait;
+  }
+
+  /**
+   * Sets the executor used to service asynchronous check-outs (see
+   * {@link #checkOutAsync(long)}), which attempts check-outs (possibly
+   * creating new items), and completes the futures of waiting requests
+   * (except on timeout, which is applied by a housekeeping thread).
+   * By default a bounded executor shared by all pools is used
+   * (see {@link Housekeeper#setAsyncThreadCount(int)}).
+   * The executor should not run tasks in the calling thread.
+   * @param executor executor to use (null to use the default)
+   */
+  public final void setAsyncExecutor(Executor executor)
+  {
+    this.asyncExecutor = (executor != null) ? executor : DEFAULT_ASYNC_EXECUTOR;
+  }
+
+  /**
+   * Returns the executor used to service asynchronous check-outs.
+   * @return executor used to service asynchronous check-outs
+   */
+  public final Executor getAsyncExecutor()
+  {
+    return asyncExecutor;
+  }
+
+  /**
+   * Sets the number of items which may be created concurrently when the
+   * pool is initialized (see {@link #init(int)}). Creating items in parallel
+   * can greatly reduce the time taken to populate a pool when item creation
+   * is slow (e.g. a login to a remote database server).
+   * Items are created using the item creation threads shared by all pools
+   * (see {@link Housekeeper#setCreateThreadCount(int)}), so the effective
+   * parallelism is also limited by the number of those threads.
+   * The new value takes effect from the next initialization.
+   * @param parallelism number of items to create concurrently (must be at least 1)
+   */
+  public final void setInitParallelism(int parallelism)
+  {
+    if (parallelism < 1)
+      throw new IllegalArgumentException("Invalid initialization parallelism specified: " + parallelism);
+    this.initParallelism = parallelism;
+  }
+
+  /**
+   * Returns the number of items which may be created concurrently when the
+   * pool is initialized.
+   * (Default: 1)
+   * @return number of items created concurrently during initialization
+   */
+  public final int getInitParallelism()
+  {
+    return initParallelism;
+  }
+
+  /**
+   * Sets the idle validation interval (milliseconds).
+   * When set, the cleaner thread periodically validates free items which
+   * have not been used or validated within this interval, destroying any
+   * found to be invalid. This moves the cost of validation (often a round
+   * trip to a server) off the check-out path, which then only needs to make
+   * a cheap liveness check (see {@link #isAlive(Reusable)}) for items
+   * recently validated. A value of zero disables background validation.
+   * @param interval idle validation interval in milliseconds (0 = disabled)
+   */
+  public final void setIdleValidationInterval(long interval)
+  {
+    if (interval < 0)
+      throw new IllegalArgumentException("Invalid idle validation interval specified: " + interval);
+    lock.lock();
+    try
+    {
+      this.idleValidationInterval = interval;
+      if (released)
+        return;
+      if (cleaner != null)
+      {
+        cleaner.halt();
+        cleaner = null;
+      }
+      startCleaner();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the idle validation interval (milliseconds).
+   * (Default: 0)
+   * @return idle validation interval in milliseconds (0 = disabled)
+   */
+  public final long getIdleValidationInterval()
+  {
+    return idleValidationInterval;
+  }
+
+  /**
+   * Creates and starts a cleaner task, if one is required to expire idle
+   * items, to retire items exceeding their maximum lifetime,
+   * and/or to validate items in the background.
+   * The check interval is between 200ms and 5 seconds (by default).
+   * Too often and cleaner will use too much processor resource.
+   * Too seldom and cleaner will fail to clean up fast enough.
+   * This method must be called while holding the pool's lock.
+   */
+  private void startCleaner()
+  {
+    long period = idleTimeout;
+    if (idleValidationInterval > 0 && (period == 0 || idleValidationInterval < period))
+      period = idleValidationInterval;
+    if (maxLifetime > 0 && (period == 0 || maxLifetime < period))
+      period = maxLifetime;
+    if (leakDetectionThreshold > 0 && (period == 0 || leakDetectionThreshold < period))
+      period = leakDetectionThreshold;
+    if (period > 0)
+    {
+      long min = getMinimumCleaningInterval();
+      long max = getMaximumCleaningInterval();
+      if (min < 0 || max < 0 || min >= max)
+        throw new IllegalStateException("Invalid min/max cleaner interval specified");
+      long iVal = Math.max(min, Math.min(max, period / 5));
+      (cleaner = new Cleaner(this, iVal)).start();
     }
-    else
-      destroy(o);
   }
 
   /**
-   * Determines whether to perform asynchronous object destruction.
-   * If set to true then each time an object is destroyed (invalid object
-   * during pool operation, or when the pool is finally released) the operation
-   * is done in a separate thread, allowing the method to return immediately.
-   * This can be useful when calling the destroy method on an object takes a
-   * long time to complete.
-   * @param b whether to enable asynchronous object destruction
+   * Sets the number of stripes (sub-pools) in which free items are held.
+   * With more than one stripe, each thread checks in items to its own home
+   * stripe (determined by a hash of the thread), and checks out items from
+   * that stripe first, only taking items from other stripes when its own
+   * is empty. This reduces contention between threads on machines with
+   * many processors. The pool limits ({@code maxPool}/{@code maxSize}) and
+   * statistics apply to the pool as a whole, irrespective of striping.
+   * The number of stripes may be changed at any time; reducing it leaves
+   * existing items where they are, to be taken from other stripes as needed.
+   * @param n number of stripes (1 = no striping)
    */
-  public final void setAsyncDestroy(boolean b)
+  public final void setStripeCount(int n)
   {
-    asyncDestroy = b;
+    if (n < 1)
+      throw new IllegalArgumentException("Invalid number of stripes specified: " + n);
+    lock.lock();
+    try
+    {
+      // Stripes are only ever added, so items concurrently checked in to
+      // an existing stripe are retained.
+      if (n > stripes.length)
+        stripes = newStripes(n, stripes);
+      stripeCount = n;
+      log_debug("Stripe count set to " + n);
+    }
+    finally
+    {
+      lock.unlock();
+    }
   }
 
   /**
-   * Returns whether asynchronous object destruction is enabled.
-   * (Default: false)
-   * @return true if asynchronous object destruction is enabled, false otherwise
+   * Returns the number of stripes (sub-pools) in which free items are held.
+   * (Default: 1)
+   * @return number of stripes
    */
-  public final boolean isAsyncDestroy()
+  public final int getStripeCount()
   {
-    return asyncDestroy;
+    return stripeCount;
   }
 
   /**
@@ -957,7 +2973,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * Returns the minimum number of items that should be kept pooled.
    * @return The minimum number of items that should be kept pooled
    */
-  public synchronized final int getMinPool()
+  public final int getMinPool()
   {
     return minPool;
   }
@@ -966,7 +2982,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * Returns the maximum number of items that can be pooled.
    * @return The maximum number of items that can be pooled
    */
-  public synchronized final int getMaxPool()
+  public final int getMaxPool()
   {
     return maxPool;
   }
@@ -975,7 +2991,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * Returns the maximum number of items that can be created.
    * @return The maximum number of items that can be created
    */
-  public synchronized final int getMaxSize()
+  public final int getMaxSize()
   {
     return maxSize;
   }
@@ -984,7 +3000,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * Returns the idle timeout for unused items in the pool (in milliseconds).
    * @return The idle timeout for unused items in the pool (in milliseconds)
    */
-  protected synchronized long getIdleTimeoutUnadjusted()
+  protected long getIdleTimeoutUnadjusted()
   {
     return idleTimeout;
   }
@@ -997,7 +3013,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * (default of 1 for milliseconds, e.g. 1000 changes to seconds).
    * @return {@link #getIdleTimeoutUnadjusted()}/{@link #getIdleTimeoutMultiplier()}
    */
-  public synchronized long getIdleTimeout()
+  public long getIdleTimeout()
   {
     return (long)(idleTimeout / getIdleTimeoutMultiplier());
   }
@@ -1060,82 +3076,98 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * @param maxSize maximum number of items to be created
    * @param idleTimeout idle timeout for unused items (0 = no timeout)
    */
-  public final synchronized void setParameters(int minPool, int maxPool, int maxSize, long idleTimeout)
+  public final void setParameters(int minPool, int maxPool, int maxSize, long idleTimeout)
   {
-    if (minPool < 0 || maxPool < 0 || maxSize < 0 || idleTimeout < 0)
-      throw new IllegalArgumentException("Negative values not accepted as pool parameters");
-    if (maxPool < minPool)
-      throw new IllegalArgumentException("Invalid minPool/maxPool values: " + minPool + "/" + maxPool);
-    if (maxSize > 0 && maxSize < maxPool)
-      throw new IllegalArgumentException("Invalid maxPool/maxSize values: " + maxPool + "/" + maxSize);
-
-    if (cleaner != null)
+    lock.lock();
+    try
     {
-      cleaner.halt();
-      cleaner = null;
-    }
+      if (minPool < 0 || maxPool < 0 || maxSize < 0 || idleTimeout < 0)
+        throw new IllegalArgumentException("Negative values not accepted as pool parameters");
+      if (maxPool < minPool)
+        throw new IllegalArgumentException("Invalid minPool/maxPool values: " + minPool + "/" + maxPool);
+      if (maxSize > 0 && maxSize < maxPool)
+        throw new IllegalArgumentException("Invalid maxPool/maxSize values: " + maxPool + "/" + maxSize);
 
-    // Copy parameter values.
-    this.minPool = minPool;
-    this.maxPool = maxPool;
-    this.maxSize = maxSize;
-    this.idleTimeout = (long)(idleTimeout * getIdleTimeoutMultiplier());
-    resetHitCounter();
+      if (cleaner != null)
+      {
+        cleaner.halt();
+        cleaner = null;
+      }
 
-    // Update pooled items to use new idle timeout.
-    for (TimeWrapper<T> tw : free)
-      tw.setLiveTime(this.idleTimeout);
-    // Creates cleaner thread with check interval between 200ms and 5 seconds.
-    // Too often and cleaner will use too much processor resource.
-    // Too seldom and cleaner will fail to clean up fast enough.
-    if (this.idleTimeout > 0)
-    {
-      long min = getMinimumCleaningInterval();
-      long max = getMaximumCleaningInterval();
-      if (min < 0 || max < 0 || min >= max)
-        throw new IllegalStateException("Invalid min/max cleaner interval specified");
-      long iVal = Math.max(min, Math.min(max, this.idleTimeout / 5));
-      (cleaner = new Cleaner(this, iVal)).start();
-    }
+      // Copy parameter values.
+      this.minPool = minPool;
+      this.maxPool = maxPool;
+      this.maxSize = maxSize;
+      this.idleTimeout = (long)(idleTimeout * getIdleTimeoutMultiplier());
+      resetHitCounter();
 
-    if (log.isDebugEnabled())
-    {
-      StringBuilder sb = new StringBuilder();
-      sb.append("minpool=");
-      sb.append(getMinPool());
-      sb.append(",maxpool=");
-      sb.append(getMaxPool());
-      sb.append(",maxsize=");
-      sb.append(getMaxSize());
-      sb.append(",idleTimeout=");
-      long it = getIdleTimeout();
-      if (it == 0)
-        sb.append("none");
-      else
+      // Update pooled items to use new idle timeout.
+      for (Deque<TimeWrapper<T>> stripe : stripes)
+      {
+        for (TimeWrapper<T> tw : stripe)
+          tw.setLiveTime(this.idleTimeout);
+      }
+      startCleaner();
+
+      if (log.isDebugEnabled())
       {
-        sb.append(it);
-        sb.append(",cleanInterval=");
-        sb.append(cleaner.interval);
+        StringBuilder sb = new StringBuilder();
+        sb.append("minpool=");
+        sb.append(getMinPool());
+        sb.append(",maxpool=");
+        sb.append(getMaxPool());
+        sb.append(",maxsize=");
+        sb.append(getMaxSize());
+        sb.append(",idleTimeout=");
+        long it = getIdleTimeout();
+        if (it == 0)
+          sb.append("none");
+        else
+        {
+          sb.append(it);
+          sb.append(",cleanInterval=");
+          sb.append(cleaner.interval);
+        }
+        if (idleValidationInterval > 0)
+        {
+          sb.append(",idleValidationInterval=");
+          sb.append(idleValidationInterval);
+        }
+        log_debug("Parameters changed (" + sb.toString() + ")");
       }
-      log_debug("Parameters changed (" + sb.toString() + ")");
+      firePoolEvent(ObjectPoolEvent.Type.PARAMETERS_CHANGED);
+    }
+    finally
+    {
+      lock.unlock();
     }
-    firePoolEvent(ObjectPoolEvent.Type.PARAMETERS_CHANGED);
   }
 
   /**
    * Returns the total number of objects held (available and checked-out).
    * @return The total number of objects held (available and checked-out)
    */
-  public final synchronized int getSize()
+  public final int getSize()
+  {
+    return Math.max(size.get() - pending.get(), 0);
+  }
+
+  /**
+   * Returns the number of items currently being created.
+   * Capacity for these items is reserved, but they are not included in the
+   * value returned by {@link #getSize()} until they have been created.
+   * @return The number of items currently being created
+   */
+  public final int getPendingCount()
   {
-    return free.size() + used.size();
+    return pending.get();
   }
 
   /**
    * Returns the number of items that are currently checked-out.
    * @return The number of items that are currently checked-out
    */
-  public final synchronized int getCheckedOut()
+  public final int getCheckedOut()
   {
     return used.size();
   }
@@ -1144,9 +3176,9 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * Returns the number of items held in the pool that are free to be checked-out.
    * @return The number of items held in the pool that are free to be checked-out
    */
-  public final synchronized int getFreeCount()
+  public final int getFreeCount()
   {
-    return free.size();
+    return Math.max(freeCount.get(), 0);
   }
 
   /**
@@ -1157,9 +3189,9 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * since either its creation or the last time the {@link #resetHitCounter()}
    * method was called
    */
-  public final synchronized long getRequestCount()
+  public final long getRequestCount()
   {
-    return requests;
+    return requests.sum();
   }
 
   /**
@@ -1169,9 +3201,10 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * results in the creation of a new item.
    * @return Hit rate of the pool (between 0 and 1)
    */
-  public final synchronized float getPoolHitRate()
+  public final float getPoolHitRate()
   {
-    return (requests == 0) ? 0f : ((float)hits / requests);
+    long r = requests.sum();
+    return (r == 0) ? 0f : ((float)hits.sum() / r);
   }
 
   /**
@@ -1180,24 +3213,483 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * pooled item can be retrieved.
    * @return Miss rate of the pool (between 0 and 1)
    */
-  public final synchronized float getPoolMissRate()
+  public final float getPoolMissRate()
+  {
+    long r = requests.sum();
+    return (r == 0) ? 0f : ((float)(r - hits.sum()) / r);
+  }
+
+  /**
+   * Returns the number of threads currently waiting to check out an item.
+   * @return The number of threads currently waiting to check out an item
+   */
+  public final int getWaitingCount()
+  {
+    return Math.max(queued.get(), 0);
+  }
+
+  /**
+   * Returns the maximum number of threads observed waiting to check out
+   * an item at the same time.
+   * @return The maximum number of threads observed waiting to check out an item
+   */
+  public final int getPeakWaitingCount()
+  {
+    return peakQueued.get();
+  }
+
+  /**
+   * Returns the number of items queued for asynchronous destruction, but not
+   * yet destroyed.
+   * @return The number of items pending destruction
+   */
+  public final int getPendingDestroyCount()
+  {
+    return pendingDestroys.get();
+  }
+
+  /**
+   * Returns the average time taken to destroy an item (milliseconds).
+   * @return The average time taken to destroy an item (milliseconds), or 0 if none destroyed
+   */
+  public final float getAverageDestroyTime()
+  {
+    long n = destroys.sum();
+    return (n == 0) ? 0f : (float)(destroyTime.sum() / 1000000.0 / n);
+  }
+
+  /**
+   * Returns the number of items destroyed synchronously because the queue
+   * for asynchronous destruction was full.
+   * @return The number of items destroyed synchronously as a fallback
+   */
+  public final long getDestroyFallbackCount()
+  {
+    return destroyFallbacks.sum();
+  }
+
+  /**
+   * Returns a snapshot of the pool's statistics.
+   * This method does not acquire the pool's lock, so may be called
+   * frequently (e.g. by monitoring tools) without affecting pool throughput.
+   * @return snapshot of the pool's statistics
+   */
+  public final PoolStatistics snapshot()
+  {
+    // Hits are read before requests (which are incremented first), so the
+    // hit count never exceeds the request count.
+    long h = hits.sum();
+    long r = requests.sum();
+    return new PoolStatistics(System.currentTimeMillis(),
+            getMinPool(), getMaxPool(), getMaxSize(),
+            getSize(), getPendingCount(), getCheckedOut(), getFreeCount(),
+            getWaitingCount(), getPeakWaitingCount(),
+            r, h, creations.sum(), destroys.sum(),
+            waitTime.sum(), destroyTime.sum(),
+            getPendingDestroyCount(), getDestroyFallbackCount());
+  }
+
+  /**
+   * Returns the number of check-outs reported as possible leaks.
+   * @return The number of check-outs reported as possible leaks
+   */
+  public final long getLeakCount()
+  {
+    return leaks.sum();
+  }
+
+  /**
+   * Returns the number of leaked items reclaimed by the pool.
+   * @return The number of leaked items reclaimed by the pool
+   */
+  public final long getReclaimCount()
+  {
+    return reclaims.sum();
+  }
+
+  /**
+   * Returns the number of check-outs rejected as the pool was overloaded
+   * (see {@link #setMaxWaiters(int)} and {@link #setMaxExpectedWait(long)}).
+   * @return The number of check-outs rejected
+   */
+  public final long getRejectedCount()
+  {
+    return rejections.sum();
+  }
+
+  /**
+   * Returns the histogram of time taken to check out items from the pool,
+   * including any time spent waiting, creating, or validating items.
+   * Only successful check-outs are recorded.
+   * @return histogram of check-out times
+   */
+  public final LatencyHistogram getAcquireTimeHistogram()
+  {
+    return acquireTimes;
+  }
+
+  /**
+   * Returns the histogram of time for which items are checked out
+   * (from check-out until check-in).
+   * @return histogram of item hold times
+   */
+  public final LatencyHistogram getHoldTimeHistogram()
+  {
+    return holdTimes;
+  }
+
+  /**
+   * Returns the histogram of time taken to create new items.
+   * @return histogram of item creation times
+   */
+  public final LatencyHistogram getCreationTimeHistogram()
+  {
+    return creationTimes;
+  }
+
+  /**
+   * Returns the histogram of time taken to validate items
+   * (using {@link #isValid(Reusable)}).
+   * @return histogram of item validation times
+   */
+  public final LatencyHistogram getValidationTimeHistogram()
+  {
+    return validationTimes;
+  }
+
+  /**
+   * Resets the latency histograms of the pool, discarding all recorded values.
+   */
+  public final void resetLatencyHistograms()
+  {
+    acquireTimes.reset();
+    holdTimes.reset();
+    creationTimes.reset();
+    validationTimes.reset();
+  }
+
+  /**
+   * Returns the value at the specified percentile of a histogram in milliseconds.
+   * @param h histogram from which to read the value
+   * @param percentile percentile (between 0 and 100)
+   * @return The value at the specified percentile (milliseconds)
+   */
+  private static float percentileMillis(LatencyHistogram h, double percentile)
+  {
+    return (float)(h.getValueAtPercentile(percentile) / 1000000.0);
+  }
+
+  /**
+   * Returns the median (50th percentile) check-out time (milliseconds).
+   * @return The median (50th percentile) check-out time (milliseconds)
+   * @see #getAcquireTimeHistogram()
+   */
+  public final float getAcquireTimeP50()
+  {
+    return percentileMillis(acquireTimes, 50.0);
+  }
+
+  /**
+   * Returns the 90th percentile check-out time (milliseconds).
+   * @return The 90th percentile check-out time (milliseconds)
+   * @see #getAcquireTimeHistogram()
+   */
+  public final float getAcquireTimeP90()
+  {
+    return percentileMillis(acquireTimes, 90.0);
+  }
+
+  /**
+   * Returns the 99th percentile check-out time (milliseconds).
+   * @return The 99th percentile check-out time (milliseconds)
+   * @see #getAcquireTimeHistogram()
+   */
+  public final float getAcquireTimeP99()
+  {
+    return percentileMillis(acquireTimes, 99.0);
+  }
+
+  /**
+   * Returns the 99.9th percentile check-out time (milliseconds).
+   * @return The 99.9th percentile check-out time (milliseconds)
+   * @see #getAcquireTimeHistogram()
+   */
+  public final float getAcquireTimeP999()
+  {
+    return percentileMillis(acquireTimes, 99.9);
+  }
+
+  /**
+   * Returns the median (50th percentile) item hold time (milliseconds).
+   * @return The median (50th percentile) item hold time (milliseconds)
+   * @see #getHoldTimeHistogram()
+   */
+  public final float getHoldTimeP50()
+  {
+    return percentileMillis(holdTimes, 50.0);
+  }
+
+  /**
+   * Returns the 90th percentile item hold time (milliseconds).
+   * @return The 90th percentile item hold time (milliseconds)
+   * @see #getHoldTimeHistogram()
+   */
+  public final float getHoldTimeP90()
+  {
+    return percentileMillis(holdTimes, 90.0);
+  }
+
+  /**
+   * Returns the 99th percentile item hold time (milliseconds).
+   * @return The 99th percentile item hold time (milliseconds)
+   * @see #getHoldTimeHistogram()
+   */
+  public final float getHoldTimeP99()
+  {
+    return percentileMillis(holdTimes, 99.0);
+  }
+
+  /**
+   * Returns the 99.9th percentile item hold time (milliseconds).
+   * @return The 99.9th percentile item hold time (milliseconds)
+   * @see #getHoldTimeHistogram()
+   */
+  public final float getHoldTimeP999()
+  {
+    return percentileMillis(holdTimes, 99.9);
+  }
+
+  /**
+   * Returns the median (50th percentile) item creation time (milliseconds).
+   * @return The median (50th percentile) item creation time (milliseconds)
+   * @see #getCreationTimeHistogram()
+   */
+  public final float getCreationTimeP50()
+  {
+    return percentileMillis(creationTimes, 50.0);
+  }
+
+  /**
+   * Returns the 90th percentile item creation time (milliseconds).
+   * @return The 90th percentile item creation time (milliseconds)
+   * @see #getCreationTimeHistogram()
+   */
+  public final float getCreationTimeP90()
+  {
+    return percentileMillis(creationTimes, 90.0);
+  }
+
+  /**
+   * Returns the 99th percentile item creation time (milliseconds).
+   * @return The 99th percentile item creation time (milliseconds)
+   * @see #getCreationTimeHistogram()
+   */
+  public final float getCreationTimeP99()
+  {
+    return percentileMillis(creationTimes, 99.0);
+  }
+
+  /**
+   * Returns the 99.9th percentile item creation time (milliseconds).
+   * @return The 99.9th percentile item creation time (milliseconds)
+   * @see #getCreationTimeHistogram()
+   */
+  public final float getCreationTimeP999()
+  {
+    return percentileMillis(creationTimes, 99.9);
+  }
+
+  /**
+   * Returns the median (50th percentile) item validation time (milliseconds).
+   * @return The median (50th percentile) item validation time (milliseconds)
+   * @see #getValidationTimeHistogram()
+   */
+  public final float getValidationTimeP50()
+  {
+    return percentileMillis(validationTimes, 50.0);
+  }
+
+  /**
+   * Returns the 90th percentile item validation time (milliseconds).
+   * @return The 90th percentile item validation time (milliseconds)
+   * @see #getValidationTimeHistogram()
+   */
+  public final float getValidationTimeP90()
+  {
+    return percentileMillis(validationTimes, 90.0);
+  }
+
+  /**
+   * Returns the 99th percentile item validation time (milliseconds).
+   * @return The 99th percentile item validation time (milliseconds)
+   * @see #getValidationTimeHistogram()
+   */
+  public final float getValidationTimeP99()
+  {
+    return percentileMillis(validationTimes, 99.0);
+  }
+
+  /**
+   * Returns the 99.9th percentile item validation time (milliseconds).
+   * @return The 99.9th percentile item validation time (milliseconds)
+   * @see #getValidationTimeHistogram()
+   */
+  public final float getValidationTimeP999()
+  {
+    return percentileMillis(validationTimes, 99.9);
+  }
+
+  /**
+   * Enables automatic adjustment of the {@code maxPool} parameter within the
+   * specified bounds, using default settings (a wait threshold of 10ms,
+   * assessed every 5 seconds).
+   * @param lower lower bound for {@code maxPool}
+   * @param upper upper bound for {@code maxPool}
+   * @see #enableAutoSizing(int, int, long, long)
+   */
+  public final void enableAutoSizing(int lower, int upper)
+  {
+    enableAutoSizing(lower, upper, 10L, 5000L);
+  }
+
+  /**
+   * Enables automatic adjustment of the {@code maxPool} parameter (the number
+   * of items retained by the pool) within the specified bounds.
+   * <p>At each interval the time threads spent waiting to check out items,
+   * the proportion of items checked out, and the rate of item creation are
+   * sampled. If threads wait on average longer than the wait threshold, or
+   * new items are being created while most items are in use, {@code maxPool}
+   * is increased. If there is no waiting, no creation, and less than half the
+   * items are in use, {@code maxPool} is decreased. To avoid oscillation,
+   * a change is only made after the same assessment is made for several
+   * consecutive intervals (more for decreases than increases).
+   * Each change fires a {@link ObjectPoolEvent.Type#PARAMETERS_CHANGED} event,
+   * but unlike {@link #setParameters(int, int, int, long)} does not reset
+   * the hit rate counters.</p>
+   * @param lower lower bound for {@code maxPool}
+   * @param upper upper bound for {@code maxPool}
+   * @param waitThreshold average wait time (milliseconds) above which to increase {@code maxPool}
+   * @param interval interval between assessments (milliseconds)
+   */
+  public final void enableAutoSizing(int lower, int upper, long waitThreshold, long interval)
+  {
+    if (lower < 0 || upper < lower || upper == 0)
+      throw new IllegalArgumentException("Invalid auto-sizing bounds specified: " + lower + "/" + upper);
+    if (lower < minPool)
+      throw new IllegalArgumentException("Invalid auto-sizing lower bound specified: " + lower + " (min " + getMinPool() + ")");
+    if (maxSize > 0 && upper > maxSize)
+      throw new IllegalArgumentException("Invalid auto-sizing upper bound specified: " + upper + " (max " + getMaxSize() + ")");
+    if (waitThreshold < 0 || interval <= 0)
+      throw new IllegalArgumentException("Invalid auto-sizing wait threshold/interval specified: " + waitThreshold + "/" + interval);
+    lock.lock();
+    try
+    {
+      if (released)
+        return;
+      disableAutoSizing();
+      AutoSizer as = new AutoSizer(lower, upper, waitThreshold);
+      as.task = Housekeeper.scheduleWithFixedDelay(as, interval, TimeUnit.MILLISECONDS);
+      autoSizer = as;
+      log_info("Enabled auto-sizing (maxPool " + lower + "-" + upper + ")");
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Disables automatic adjustment of the {@code maxPool} parameter.
+   * The current value of {@code maxPool} is retained.
+   */
+  public final void disableAutoSizing()
+  {
+    lock.lock();
+    try
+    {
+      if (autoSizer != null)
+      {
+        autoSizer.task.cancel(false);
+        autoSizer = null;
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns whether automatic adjustment of the {@code maxPool} parameter is enabled.
+   * @return true if auto-sizing is enabled, false otherwise
+   */
+  public final boolean isAutoSizing()
+  {
+    return autoSizer != null;
+  }
+
+  /**
+   * Returns the number of adjustments made to {@code maxPool} by the current
+   * auto-sizing controller (0 if auto-sizing disabled).
+   * @return The number of adjustments made by auto-sizing
+   */
+  public final int getAutoSizeAdjustmentCount()
+  {
+    AutoSizer as = autoSizer;
+    return (as == null) ? 0 : as.adjustments;
+  }
+
+  /**
+   * Returns a description of the most recent decision made by the current
+   * auto-sizing controller, or null if none made (or auto-sizing disabled).
+   * @return A description of the last auto-sizing decision
+   */
+  public final String getLastAutoSizeDecision()
+  {
+    AutoSizer as = autoSizer;
+    return (as == null) ? null : as.lastDecision;
+  }
+
+  /**
+   * Adjusts the {@code maxPool} parameter on behalf of the auto-sizing
+   * controller. Unlike {@link #setParameters(int, int, int, long)} this does
+   * not restart the cleaner thread or reset the hit rate counters.
+   * @param as controller making the adjustment
+   * @param newMax new value for {@code maxPool}
+   * @return true if the adjustment was made, false otherwise
+   */
+  private boolean adjustMaxPool(AutoSizer as, int newMax)
   {
-    return (requests == 0) ? 0f : ((float)(requests - hits) / requests);
+    lock.lock();
+    try
+    {
+      // Check parameters still valid, as may have been changed since assessment.
+      if (released || autoSizer != as || newMax < minPool || (maxSize > 0 && newMax > maxSize))
+        return false;
+      this.maxPool = newMax;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+    firePoolEvent(ObjectPoolEvent.Type.PARAMETERS_CHANGED);
+    return true;
   }
 
   /**
    * Resets the counters for determining the pool's hit/miss rates.
    */
-  public final synchronized void resetHitCounter()
+  public final void resetHitCounter()
   {
-    requests = hits = 0;
+    requests.reset();
+    hits.reset();
   }
 
   /**
    * Sets the pool selection strategy.
    * @param selection selection strategy
    */
-  public final synchronized void setSelectionStrategy(Strategy selection)
+  public final void setSelectionStrategy(Strategy selection)
   {
     if (selection == null)
     {
@@ -1208,19 +3700,16 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
     {
       this.selection = selection;
     }
-    if (this.selection == Strategy.SELECT_RANDOM && this.randGen == null)
-      randGen = new Random();
   }
 
   /**
    * Returns the class to use for the pool collection.
-   * This can be over-ridden by a sub-class to provide a different List
-   * type for the pool, which may give performance benefits in certain situations.
-   * Only instances of {@link List} collections should be used.
-   * (Default: {@code java.util.ArrayList} class)
-   * For reference, pool items are checked-in to the tail end of the list.
+   * Pooled items are now held in a non-blocking collection internal to
+   * the pool, so the value returned by this method is no longer used.
    * @return The class to use for the pool collection
+   * @deprecated No longer used; pooled items are held in a non-blocking collection
    */
+  @Deprecated
   protected Class<? extends List> getPoolClass()
   {
     return ArrayList.class;
@@ -1232,15 +3721,22 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
   public final void flush()
   {
     int count = 0;
-    synchronized(this)
+    lock.lock();
+    try
     {
       TimeWrapper<T> tw = null;
-      for (Iterator<TimeWrapper<T>> iter = free.iterator(); iter.hasNext();)
+      for (Deque<TimeWrapper<T>> stripe : stripes)
       {
-        tw = iter.next();
-        iter.remove();
-        destroyObject(tw.getObject());
-        count++;
+        while ((tw = stripe.pollFirst()) != null)
+        {
+          tw.clearEnqueued();
+          if (!tw.retire())
+            continue;
+          freeCount.decrementAndGet();
+          size.decrementAndGet();
+          destroyObject(tw.getObject());
+          count++;
+        }
       }
       if (count > 0)
         log_debug("Flushed all spare items from pool");
@@ -1250,31 +3746,240 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
       if (idleTimeout == 0 && minPool > 0)
         init();
     }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Validates idle objects in the pool.
+   * This method is called by the cleaner thread to validate idle items.
+   * Each free item which has not been used or validated within the idle
+   * validation interval is claimed (temporarily removing it from use),
+   * validated, then either returned to the pool or destroyed.
+   * This method must be called without holding the pool's lock.
+   * @return number of invalid items destroyed
+   */
+  final int validateIdle()
+  {
+    long interval = idleValidationInterval;
+    if (interval <= 0 || released)
+      return 0;
+    long now = System.currentTimeMillis();
+    List<TimeWrapper<T>> due = new ArrayList<>();
+    for (Deque<TimeWrapper<T>> stripe : stripes)
+    {
+      for (Iterator<TimeWrapper<T>> iter = stripe.iterator(); iter.hasNext();)
+      {
+        TimeWrapper<T> tw = iter.next();
+        if (tw.getState() != TimeWrapper.FREE)
+          unlink(stripe, iter, tw);
+        else if (now - Math.max(tw.getAccessed(), tw.getValidated()) >= interval)
+          due.add(tw);
+      }
+    }
+    if (due.isEmpty())
+      return 0;
+    log_trace("Validating " + due.size() + " idle items");
+    int count = 0;
+    for (TimeWrapper<T> tw : due)
+    {
+      // Claiming the item ensures it is not concurrently checked-out;
+      // it remains in the free list until polled (as with thread-affinity).
+      if (released || !tw.claim())
+        continue;
+      freeCount.decrementAndGet();
+      T o = tw.getObject();
+      if (!released && validateTimed(o))
+      {
+        tw.updateValidated();
+        if (handOff(tw))
+          continue;
+        freeCount.incrementAndGet();
+        tw.setState(TimeWrapper.FREE);
+        if (tw.markEnqueued())
+          homeStripe().addLast(tw);
+      }
+      else
+      {
+        tw.setState(TimeWrapper.REMOVED);
+        size.decrementAndGet();
+        destroyObject(o);
+        if (released)
+          continue;
+        log_info("Removed invalid idle item from pool");
+        firePoolEvent(ObjectPoolEvent.Type.VALIDATION_ERROR);
+        count++;
+      }
+      // Notify waiting threads of available item/capacity.
+      notifyWaiters();
+    }
+    return count;
+  }
+
+  /**
+   * Reports items which have been checked out for longer than the leak
+   * detection threshold, and reclaims them if enabled.
+   * This method is called by the cleaner, without holding the pool's lock.
+   * @return number of items reclaimed
+   */
+  final int detectLeaks()
+  {
+    final long threshold = leakDetectionThreshold;
+    if (threshold <= 0 || released)
+      return 0;
+    final long now = System.nanoTime();
+    final long limit = TimeUnit.MILLISECONDS.toNanos(threshold);
+    int count = 0;
+    for (Map.Entry<T,TimeWrapper<T>> entry : used.entrySet())
+    {
+      TimeWrapper<T> tw = entry.getValue();
+      long t = tw.getCheckOutTime();
+      if (t == 0 || now - t < limit)
+        continue;
+      T o = entry.getKey();
+      boolean reclaim = reclaimLeaks;
+      if (tw.markLeakReported())
+      {
+        leaks.increment();
+        String msg = "Possible leak detected: item checked out for " + TimeUnit.NANOSECONDS.toMillis(now - t) + "ms" + (reclaim ? " (reclaiming)" : "");
+        Throwable trace = tw.getCheckOutTrace();
+        if (trace != null)
+          log_warn(msg, trace);
+        else
+          log_warn(msg + " (no stack trace sampled)");
+      }
+      // Removal ensures the item is not concurrently checked in.
+      if (reclaim && used.remove(o, tw))
+      {
+        releaseTag(o);
+        tw.setState(TimeWrapper.REMOVED);
+        size.decrementAndGet();
+        try
+        {
+          reclaim(o);
+        }
+        catch (RuntimeException rx)
+        {
+          log_warn("Error reclaiming leaked item", rx);
+        }
+        destroyObject(o);
+        reclaims.increment();
+        count++;
+        // Notify waiting threads of available capacity.
+        notifyWaiters();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Removes the entry of an item which is no longer free from a free list.
+   * Items claimed by thread-affinity or idle validation remain in the free
+   * list until polled, so their entries would otherwise accumulate once
+   * the items are destroyed. If the item is concurrently returned to the
+   * free list (relying on the entry being removed), it is added again.
+   * @param stripe stripe of the free list containing the entry
+   * @param iter iterator positioned at the entry
+   * @param tw wrapper of item
+   */
+  private void unlink(Deque<TimeWrapper<T>> stripe, Iterator<TimeWrapper<T>> iter, TimeWrapper<T> tw)
+  {
+    tw.clearEnqueued();
+    iter.remove();
+    if (tw.getState() == TimeWrapper.FREE && tw.markEnqueued())
+      stripe.addLast(tw);
   }
 
   /**
    * Purges expired objects from the pool.
    * This method is called by the cleaner thread to purge expired items.
+   * As free items are held in order of return, only those returned more
+   * than idleTimeout ago are examined, so the cost is proportional to the
+   * number of expired items rather than the size of the pool.
+   * Entries of items no longer free (claimed by thread-affinity or idle
+   * validation, which remain in the free list until polled) are also
+   * unlinked, scanning all free items if thread-affinity is enabled.
    * @return false if pool is empty after purging (no further purge required until items added), true otherwise
    */
-  final synchronized boolean purge()
+  final boolean purge()
   {
-    log_trace("Checking for expired items");
-    if (free.isEmpty())
-      return false;
-    int count = 0;
-    TimeWrapper<T> tw = null;
-    for (Iterator<TimeWrapper<T>> iter = free.iterator(); iter.hasNext();)
+    lock.lock();
+    try
     {
-      tw = iter.next();
-      if (tw.isExpired())
+      log_trace("Checking for expired items");
+      final long now = System.currentTimeMillis();
+      final long idle = idleTimeout;
+      // Checking for items exceeding their maximum lifetime requires a full
+      // scan of the free items, so is only done occasionally (such that items
+      // are retired within 1% of their maximum lifetime).
+      final long lifetime = maxLifetime;
+      final boolean checkLifetime = lifetime > 0 && now >= nextLifetimeCheck;
+      if (checkLifetime)
+        nextLifetimeCheck = now + Math.max((long)(lifetime * LIFETIME_JITTER / 10), 1);
+      int count = 0;
+      boolean empty = true;
+      for (Deque<TimeWrapper<T>> stripe : stripes)
       {
-        iter.remove();
-        destroyObject(tw.getObject());
-        count++;
+        TimeWrapper<T> tw = null;
+        // Items are held in order of being added to the free list, and cannot
+        // expire until at least idleTimeout after being added, so only the
+        // prefix of items added earlier than that need be checked.
+        // (An item re-added after idle validation retains its earlier expiry,
+        // so may be purged up to idleTimeout late, which is harmless.)
+        for (Iterator<TimeWrapper<T>> iter = stripe.iterator(); iter.hasNext() && idle > 0;)
+        {
+          tw = iter.next();
+          if (tw.getState() != TimeWrapper.FREE)
+          {
+            unlink(stripe, iter, tw);
+            continue;
+          }
+          if (tw.getQueuedTime() + idle > now)
+            break;
+          // Expired items are retained as required to maintain minIdle.
+          if (freeCount.get() <= minIdle)
+            break;
+          // Retiring the item ensures it is not concurrently checked-out.
+          if (tw.isExpired() && tw.retire())
+          {
+            iter.remove();
+            freeCount.decrementAndGet();
+            size.decrementAndGet();
+            destroyObject(tw.getObject());
+            count++;
+          }
+        }
+        if (checkLifetime || threadAffinity)
+        {
+          for (Iterator<TimeWrapper<T>> iter = stripe.iterator(); iter.hasNext();)
+          {
+            tw = iter.next();
+            if (tw.getState() != TimeWrapper.FREE)
+            {
+              unlink(stripe, iter, tw);
+              continue;
+            }
+            // Items exceeding their maximum lifetime are retired regardless of minIdle.
+            if (checkLifetime && tw.isLifetimeExpired() && tw.retire())
+            {
+              iter.remove();
+              freeCount.decrementAndGet();
+              size.decrementAndGet();
+              destroyObject(tw.getObject());
+              count++;
+            }
+          }
+        }
+        empty &= stripe.isEmpty();
       }
+      return !empty || count > 0;
+    }
+    finally
+    {
+      lock.unlock();
     }
-    return free.size() > 0 || count > 0;
   }
 
   /**
@@ -1285,26 +3990,23 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    */
   @Override
   @SuppressWarnings("unchecked")
-  public synchronized boolean equals(Object o)
+  public boolean equals(Object o)
   {
     if (o == null)
       return false;
     if (getClass() != o.getClass())
       return false;
     final ObjectPool<T> op = (ObjectPool<T>)o;
-    synchronized (op)
-    {
-      if ((this.name == null) ? (op.name != null) : !this.name.equals(op.name))
-        return false;
-      if (this.minPool != op.minPool)
-        return false;
-      if (this.maxPool != op.maxPool)
-        return false;
-      if (this.maxSize != op.maxSize)
-        return false;
-      if (this.idleTimeout != op.idleTimeout)
-        return false;
-    }
+    if ((this.name == null) ? (op.name != null) : !this.name.equals(op.name))
+      return false;
+    if (this.minPool != op.minPool)
+      return false;
+    if (this.maxPool != op.maxPool)
+      return false;
+    if (this.maxSize != op.maxSize)
+      return false;
+    if (this.idleTimeout != op.idleTimeout)
+      return false;
     return true;
   }
 
@@ -1313,7 +4015,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * This implementation hashes on the pool name.
    */
   @Override
-  public synchronized int hashCode()
+  public int hashCode()
   {
     int hash = 7;
     hash = 29 * hash + (this.name != null ? this.name.hashCode() : 0);
@@ -1327,7 +4029,7 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
    * @param pool pool to compare against this instance
    */
   @Override
-  public synchronized int compareTo(ObjectPool<T> pool)
+  public int compareTo(ObjectPool<T> pool)
   {
     if (pool == null)
       throw new NullPointerException("Invalid pool specified: null");
@@ -1377,27 +4079,37 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
   {
     if (listeners.isEmpty())
       return;
-    ObjectPoolEvent<T> poolEvent = null;
     // Setup event dispatch thread if necessary.
-    if (eventDispatcher == null)
+    EventDispatcher<ObjectPoolListener<T>,ObjectPoolEvent<T>> ed = eventDispatcher;
+    if (ed == null)
     {
-      eventDispatcher = new EventDispatcher<>(listeners, new Notifier<T>());
-      eventDispatcher.start();
-    }
-    // Dispatch event.
-    synchronized (this)
-    {
-      poolEvent = new ObjectPoolEvent<>(this, type);
-      poolEvent.setMinPool(getMinPool());
-      poolEvent.setMaxPool(getMaxPool());
-      poolEvent.setMaxSize(getMaxSize());
-      poolEvent.setIdleTimeout(getIdleTimeout());
-      poolEvent.setCheckOut(getCheckedOut());
-      poolEvent.setFreeCount(getFreeCount());
-      poolEvent.setSize(getSize());
-      poolEvent.setPoolHitRate(getPoolHitRate());
+      lock.lock();
+      try
+      {
+        if ((ed = eventDispatcher) == null)
+        {
+          ed = new EventDispatcher<>(listeners, new Notifier<T>());
+          ed.start();
+          eventDispatcher = ed;
+        }
+      }
+      finally
+      {
+        lock.unlock();
+      }
     }
-    eventDispatcher.dispatchEvent(poolEvent);
+    // Dispatch event (values are read without locking, so may be
+    // marginally inconsistent if the pool is being concurrently used).
+    ObjectPoolEvent<T> poolEvent = new ObjectPoolEvent<>(this, type);
+    poolEvent.setMinPool(getMinPool());
+    poolEvent.setMaxPool(getMaxPool());
+    poolEvent.setMaxSize(getMaxSize());
+    poolEvent.setIdleTimeout(getIdleTimeout());
+    poolEvent.setCheckOut(getCheckedOut());
+    poolEvent.setFreeCount(getFreeCount());
+    poolEvent.setSize(getSize());
+    poolEvent.setPoolHitRate(getPoolHitRate());
+    ed.dispatchEvent(poolEvent);
   }
 
   /**
@@ -1410,19 +4122,15 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
   {
     if (listeners.isEmpty())
       return;
-    ObjectPoolEvent<T> poolEvent = null;
-    synchronized (this)
-    {
-      poolEvent = new ObjectPoolEvent<>(this, ObjectPoolEvent.Type.POOL_RELEASED);
-      poolEvent.setMinPool(getMinPool());
-      poolEvent.setMaxPool(getMaxPool());
-      poolEvent.setMaxSize(getMaxSize());
-      poolEvent.setIdleTimeout(getIdleTimeout());
-      poolEvent.setCheckOut(getCheckedOut());
-      poolEvent.setFreeCount(getFreeCount());
-      poolEvent.setSize(getSize());
-      poolEvent.setPoolHitRate(getPoolHitRate());
-    }
+    ObjectPoolEvent<T> poolEvent = new ObjectPoolEvent<>(this, ObjectPoolEvent.Type.POOL_RELEASED);
+    poolEvent.setMinPool(getMinPool());
+    poolEvent.setMaxPool(getMaxPool());
+    poolEvent.setMaxSize(getMaxSize());
+    poolEvent.setIdleTimeout(getIdleTimeout());
+    poolEvent.setCheckOut(getCheckedOut());
+    poolEvent.setFreeCount(getFreeCount());
+    poolEvent.setSize(getSize());
+    poolEvent.setPoolHitRate(getPoolHitRate());
     // No copy of listeners needs to be taken as the collection is thread-safe.
     for (ObjectPoolListener<T> listener : listeners)
     {
@@ -1439,42 +4147,48 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
 
 
   /**
-   * Thread to perform clean-up of expired objects in pool.
-   * Each time nothing is cleaned because the pool is empty the cleaner waits
-   * until an item is returned, when it is woken up and starts cleaning again.
+   * Task to perform clean-up of expired objects in pool, which is run
+   * periodically by the shared {@link Housekeeper}.
    */
-  private final class Cleaner extends Thread
+  private final class Cleaner implements Runnable
   {
     /** Reference to the pool instance to be cleaned. */
     private final ObjectPool<T> pool;
     /** Cleaning period/interval (milliseconds). */
-    private long interval;
+    private final long interval;
+    /** Scheduled task running this cleaner. */
+    private ScheduledFuture<?> task;
     /** Flag determining whether the cleaner has been stopped. */
     private volatile boolean stopped;
+    /** Flag indicating whether the pool may contain items requiring cleaning. */
+    private boolean purged;
 
     private Cleaner(ObjectPool<T> pool, long interval)
     {
       assert pool != null && interval > 0;
-      this.setName("Cleaner-thread-" + Integer.toString(cleanerCount++));
       this.pool = pool;
       this.interval = interval;
-      this.setDaemon(true);
+      // Initialize test condition based on current items.
+      this.purged = pool.getSize() > 0;
     }
 
-    @Override
-    public void start()
+    /**
+     * Starts periodic execution of this cleaner.
+     */
+    private void start()
     {
       stopped = false;
-      super.start();
+      task = Housekeeper.scheduleWithFixedDelay(this, interval, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Halts this thread (use instead of {@link #stop()}).
+     * Halts this cleaner.
      */
-    public void halt()
+    private void halt()
     {
       stopped = true;
-      this.interrupt();
+      if (task != null)
+        task.cancel(false);
     }
 
     /**
@@ -1483,149 +4197,422 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
     @Override
     public void run()
     {
-      // Initialize test condition based on current items.
       // Cleaner MUST be configured to NOT call init() during initial creation
       // of a pool, otherwise item creation could be requested before
       // sub-class constructor has completed.
-      boolean purged = getSize() > 0;
-      // Loop while the cleaner is valid.
-      while (!stopped)
+      try
       {
-        synchronized(pool)
+        pool.lock.lock();
+        try
         {
-          if (pool.cleaner != Thread.currentThread())
-            stopped = true;
-          else
+          if (pool.cleaner != this)
+            halt();
+          // If nothing purged & nothing to monitor, wait for items.
+          else if (!stopped && (purged || pool.getSize() > 0))
           {
-            // If nothing purged & nothing to monitor, wait for notification.
-            if (!purged && pool.getSize() == 0)
-            {
-              try { pool.wait(); }
-              catch (InterruptedException ix) {}  // Ignore interruptions.
-            }
-            if (!stopped)
-            {
-              // Purge expired items from pool.
-              purged = pool.purge();
-              // Repopulate pool as necessary.
-              pool.init();
-            }
+            // Purge expired items from pool.
+            purged = pool.purge();
+            // Repopulate pool as necessary.
+            pool.init();
           }
         }
-        if (!stopped)
+        finally
         {
-          try
-          {
-            sleep(interval);
-          }
-          catch (InterruptedException ix)
-          {
-            // No need to catch, as just loops around again.
-          }
+          pool.lock.unlock();
         }
+        // Validate idle items (without holding lock, as may be slow).
+        if (!stopped)
+          pool.validateIdle();
+        // Report/reclaim leaked items.
+        if (!stopped)
+          pool.detectLeaks();
+      }
+      catch (RuntimeException rx)
+      {
+        // Must not propagate, as would prevent further cleaning.
+        log_warn("Error during pool cleaning", rx);
       }
     }
   }
 
+  /**
+   * Controller for automatic adjustment of the {@code maxPool} parameter.
+   * This is run periodically by the shared {@link Housekeeper}, so must not block.
+   */
+  private final class AutoSizer implements Runnable
+  {
+    /** Utilization level above which creation of new items indicates pressure. */
+    private static final double HIGH_UTILIZATION = 0.9;
+    /** Utilization level below which the pool may be reduced. */
+    private static final double LOW_UTILIZATION = 0.5;
+    /** Number of consecutive assessments required to increase {@code maxPool}. */
+    private static final int GROW_SAMPLES = 2;
+    /** Number of consecutive assessments required to decrease {@code maxPool}. */
+    private static final int SHRINK_SAMPLES = 5;
+    /** Lower bound for {@code maxPool}. */
+    private final int lower;
+    /** Upper bound for {@code maxPool}. */
+    private final int upper;
+    /** Average wait time above which to increase {@code maxPool} (nanoseconds). */
+    private final long waitThreshold;
+    /** Scheduled task running this controller. */
+    private ScheduledFuture<?> task;
+    /** Counter values at previous assessment. */
+    private long lastRequests, lastWaitTime, lastCreations;
+    /** Number of consecutive assessments indicating increase/decrease. */
+    private int growCount, shrinkCount;
+    /** Number of adjustments made. */
+    private volatile int adjustments;
+    /** Description of the last decision made. */
+    private volatile String lastDecision;
+
+    private AutoSizer(int lower, int upper, long waitThreshold)
+    {
+      this.lower = lower;
+      this.upper = upper;
+      this.waitThreshold = TimeUnit.MILLISECONDS.toNanos(waitThreshold);
+      this.lastRequests = requests.sum();
+      this.lastWaitTime = waitTime.sum();
+      this.lastCreations = creations.sum();
+    }
+
+    @Override
+    public void run()
+    {
+      if (released)
+        return;
+      // Sample counters since previous assessment.
+      long req = requests.sum(), wt = waitTime.sum(), cr = creations.sum();
+      long dReq = req - lastRequests, dWait = wt - lastWaitTime, dCreated = cr - lastCreations;
+      lastRequests = req;
+      lastWaitTime = wt;
+      lastCreations = cr;
+      // Note: hit counters may be reset, so guard against negative values.
+      long avgWait = (dReq > 0 && dWait > 0) ? dWait / dReq : 0;
+      int max = maxPool;
+      double util = (max > 0) ? (double)getCheckedOut() / max : 1.0;
+
+      if ((dWait > 0 && avgWait >= waitThreshold) || (dCreated > 0 && util >= HIGH_UTILIZATION))
+      {
+        shrinkCount = 0;
+        if (++growCount >= GROW_SAMPLES && max < upper)
+        {
+          int newMax = Math.min(upper, max + Math.max(1, max / 4));
+          String reason = String.format("increased maxPool %d->%d (avgWait=%dms, utilization=%.2f, created=%d)", max, newMax, TimeUnit.NANOSECONDS.toMillis(avgWait), util, dCreated);
+          adjust(newMax, reason);
+        }
+      }
+      else if (dWait <= 0 && dCreated == 0 && util < LOW_UTILIZATION)
+      {
+        growCount = 0;
+        if (++shrinkCount >= SHRINK_SAMPLES && max > lower)
+        {
+          int newMax = Math.max(lower, max - Math.max(1, max / 8));
+          String reason = String.format("decreased maxPool %d->%d (utilization=%.2f)", max, newMax, util);
+          adjust(newMax, reason);
+        }
+      }
+      else
+      {
+        growCount = 0;
+        shrinkCount = 0;
+      }
+    }
+
+    /**
+     * Applies an adjustment to {@code maxPool}, and records the decision.
+     */
+    private void adjust(int newMax, String reason)
+    {
+      growCount = 0;
+      shrinkCount = 0;
+      if (adjustMaxPool(this, newMax))
+      {
+        adjustments++;
+        lastDecision = reason;
+        log_info("Auto-sizing " + reason);
+      }
+    }
+  }
 
   /**
-   * Thread to initialize items in pool.
-   * This thread simply performs a check-out/in of new items up to the specified
-   * number to ensure the pool is populated.
+   * Task to initialize items in pool, which is run by the bounded item
+   * creation executor of the {@link Housekeeper} (not by its shared
+   * scheduler, as creation may block).
+   * This task simply performs a check-out/in of new items up to the specified
+   * number to ensure the pool is populated. If the initialization parallelism
+   * is greater than one, multiple tasks are used to create items
+   * concurrently, each item being added to the pool as soon as it is ready.
    * Note that the number of items specified for initialization is the final
    * number of free items required in the pool, not the number to initialize.
    * If free items already exist in the pool, these are included in the count.
    */
-  private final class InitThread extends Thread
+  private final class Initializer
   {
     /** Reference to the pool instance to be cleaned. */
     private final ObjectPool<T> pool;
     /** Number of items to initialize. */
     private final int num;
-    /** Flag determining whether the init thread has been stopped. */
+    /** Number of tasks with which to create items. */
+    private final int parallelism;
+    /** Flag determining whether only maintaining free items (minIdle). */
+    private final boolean idle;
+    /** Number of tasks still running. */
+    private final AtomicInteger running = new AtomicInteger();
+    /** Number of items created. */
+    private final AtomicInteger created = new AtomicInteger();
+    /** Number of items currently being created. */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** Flag determining whether the initializer has been stopped. */
     private volatile boolean stopped = false;
-    /** Flag determining whether the init thread has been completed working. */
+    /** Flag determining whether the initializer has been completed working. */
     private volatile boolean done = false;
 
-    private InitThread(ObjectPool<T> pool, int num)
+    private Initializer(ObjectPool<T> pool, int num, boolean idle)
     {
       assert pool != null;
-      assert num >= 0 && (num <= pool.getMaxSize() || getMaxSize() == 0);
+      assert idle || (num >= 0 && (num <= pool.getMaxSize() || getMaxSize() == 0));
       this.pool = pool;
-      // If items can expire, then allow initialization up to maxSize,
+      // If maintaining free items (minIdle) allow creation up to maxSize.
+      // Otherwise, if items can expire, then allow initialization up to maxSize,
       // otherwise only allow up to maxPool.
-      if (pool.getIdleTimeoutUnadjusted() > 0)
+      if (idle)
+        this.num = (getMaxSize() > 0) ? Math.min(getMaxSize(), Math.max(num, 0)) : Math.max(num, 0);
+      else if (pool.getIdleTimeoutUnadjusted() > 0)
         this.num = Math.min(getMaxSize(), Math.max(num, 0));
       else
         this.num = Math.min(getMaxPool(), Math.max(num, 0));
-      this.setDaemon(true);
+      this.parallelism = pool.initParallelism;
+      this.idle = idle;
     }
 
     /**
-     * Halts this thread (use instead of {@link #stop()}).
+     * Halts this initializer.
      */
-    public void halt()
+    private void halt()
     {
       stopped = true;
     }
 
     /**
-     * Populates the pool with the given number of items.
+     * Starts tasks to populate the pool with the given number of items.
      * If the pool already contains used items then they will be counted
-     * towards the number created by this method.
+     * towards the number created.
      */
-    @Override
-    public void run()
+    private void start()
     {
-      int count = 0;
+      int n = Math.max(Math.min(parallelism, num), 1);
+      running.set(n);
+      for (int i = 0; i < n; i++)
+        Housekeeper.executeCreate(this::run);
+    }
+
+    /**
+     * Populates the pool, then (for the last task to finish) performs
+     * completion of the initialization.
+     */
+    private void run()
+    {
+      populate();
+      if (running.decrementAndGet() > 0)
+        return;
+      if (!stopped && done)
+      {
+        int count = created.get();
+        log_debug("Initialized pool with " + count + (count != 1 ? " new items" : " new item"));
+        firePoolEvent(ObjectPoolEvent.Type.INIT_COMPLETED);
+      }
+      pool.lock.lock();
+      try
+      {
+        if (pool.initer == this)
+          pool.initer = null;
+      }
+      finally
+      {
+        pool.lock.unlock();
+      }
+      // Top-up free items (if required) once initialization has finished.
+      if (!idle && !stopped)
+        pool.replenish();
+    }
 
+    /**
+     * Creates items and adds them to the pool until the required number of
+     * items is reached, or initialization is stopped.
+     * This method may be called concurrently by multiple threads.
+     */
+    private void populate()
+    {
+      // Items are created without holding the pool's lock,
+      // so check-outs/check-ins may proceed concurrently.
       while (!stopped && !done)
       {
-        synchronized(pool)
+        if (pool.initer != this)
+        {
+          stopped = true;
+          continue;
+        }
+        // Items currently being created count towards the number required.
+        int n = inFlight.incrementAndGet();
+        try
         {
-          if (pool.initer != Thread.currentThread())
+          if (created.get() + n > num || getFreeCount() + n > num)
           {
-            stopped = true;
+            done = true;
             continue;
           }
-          if (count >= num || getFreeCount() >= num || (getMaxSize() > 0 && getSize() >= getMaxSize()))
+          if (pool.reserveCapacity() < 0)
+          {
             done = true;
-          if (!stopped && !done)
+            continue;
+          }
+          T o = pool.createReserved();
+          if (pool.released)
           {
-            try
-            {
-              T o = create();
-              if (!isValid(o))
-              {
-                firePoolEvent(ObjectPoolEvent.Type.VALIDATION_ERROR);
-                throw new RuntimeException("Unable to create a valid item");
-              }
-              else
-              {
-                free.add(new TimeWrapper<>(o, pool.idleTimeout));
-                pool.notifyAll();
-                count++;
-                log_debug("Initialized new item in pool");
-              }
-            }
-            catch (Exception ex)
-            {
-              log_warn("Unable to initialize items in pool", ex);
-              stopped = true;
-            }
+            // Pool released during creation, so discard the new item.
+            size.decrementAndGet();
+            destroyObject(o);
+            stopped = true;
+            continue;
           }
+          TimeWrapper<T> tw = pool.wrap(o, pool.idleTimeout);
+          freeCount.incrementAndGet();
+          tw.markEnqueued();
+          Deque<TimeWrapper<T>>[] s = pool.stripes;
+          int k = Math.min(pool.stripeCount, s.length);
+          s[(nextStripe.getAndIncrement() & Integer.MAX_VALUE) % k].addLast(tw);
+          pool.notifyWaiters();
+          created.incrementAndGet();
+          log_debug("Initialized new item in pool");
         }
-      }
-      synchronized(pool)
-      {
-        if (!stopped && done)
+        catch (Exception ex)
         {
-          log_debug("Initialized pool with " + count + (count != 1 ? " new items" : " new item"));
-          firePoolEvent(ObjectPoolEvent.Type.INIT_COMPLETED);
+          log_warn("Unable to initialize items in pool", ex);
+          stopped = true;
         }
-        if (pool.initer != Thread.currentThread())
-          pool.initer = null;
+        finally
+        {
+          inFlight.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  /**
+   * Thread or asynchronous request waiting in the queue to check out an item.
+   * A waiter is removed from the queue by the thread which either hands over
+   * an item to it, or wakes it to try again (e.g. when capacity to create a
+   * new item becomes available). Changes of state are made atomically, so
+   * that a waiter which gives up waiting cannot also be handed an item.
+   * An asynchronous waiter has no thread, but instead a future to complete.
+   */
+  private static final class Waiter<T>
+  {
+    /** State value for a waiter which is waiting. */
+    private static final int WAITING = 0;
+    /** State value for a waiter which has been handed an item. */
+    private static final int SATISFIED = 1;
+    /** State value for a waiter which has been woken to try again. */
+    private static final int SIGNALLED = 2;
+    /** State value for a waiter which has stopped waiting. */
+    private static final int CANCELLED = 3;
+    /** Atomic updater for the {@code state} field. */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Waiter> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Waiter.class, "state");
+    /** Waiting thread (null for asynchronous waiter). */
+    private final Thread thread;
+    /** Future to complete (asynchronous waiter only). */
+    private final CompletableFuture<T> future;
+    /** Deadline for waiting (as {@link System#nanoTime()} value). */
+    private final long deadline;
+    /** Priority of the check-out. */
+    private final Priority priority;
+    /** Current state of the waiter. */
+    private volatile int state = WAITING;
+    /** Item handed over to the waiter. */
+    private volatile TimeWrapper<T> item;
+
+    private Waiter(Thread thread, CompletableFuture<T> future, long deadline, Priority priority)
+    {
+      this.thread = thread;
+      this.future = future;
+      this.deadline = deadline;
+      this.priority = priority;
+    }
+
+    /**
+     * Hands over an item to this waiter, waking the waiting thread.
+     * @param tw wrapper of item to hand over
+     * @return true if the item was handed over, false if no longer waiting
+     */
+    boolean offer(TimeWrapper<T> tw)
+    {
+      if (future != null && future.isDone())
+        return false;
+      item = tw;
+      if (STATE.compareAndSet(this, WAITING, SATISFIED))
+      {
+        if (thread != null)
+          LockSupport.unpark(thread);
+        return true;
+      }
+      item = null;
+      return false;
+    }
+
+    /**
+     * Wakes the waiting thread to try again.
+     * @return true if the thread was woken, false if no longer waiting
+     */
+    boolean signal()
+    {
+      if (STATE.compareAndSet(this, WAITING, SIGNALLED))
+      {
+        if (thread != null)
+          LockSupport.unpark(thread);
+        return true;
       }
+      return false;
+    }
+
+    /**
+     * Resets this waiter to waiting after being woken to try again.
+     * @return true if the waiter had been woken to try again, false otherwise
+     */
+    boolean rearm()
+    {
+      return STATE.compareAndSet(this, SIGNALLED, WAITING);
+    }
+
+    /**
+     * Stops this waiter from waiting.
+     * @return true if cancelled, false if already handed an item or woken
+     */
+    boolean cancel()
+    {
+      return STATE.compareAndSet(this, WAITING, CANCELLED);
+    }
+
+    /**
+     * @return true if an item has been handed over to this waiter
+     */
+    boolean isSatisfied()
+    {
+      return state == SATISFIED;
+    }
+
+    /**
+     * Takes the item handed over to this waiter, resetting it to waiting.
+     * @return wrapper of item handed over
+     */
+    TimeWrapper<T> take()
+    {
+      TimeWrapper<T> tw = item;
+      item = null;
+      state = WAITING;
+      return tw;
     }
   }
 
@@ -1686,6 +4673,9 @@ public abstract class ObjectPool<T extends Reusable> implements Comparable<Objec
           case MAX_SIZE_LIMIT_ERROR:
             opl.maxSizeLimitError(evt);
             break;
+          case CHECKOUT_REJECTED:
+            opl.checkOutRejected(evt);
+            break;
           case PARAMETERS_CHANGED:
             opl.poolParametersChanged(evt);
             break;
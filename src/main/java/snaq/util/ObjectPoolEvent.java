@@ -60,6 +60,7 @@ public class ObjectPoolEvent<T extends Reusable> extends EventObject
     MAX_POOL_LIMIT_EXCEEDED,
     MAX_SIZE_LIMIT_REACHED,
     MAX_SIZE_LIMIT_ERROR,
+    CHECKOUT_REJECTED,
     PARAMETERS_CHANGED,
     POOL_FLUSHED,
     POOL_RELEASED
@@ -137,6 +138,7 @@ public class ObjectPoolEvent<T extends Reusable> extends EventObject
   public boolean isMaxPoolLimitExceeded() { return type == Type.MAX_POOL_LIMIT_EXCEEDED; }
   public boolean isMaxSizeLimitReached() { return type == Type.MAX_SIZE_LIMIT_REACHED; }
   public boolean isMaxSizeLimitError() { return type == Type.MAX_SIZE_LIMIT_ERROR; }
+  public boolean isCheckOutRejected() { return type == Type.CHECKOUT_REJECTED; }
   public boolean isPoolParametersChanged() { return type == Type.PARAMETERS_CHANGED; }
   public boolean isPoolFlushed() { return type == Type.POOL_FLUSHED; }
   public boolean isPoolReleased() { return type == Type.POOL_RELEASED; }
@@ -87,6 +87,11 @@ public class ObjectPoolEventAdapter<E extends Reusable> implements ObjectPoolLis
   {
   }
 
+  @Override
+  public void checkOutRejected(ObjectPoolEvent<E> evt)
+  {
+  }
+
   @Override
   public void poolParametersChanged(ObjectPoolEvent<E> evt)
   {
@@ -97,6 +97,16 @@ public interface ObjectPoolListener<E extends Reusable> extends EventListener
    */
   void maxSizeLimitError(ObjectPoolEvent<E> evt);
 
+  /**
+   * Called when a check-out request is rejected as the pool is overloaded.
+   * (The default implementation does nothing, for compatibility with
+   * existing implementations.)
+   * @param evt event instance
+   */
+  default void checkOutRejected(ObjectPoolEvent<E> evt)
+  {
+  }
+
   /**
    * Called when the pool's parameters are changed.
    * @param evt event instance
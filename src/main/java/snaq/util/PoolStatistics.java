@@ -0,0 +1,206 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+/**
+ * Immutable snapshot of the statistics of an {@link ObjectPool}.
+ * <p>Snapshots are obtained using {@link ObjectPool#snapshot()}, which reads
+ * the pool's counters without locking, so may be taken at high frequency
+ * (e.g. by monitoring tools) without affecting pool throughput.
+ * As values are read individually, a snapshot of a pool in concurrent use
+ * may be marginally inconsistent (e.g. the number of free and checked-out
+ * items may not exactly sum to the size).</p>
+ *
+ * @see snaq.util.ObjectPool#snapshot()
+ * @author Giles Winstanley
+ */
+public final class PoolStatistics
+{
+  /** Time at which this snapshot was taken. */
+  private final long timestamp;
+  private final int minPool;
+  private final int maxPool;
+  private final int maxSize;
+  private final int size;
+  private final int pending;
+  private final int checkedOut;
+  private final int freeCount;
+  private final int waiting;
+  private final int peakWaiting;
+  private final long requests;
+  private final long hits;
+  private final long creations;
+  private final long destroys;
+  private final long waitTime;
+  private final long destroyTime;
+  private final int pendingDestroys;
+  private final long destroyFallbacks;
+
+  /**
+   * Creates a new snapshot (invoked by {@link ObjectPool#snapshot()}).
+   */
+  PoolStatistics(long timestamp, int minPool, int maxPool, int maxSize,
+                 int size, int pending, int checkedOut, int freeCount,
+                 int waiting, int peakWaiting, long requests, long hits,
+                 long creations, long destroys, long waitTime, long destroyTime,
+                 int pendingDestroys, long destroyFallbacks)
+  {
+    this.timestamp = timestamp;
+    this.minPool = minPool;
+    this.maxPool = maxPool;
+    this.maxSize = maxSize;
+    this.size = size;
+    this.pending = pending;
+    this.checkedOut = checkedOut;
+    this.freeCount = freeCount;
+    this.waiting = waiting;
+    this.peakWaiting = peakWaiting;
+    this.requests = requests;
+    this.hits = hits;
+    this.creations = creations;
+    this.destroys = destroys;
+    this.waitTime = waitTime;
+    this.destroyTime = destroyTime;
+    this.pendingDestroys = pendingDestroys;
+    this.destroyFallbacks = destroyFallbacks;
+  }
+
+  /**
+   * Returns the time at which this snapshot was taken.
+   * @return time at which this snapshot was taken (as {@link System#currentTimeMillis()})
+   */
+  public long getTimestamp() { return timestamp; }
+
+  public int getMinPool() { return minPool; }
+  public int getMaxPool() { return maxPool; }
+  public int getMaxSize() { return maxSize; }
+  public int getSize() { return size; }
+  public int getPendingCount() { return pending; }
+  public int getCheckedOut() { return checkedOut; }
+  public int getFreeCount() { return freeCount; }
+  public int getWaitingCount() { return waiting; }
+  public int getPeakWaitingCount() { return peakWaiting; }
+  public int getPendingDestroyCount() { return pendingDestroys; }
+  public long getDestroyFallbackCount() { return destroyFallbacks; }
+
+  /**
+   * Returns the number of check-out requests made since the pool's creation
+   * or the last call to {@link ObjectPool#resetHitCounter()}.
+   * @return The number of check-out requests
+   */
+  public long getRequestCount() { return requests; }
+
+  /**
+   * Returns the number of check-out requests satisfied by a pooled item,
+   * over the same period as {@link #getRequestCount()}.
+   * @return The number of pool hits
+   */
+  public long getHitCount() { return hits; }
+
+  /**
+   * Returns the number of items created since the pool's creation.
+   * @return The number of items created
+   */
+  public long getCreationCount() { return creations; }
+
+  /**
+   * Returns the number of items destroyed since the pool's creation.
+   * @return The number of items destroyed
+   */
+  public long getDestroyCount() { return destroys; }
+
+  /**
+   * Returns the total time threads have spent waiting to check out items
+   * since the pool's creation (milliseconds).
+   * @return The total wait time (milliseconds)
+   */
+  public long getTotalWaitTime() { return waitTime / 1000000L; }
+
+  /**
+   * Returns hit rate of the pool (between 0 and 1).
+   * @return Hit rate of the pool (between 0 and 1)
+   * @see ObjectPool#getPoolHitRate()
+   */
+  public float getPoolHitRate()
+  {
+    return (requests == 0) ? 0f : ((float)hits / requests);
+  }
+
+  /**
+   * Returns miss rate of the pool (between 0 and 1).
+   * @return Miss rate of the pool (between 0 and 1)
+   * @see ObjectPool#getPoolMissRate()
+   */
+  public float getPoolMissRate()
+  {
+    return (requests == 0) ? 0f : ((float)(requests - hits) / requests);
+  }
+
+  /**
+   * Returns the average time taken to destroy an item (milliseconds).
+   * @return The average time taken to destroy an item (milliseconds), or 0 if none destroyed
+   * @see ObjectPool#getAverageDestroyTime()
+   */
+  public float getAverageDestroyTime()
+  {
+    return (destroys == 0) ? 0f : (float)(destroyTime / 1000000.0 / destroys);
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder();
+    sb.append(getClass().getName());
+    sb.append("[size=");
+    sb.append(size);
+    sb.append(",checkedOut=");
+    sb.append(checkedOut);
+    sb.append(",free=");
+    sb.append(freeCount);
+    sb.append(",pending=");
+    sb.append(pending);
+    sb.append(",waiting=");
+    sb.append(waiting);
+    sb.append(",requests=");
+    sb.append(requests);
+    sb.append(",hitRate=");
+    sb.append(getPoolHitRate());
+    sb.append(']');
+    return sb.toString();
+  }
+}
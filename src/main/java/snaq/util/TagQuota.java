@@ -0,0 +1,286 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Quota and usage statistics for check-outs from an {@link ObjectPool}
+ * carrying a particular tag (for example identifying a tenant or subsystem).
+ * <p>Each tag may have a maximum number of items checked out concurrently,
+ * beyond which further check-outs with the tag wait for an item with the
+ * same tag to be checked in, and a guaranteed minimum number of items,
+ * which is reserved from the pool's capacity for check-outs with the tag.
+ * Instances are created by the pool, either when a quota is set using
+ * {@link ObjectPool#setTagQuota(String, int, int)}, or when an item is
+ * first checked out with a tag (with no limits).</p>
+ *
+ * @see snaq.util.ObjectPool#checkOut(long, ObjectPool.Priority, String)
+ * @author Giles Winstanley
+ */
+public final class TagQuota
+{
+  /** Tag to which this quota applies. */
+  private final String tag;
+  /** Pool's total capacity reserved for unfulfilled guaranteed minimums. */
+  private final AtomicInteger poolShortfall;
+  /** Lock guarding the check-out count and limits. */
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Condition signalled when an item with this tag is checked in, or the limits change. */
+  private final Condition released = lock.newCondition();
+  /** Maximum number of items checked out concurrently (0 = unlimited). */
+  private volatile int maxCheckedOut;
+  /** Guaranteed minimum number of items available (0 = none). */
+  private volatile int minCheckedOut;
+  /** Number of items currently checked out (including those being acquired). */
+  private volatile int checkedOut;
+  /** Maximum number of items observed checked out concurrently. */
+  private volatile int peakCheckedOut;
+  /** Count of number of items checked out. */
+  private final LongAdder checkOuts = new LongAdder();
+  /** Count of number of check-outs which waited for the quota. */
+  private final LongAdder waits = new LongAdder();
+  /** Count of number of check-outs which timed out waiting for the quota. */
+  private final LongAdder timeouts = new LongAdder();
+
+  /**
+   * Creates a new quota (invoked by {@link ObjectPool}).
+   * @param tag tag to which the quota applies
+   * @param poolShortfall pool's counter of capacity reserved for guaranteed minimums
+   */
+  TagQuota(String tag, AtomicInteger poolShortfall)
+  {
+    this.tag = tag;
+    this.poolShortfall = poolShortfall;
+  }
+
+  /**
+   * Sets the limits of this quota.
+   * @param max maximum number of items checked out concurrently (0 = unlimited)
+   * @param min guaranteed minimum number of items (0 = none)
+   */
+  void setLimits(int max, int min)
+  {
+    lock.lock();
+    try
+    {
+      poolShortfall.addAndGet(Math.max(min - checkedOut, 0) - Math.max(minCheckedOut - checkedOut, 0));
+      this.maxCheckedOut = max;
+      this.minCheckedOut = min;
+      released.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Acquires a slot in this quota for the check-out of an item, waiting
+   * until the specified deadline if the maximum is reached.
+   * @param deadline deadline for waiting (as {@link System#nanoTime()} value)
+   * @return true if a slot was acquired, false if timed out
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  boolean acquire(long deadline) throws InterruptedException
+  {
+    lock.lock();
+    try
+    {
+      if (isFull())
+      {
+        waits.increment();
+        do
+        {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0)
+          {
+            timeouts.increment();
+            return false;
+          }
+          released.awaitNanos(remaining);
+        }
+        while (isFull());
+      }
+      // Slots within the guaranteed minimum no longer need reserving.
+      if (checkedOut < minCheckedOut)
+        poolShortfall.decrementAndGet();
+      int n = ++checkedOut;
+      if (n > peakCheckedOut)
+        peakCheckedOut = n;
+      return true;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return true if the maximum number of items are checked out (guarded by lock)
+   */
+  private boolean isFull()
+  {
+    int max = maxCheckedOut;
+    return max > 0 && checkedOut >= max;
+  }
+
+  /**
+   * Records the successful check-out of an item using an acquired slot.
+   */
+  void checkedOut()
+  {
+    checkOuts.increment();
+  }
+
+  /**
+   * Releases a slot in this quota, when an item is checked in (or was not
+   * obtained), waking a thread waiting for the quota.
+   */
+  void release()
+  {
+    lock.lock();
+    try
+    {
+      --checkedOut;
+      if (checkedOut < minCheckedOut)
+        poolShortfall.incrementAndGet();
+      released.signal();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the tag to which this quota applies.
+   * @return The tag to which this quota applies
+   */
+  public String getTag()
+  {
+    return tag;
+  }
+
+  /**
+   * Returns the maximum number of items which may be checked out concurrently with this tag.
+   * @return The maximum number of items (0 = unlimited)
+   */
+  public int getMaxCheckedOut()
+  {
+    return maxCheckedOut;
+  }
+
+  /**
+   * Returns the guaranteed minimum number of items available to check-outs with this tag.
+   * @return The guaranteed minimum number of items (0 = none)
+   */
+  public int getMinCheckedOut()
+  {
+    return minCheckedOut;
+  }
+
+  /**
+   * Returns the number of items currently checked out with this tag
+   * (including those in the process of being checked out).
+   * @return The number of items currently checked out with this tag
+   */
+  public int getCheckedOut()
+  {
+    return checkedOut;
+  }
+
+  /**
+   * Returns the maximum number of items observed checked out concurrently with this tag.
+   * @return The peak number of items checked out with this tag
+   */
+  public int getPeakCheckedOut()
+  {
+    return peakCheckedOut;
+  }
+
+  /**
+   * Returns the number of items checked out with this tag.
+   * @return The number of items checked out with this tag
+   */
+  public long getCheckOutCount()
+  {
+    return checkOuts.sum();
+  }
+
+  /**
+   * Returns the number of check-outs with this tag which waited because
+   * the maximum number of items were checked out.
+   * @return The number of check-outs which waited for the quota
+   */
+  public long getWaitCount()
+  {
+    return waits.sum();
+  }
+
+  /**
+   * Returns the number of check-outs with this tag which timed out waiting
+   * because the maximum number of items were checked out.
+   * @return The number of check-outs which timed out waiting for the quota
+   */
+  public long getTimeoutCount()
+  {
+    return timeouts.sum();
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder();
+    sb.append(tag);
+    sb.append('=');
+    sb.append(checkedOut);
+    sb.append('/');
+    sb.append(maxCheckedOut > 0 ? String.valueOf(maxCheckedOut) : "unlimited");
+    if (minCheckedOut > 0)
+    {
+      sb.append(" (min ");
+      sb.append(minCheckedOut);
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+}
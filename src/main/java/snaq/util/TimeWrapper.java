@@ -37,8 +37,14 @@
  */
 package snaq.util;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Time-tracking wrapper class for an object.
+ * <p>When used by {@link ObjectPool} the same wrapper instance is retained for
+ * the life of the pooled object, and additionally records whether the object
+ * is free, in use, or removed from the pool. Changes of state are made
+ * atomically, which allows an object to be claimed for use without locking.</p>
  * 
  * @param <E> class type of object to wrap
  * @see snaq.util.ObjectPool
@@ -48,10 +54,42 @@ public class TimeWrapper<E>
 {
   /** Object to be held in this wrapper instance. */
   private final E obj;
+  /** Time at which this wrapper was created. */
+  private final long created;
+  /** Time at which this object should be retired, regardless of use (0 = never). */
+  private volatile long retireTime = 0L;
   /** Time at which this object expires. */
-  private long expiryTime = 0L;
+  private volatile long expiryTime = 0L;
   /** Last access time (updated by method call). */
-  private long accessed;
+  private volatile long accessed;
+  /** Last time the object was validated (updated by method call). */
+  private volatile long validated;
+  /** Time at which the object was last checked out (nanoseconds; 0 = not recorded). */
+  private volatile long checkOutTime;
+  /** Stack trace captured when the object was last checked out (null if not captured). */
+  private volatile Throwable checkOutTrace;
+  /** Flag indicating whether the current check-out has been reported as a possible leak. */
+  private volatile boolean leakReported;
+  /** State value for an object which is free for use. */
+  static final int FREE = 0;
+  /** State value for an object which is in use. */
+  static final int IN_USE = 1;
+  /** State value for an object which has been removed from use. */
+  static final int REMOVED = 2;
+  /** Current state of the object (one of {FREE, IN_USE, REMOVED}). */
+  private volatile int state = FREE;
+  /** Flag (0/1) indicating whether this instance is held in a pool's free list. */
+  private volatile int enqueued = 0;
+  /** Time at which this instance was last added to a pool's free list. */
+  private volatile long queuedTime;
+  /** Atomic updater for the {@code state} field. */
+  @SuppressWarnings("rawtypes")
+  private static final AtomicIntegerFieldUpdater<TimeWrapper> STATE =
+          AtomicIntegerFieldUpdater.newUpdater(TimeWrapper.class, "state");
+  /** Atomic updater for the {@code enqueued} field. */
+  @SuppressWarnings("rawtypes")
+  private static final AtomicIntegerFieldUpdater<TimeWrapper> ENQUEUED =
+          AtomicIntegerFieldUpdater.newUpdater(TimeWrapper.class, "enqueued");
 
   /**
    * Creates a new wrapped object.
@@ -62,6 +100,7 @@ public class TimeWrapper<E>
   {
     this.obj = obj;
     this.accessed = System.currentTimeMillis();
+    this.created = this.accessed;
     if (expiry > 0)
       this.expiryTime = this.accessed + expiry;
   }
@@ -81,16 +120,17 @@ public class TimeWrapper<E>
    * Whether this item has expired.
    * @return true if item has expired, false otherwise
    */
-  public synchronized boolean isExpired()
+  public boolean isExpired()
   {
-    return expiryTime > 0 && System.currentTimeMillis() > expiryTime;
+    long t = expiryTime;
+    return t > 0 && System.currentTimeMillis() > t;
   }
 
   /**
    * Sets idle time allowed before this item expires.
    * @param expiryTime idle time before expiry (0 = eternal)
    */
-  synchronized void setLiveTime(long expiry)
+  void setLiveTime(long expiry)
   {
     if (expiry < 0)
       throw new IllegalArgumentException("Invalid expiry time");
@@ -100,10 +140,31 @@ public class TimeWrapper<E>
       this.expiryTime = 0;
   }
 
+  /**
+   * Sets the maximum lifetime of this item, measured from its creation.
+   * @param lifetime lifetime in milliseconds (0 = unlimited)
+   */
+  void setMaxLifetime(long lifetime)
+  {
+    if (lifetime < 0)
+      throw new IllegalArgumentException("Invalid lifetime");
+    this.retireTime = (lifetime > 0) ? created + lifetime : 0;
+  }
+
+  /**
+   * Whether this item has exceeded its maximum lifetime.
+   * @return true if item has exceeded its maximum lifetime, false otherwise
+   */
+  boolean isLifetimeExpired()
+  {
+    long t = retireTime;
+    return t > 0 && System.currentTimeMillis() > t;
+  }
+
   /**
    * Updates the time this object was last accessed.
    */
-  synchronized void updateAccessed()
+  void updateAccessed()
   {
     accessed = System.currentTimeMillis();
   }
@@ -113,8 +174,134 @@ public class TimeWrapper<E>
    * NOTE: this does not update the last access time, which must be done
    * explicitly with the {@link #updateAccessed()} method.
    */
-  synchronized long getAccessed()
+  long getAccessed()
   {
     return accessed;
   }
+
+  /**
+   * Updates the time this object was last validated.
+   */
+  void updateValidated()
+  {
+    validated = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the time this object was last validated (0 if never).
+   */
+  long getValidated()
+  {
+    return validated;
+  }
+
+  /**
+   * Records the check-out of this object.
+   * @param nanos time of check-out (as {@link System#nanoTime()}; 0 = not recorded)
+   * @param trace stack trace of check-out (null if not captured)
+   */
+  void setCheckOut(long nanos, Throwable trace)
+  {
+    checkOutTime = nanos;
+    checkOutTrace = trace;
+    leakReported = false;
+  }
+
+  /**
+   * Returns the time at which this object was checked out (0 if not recorded).
+   */
+  long getCheckOutTime()
+  {
+    return checkOutTime;
+  }
+
+  /**
+   * Returns the stack trace captured when this object was checked out (null if not captured).
+   */
+  Throwable getCheckOutTrace()
+  {
+    return checkOutTrace;
+  }
+
+  /**
+   * Flags the current check-out of this object as reported as a possible leak.
+   * @return true if the flag was set, false if it was already set
+   */
+  boolean markLeakReported()
+  {
+    if (leakReported)
+      return false;
+    leakReported = true;
+    return true;
+  }
+
+  /**
+   * Atomically changes the state of this item from free to in use.
+   * @return true if the item was claimed, false if it was not free
+   */
+  boolean claim()
+  {
+    return STATE.compareAndSet(this, FREE, IN_USE);
+  }
+
+  /**
+   * Atomically changes the state of this item from free to removed.
+   * @return true if the item was removed, false if it was not free
+   */
+  boolean retire()
+  {
+    return STATE.compareAndSet(this, FREE, REMOVED);
+  }
+
+  /**
+   * Sets the state of this item.
+   * @param state new state (one of {FREE, IN_USE, REMOVED})
+   */
+  void setState(int state)
+  {
+    this.state = state;
+  }
+
+  /**
+   * Returns the state of this item.
+   * @return state of this item (one of {FREE, IN_USE, REMOVED})
+   */
+  int getState()
+  {
+    return state;
+  }
+
+  /**
+   * Atomically flags this item as held in a free list.
+   * If the flag is set, the time of enqueuing is also recorded, so the item
+   * must then be added to the end of the free list.
+   * @return true if the flag was set, false if it was already set
+   */
+  boolean markEnqueued()
+  {
+    if (!ENQUEUED.compareAndSet(this, 0, 1))
+      return false;
+    queuedTime = System.currentTimeMillis();
+    return true;
+  }
+
+  /**
+   * Returns the time at which this item was last added to a free list.
+   * As items are always added to the end of a free list, the items in
+   * a free list are held in order of this time.
+   */
+  long getQueuedTime()
+  {
+    return queuedTime;
+  }
+
+  /**
+   * Clears the flag denoting this item as held in a free list.
+   * This must be called after removal from the free list, but before any
+   * attempt to claim the item.
+   */
+  void clearEnqueued()
+  {
+    enqueued = 0;
+  }
 }
@@ -44,6 +44,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Class providing simple logging and debug functionality,
@@ -56,19 +57,21 @@ import java.util.Date;
 public class LogUtil
 {
   /** {@code DateFormat} instance for formatting log entries. */
-  private DateFormat dateFormat;
+  private volatile DateFormat dateFormat;
   /** Default {@code DateFormat} instance, used when custom one not set. */
   private DateFormat ddf;
   /** {@code PrintWriter} instance used for logging. */
-  private PrintWriter logWriter;
+  private volatile PrintWriter logWriter;
   /** Flag determining whether log entries are written to the log stream. */
-  private boolean logging = false;
+  private volatile boolean logging = false;
   /** Flag determining whether the {@code LogWriter} is closed when {@link #close()} method is called. */
   private boolean closeWriterOnExit = true;
   /** Separator string (between date and log message). */
-  private String separator = ": ";
+  private volatile String separator = ": ";
   /** Flag to provide basic support for debug information (not used within class). */
-  private boolean debug = false;
+  private volatile boolean debug = false;
+  /** Lock guarding writes to the log, and changes of log writer (used instead of the monitor to avoid pinning virtual threads during I/O). */
+  private final ReentrantLock lock = new ReentrantLock();
 
   /**
    * Creates a new Logger with logging disabled.
@@ -102,7 +105,7 @@ public class LogUtil
    * @param df {@code DateFormat} instance to use for formatting log messages
    * @see java.text.DateFormat
    */
-  public synchronized void setDateFormat(DateFormat df)
+  public void setDateFormat(DateFormat df)
   {
     dateFormat = df;
   }
@@ -112,7 +115,7 @@ public class LogUtil
    * To set the default separator, call with a null argument.
    * @param sep string to use as separator
    */
-  public synchronized void setSeparator(String sep)
+  public void setSeparator(String sep)
   {
     separator = (sep == null) ? ": " : sep;
   }
@@ -123,7 +126,7 @@ public class LogUtil
    * method is called.
    * @param writer {@code PrintWriter} to which to write log entries
    */
-  public final synchronized void setLog(PrintWriter writer)
+  public final void setLog(PrintWriter writer)
   {
     setLog(writer, true);
   }
@@ -133,26 +136,34 @@ public class LogUtil
    * @param writer {@code PrintWriter} to which to write log entries
    * @param closeOnExit whether to close the {@code PrintWriter} when {@link #close()} is called
    */
-  public synchronized void setLog(PrintWriter writer, boolean closeOnExit)
+  public void setLog(PrintWriter writer, boolean closeOnExit)
   {
-    if (logWriter != null)
+    lock.lock();
+    try
     {
-      logWriter.flush();
-      if (closeWriterOnExit)
-        close();
+      if (logWriter != null)
+      {
+        logWriter.flush();
+        if (closeWriterOnExit)
+          close();
+      }
+      if (logging = (writer != null))
+        logWriter = writer;
+      else
+        logWriter = null;
+      this.closeWriterOnExit = (logWriter != null) ? closeOnExit : false;
+    }
+    finally
+    {
+      lock.unlock();
     }
-    if (logging = (writer != null))
-      logWriter = writer;
-    else
-      logWriter = null;
-    this.closeWriterOnExit = (logWriter != null) ? closeOnExit : false;
   }
 
   /**
    * Returns the current {@code PrintWriter} used to write to the log.
    * @return The current {@code PrintWriter} used to write to the log
    */
-  public synchronized PrintWriter getLogWriter()
+  public PrintWriter getLogWriter()
   {
     return logWriter;
   }
@@ -161,31 +172,39 @@ public class LogUtil
    * Writes a message to the log.
    * @param logEntry message to write as a log entry
    */
-  protected synchronized void writeLogEntry(String logEntry)
+  protected void writeLogEntry(String logEntry)
   {
-    if (!logging)
-      return;
-    StringBuilder sb = new StringBuilder();
-    Date date = new Date();
-    if (dateFormat != null)
-      sb.append(dateFormat.format(date));
-    else
+    lock.lock();
+    try
+    {
+      if (!logging)
+        return;
+      StringBuilder sb = new StringBuilder();
+      Date date = new Date();
+      if (dateFormat != null)
+        sb.append(dateFormat.format(date));
+      else
+      {
+        if (ddf == null)
+          ddf = DateFormat.getDateTimeInstance(DateFormat.LONG, DateFormat.LONG);
+        sb.append(ddf.format(date));
+      }
+      if (separator != null)
+        sb.append(separator);
+      sb.append(logEntry);
+      logWriter.println(sb.toString());
+    }
+    finally
     {
-      if (ddf == null)
-        ddf = DateFormat.getDateTimeInstance(DateFormat.LONG, DateFormat.LONG);
-      sb.append(ddf.format(date));
+      lock.unlock();
     }
-    if (separator != null)
-      sb.append(separator);
-    sb.append(logEntry);
-    logWriter.println(sb.toString());
   }
 
   /**
    * If debug is enabled, writes a message to the log.
    * @param logEntry message to write as a log entry
    */
-  public synchronized void debug(String logEntry)
+  public void debug(String logEntry)
   {
     if (isDebug())
       writeLogEntry(logEntry);
@@ -196,7 +215,7 @@ public class LogUtil
    * @param prefix prefix string for the log entry
    * @param logEntry message to write as a log entry
    */
-  public synchronized void debug(String prefix, String logEntry)
+  public void debug(String prefix, String logEntry)
   {
     if (isDebug())
       log(prefix, logEntry);
@@ -217,7 +236,7 @@ public class LogUtil
    * Writes a message to the log.
    * @param logEntry message to write as a log entry
    */
-  public synchronized void log(String logEntry)
+  public void log(String logEntry)
   {
     writeLogEntry(logEntry);
   }
@@ -227,7 +246,7 @@ public class LogUtil
    * @param prefix prefix string for the log entry
    * @param logEntry message to write as a log entry
    */
-  public synchronized void log(String prefix, String logEntry)
+  public void log(String prefix, String logEntry)
   {
     if (prefix == null || prefix.equals(""))
       writeLogEntry(logEntry);
@@ -246,7 +265,7 @@ public class LogUtil
    * @param logEntry message to write as a log entry
    * @param throwable {@code Throwable} instance to log with this entry
    */
-  public synchronized void log(String prefix, String logEntry, Throwable throwable)
+  public void log(String prefix, String logEntry, Throwable throwable)
   {
     if (!logging)
       return;
@@ -266,15 +285,23 @@ public class LogUtil
    * @param throwable {@code Throwable} instance to log with this entry
    * @param logEntry message to write as a log entry
    */
-  public synchronized void log(String logEntry, Throwable throwable)
+  public void log(String logEntry, Throwable throwable)
   {
-    if (!logging)
-      return;
-    writeLogEntry(logEntry);
-    if (throwable != null)
+    lock.lock();
+    try
+    {
+      if (!logging)
+        return;
+      writeLogEntry(logEntry);
+      if (throwable != null)
+      {
+        throwable.printStackTrace(logWriter);
+        logWriter.flush();
+      }
+    }
+    finally
     {
-      throwable.printStackTrace(logWriter);
-      logWriter.flush();
+      lock.unlock();
     }
   }
 
@@ -290,23 +317,31 @@ public class LogUtil
   /**
    * Closes the log.
    */
-  public synchronized void close()
+  public void close()
   {
-    logging = false;
-    if (logWriter != null)
+    lock.lock();
+    try
+    {
+      logging = false;
+      if (logWriter != null)
+      {
+        logWriter.flush();
+        if (closeWriterOnExit)
+          logWriter.close();
+      }
+      logWriter = null;
+    }
+    finally
     {
-      logWriter.flush();
-      if (closeWriterOnExit)
-        logWriter.close();
+      lock.unlock();
     }
-    logWriter = null;
   }
 
   /**
    * Determines whether calls to the logging methods actually write to the log.
    * @param b flag indicating whether to write to the log
    */
-  public synchronized void setLogging(boolean b)
+  public void setLogging(boolean b)
   {
     logging = b;
   }
@@ -315,7 +350,7 @@ public class LogUtil
    * Returns whether calls to the logging methods actually write to the log.
    * @return true if logging is enabled, false otherwise.
    */
-  public synchronized boolean isLogging()
+  public boolean isLogging()
   {
     return logging;
   }
@@ -324,7 +359,7 @@ public class LogUtil
    * Determines whether to perform debug logging.
    * @param b flag indicating whether to perform debug logging
    */
-  public synchronized void setDebug(boolean b)
+  public void setDebug(boolean b)
   {
     debug = b;
   }
@@ -333,7 +368,7 @@ public class LogUtil
    * Returns whether debug logging is enabled.
    * @return true if debug logging is enabled, false otherwise.
    */
-  public synchronized boolean isDebug()
+  public boolean isDebug()
   {
     return debug;
   }
@@ -0,0 +1,111 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.db;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests configuration of the pool of a {@link DBPoolDataSource}.
+ *
+ * @author Giles Winstanley
+ */
+public class DBPoolDataSourceTest
+{
+  private DBPoolDataSource ds;
+
+  @BeforeClass
+  public static void setUpClass()
+  {
+    TestDriver.register();
+  }
+
+  @After
+  public void tearDown()
+  {
+    if (ds != null)
+      ds.releaseImmediately();
+  }
+
+  /**
+   * Idle connections maintained using {@code minIdle} are only created once
+   * the pool is fully configured, so use the decoded password.
+   */
+  @Test(timeout = 30000)
+  public void testMinIdleUsesDecodedPassword() throws Exception
+  {
+    TestDriver.passwords.clear();
+    final int opened = TestDriver.opened.get();
+    ds = new DBPoolDataSource();
+    ds.setName("MinIdleDS");
+    ds.setDriverClassName(TestDriver.class.getName());
+    ds.setUrl(TestDriver.URL + "minIdle");
+    ds.setUser("user");
+    ds.setPassword("frperg");
+    ds.setPasswordDecoderClassName(SlowDecoder.class.getName());
+    ds.setMaxPool(4);
+    ds.setMaxSize(4);
+    ds.setMinIdle(2);
+    try (Connection con = ds.getConnection())
+    {
+      assertNotNull(con);
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (TestDriver.opened.get() - opened < 2 && System.nanoTime() < deadline)
+      Thread.sleep(10);
+    assertTrue(TestDriver.opened.get() - opened >= 2);
+    assertEquals(Collections.singleton("secret"), TestDriver.passwords);
+  }
+
+  /**
+   * Password decoder which is slow to instantiate, so that any connections
+   * created before it is set use the encoded password.
+   */
+  public static class SlowDecoder extends RotDecoder
+  {
+    public SlowDecoder() throws InterruptedException
+    {
+      Thread.sleep(200);
+    }
+  }
+}
@@ -0,0 +1,229 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the explicitly locked paths of {@link ConnectionPool} and
+ * {@link DBPoolDataSource} under contention from many platform threads.
+ *
+ * @author Giles Winstanley
+ */
+public class LockContentionTest
+{
+  /** Number of threads competing. */
+  private static final int THREADS = 32;
+
+  @BeforeClass
+  public static void setUpClass()
+  {
+    TestDriver.register();
+  }
+
+  /**
+   * Events fired concurrently by many threads, including the first events
+   * (which create the event dispatcher), must all be delivered.
+   */
+  @Test(timeout = 30000)
+  public void testConcurrentEventDispatch() throws Exception
+  {
+    final int iterations = 200;
+    ConnectionPool pool = new ConnectionPool("ContentionEvents", 4, 0, 0, TestDriver.URL + "events", null, null);
+    final AtomicInteger checkOuts = new AtomicInteger();
+    final AtomicInteger checkIns = new AtomicInteger();
+    pool.addConnectionPoolListener(new ConnectionPoolEventAdapter()
+    {
+      @Override
+      public void poolCheckOut(ConnectionPoolEvent evt)
+      {
+        checkOuts.incrementAndGet();
+      }
+
+      @Override
+      public void poolCheckIn(ConnectionPoolEvent evt)
+      {
+        checkIns.incrementAndGet();
+      }
+    });
+    try
+    {
+      run(THREADS, () ->
+      {
+        for (int i = 0; i < iterations; i++)
+        {
+          Connection con = pool.getConnection();
+          assertNotNull(con);
+          con.close();
+        }
+      });
+      final int expected = THREADS * iterations;
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while ((checkOuts.get() < expected || checkIns.get() < expected) && System.nanoTime() < deadline)
+        Thread.sleep(10);
+      assertEquals(expected, checkOuts.get());
+      assertEquals(expected, checkIns.get());
+      assertEquals(0, pool.getCheckedOut());
+    }
+    finally
+    {
+      pool.release();
+    }
+  }
+
+  /**
+   * Parameters of a {@link DBPoolDataSource} may be changed while its pool
+   * is being used, released, and recreated by other threads.
+   */
+  @Test(timeout = 30000)
+  public void testDataSourceChangesDuringRelease() throws Exception
+  {
+    final DBPoolDataSource ds = new DBPoolDataSource();
+    ds.setName("ContentionDS");
+    ds.setDriverClassName(TestDriver.class.getName());
+    ds.setUrl(TestDriver.URL + "ds");
+    ds.setMaxPool(4);
+    final AtomicInteger connections = new AtomicInteger();
+    try
+    {
+      run(THREADS, new Task()
+      {
+        private final AtomicInteger index = new AtomicInteger();
+
+        @Override
+        public void run() throws Exception
+        {
+          int n = index.getAndIncrement();
+          ThreadLocalRandom rnd = ThreadLocalRandom.current();
+          long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+          while (System.nanoTime() < end)
+          {
+            if (n == 0)
+            {
+              // Release the pool, which is recreated on demand.
+              ds.releaseImmediately();
+              Thread.sleep(5);
+            }
+            else if (n < 5)
+            {
+              ds.setMaxPool(1 + rnd.nextInt(8));
+              ds.setMinPool(0);
+              ds.setMaxSize(0);
+              ds.setIdleTimeout(rnd.nextInt(5));
+            }
+            else
+            {
+              try
+              {
+                Connection con = ds.getConnection();
+                if (con != null)
+                {
+                  connections.incrementAndGet();
+                  con.close();
+                }
+              }
+              catch (SQLException sqlx)
+              {
+                // Expected if the pool is released concurrently.
+              }
+            }
+          }
+        }
+      });
+      assertTrue(connections.get() > 0);
+      try (Connection con = ds.getConnection())
+      {
+        assertNotNull(con);
+      }
+    }
+    finally
+    {
+      ds.releaseImmediately();
+    }
+  }
+
+  /** Task which may throw an exception. */
+  private interface Task
+  {
+    void run() throws Exception;
+  }
+
+  /**
+   * Runs a task in the specified number of threads, started together,
+   * failing if any thread throws an exception.
+   */
+  private static void run(int threads, Task task) throws Exception
+  {
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> list = new ArrayList<>();
+    for (int i = 0; i < threads; i++)
+    {
+      Thread t = new Thread(() ->
+      {
+        try
+        {
+          start.await();
+          task.run();
+        }
+        catch (Throwable ex)
+        {
+          failure.compareAndSet(null, ex);
+        }
+      });
+      list.add(t);
+      t.start();
+    }
+    start.countDown();
+    for (Thread t : list)
+      t.join();
+    if (failure.get() != null)
+      throw new AssertionError(failure.get());
+  }
+}
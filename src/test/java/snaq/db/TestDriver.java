@@ -0,0 +1,170 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.db;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver for testing, which creates stub connections for URLs
+ * starting with {@link #URL}, keeping count of connections opened/closed.
+ *
+ * @author Giles Winstanley
+ */
+public class TestDriver implements Driver
+{
+  /** JDBC URL accepted by this driver. */
+  static final String URL = "jdbc:dbpooltest:";
+  /** Number of connections opened. */
+  static final AtomicInteger opened = new AtomicInteger();
+  /** Number of connections closed. */
+  static final AtomicInteger closed = new AtomicInteger();
+  /** Passwords used to open connections. */
+  static final Set<String> passwords = ConcurrentHashMap.newKeySet();
+  /** Instance registered with {@link DriverManager}. */
+  private static final TestDriver INSTANCE = new TestDriver();
+  static
+  {
+    try
+    {
+      DriverManager.registerDriver(INSTANCE);
+    }
+    catch (SQLException sqlx)
+    {
+      throw new ExceptionInInitializerError(sqlx);
+    }
+  }
+
+  /**
+   * Ensures the driver is registered with {@link DriverManager}.
+   */
+  static void register()
+  {
+  }
+
+  @Override
+  public Connection connect(String url, Properties info) throws SQLException
+  {
+    if (!acceptsURL(url))
+      return null;
+    if (info != null && info.getProperty("password") != null)
+      passwords.add(info.getProperty("password"));
+    opened.incrementAndGet();
+    final boolean[] open = { true };
+    return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) ->
+    {
+      switch (method.getName())
+      {
+        case "close":
+          if (open[0])
+          {
+            open[0] = false;
+            closed.incrementAndGet();
+          }
+          return null;
+        case "isClosed":
+          return !open[0];
+        case "isValid":
+          return open[0];
+        case "getAutoCommit":
+          return true;
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return "TestConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+        default:
+      }
+      Class<?> type = method.getReturnType();
+      if (type == boolean.class)
+        return false;
+      if (type == int.class)
+        return 0;
+      if (type == long.class)
+        return 0L;
+      return null;
+    });
+  }
+
+  @Override
+  public boolean acceptsURL(String url)
+  {
+    return url != null && url.startsWith(URL);
+  }
+
+  @Override
+  public DriverPropertyInfo[] getPropertyInfo(String url, Properties info)
+  {
+    return new DriverPropertyInfo[0];
+  }
+
+  @Override
+  public int getMajorVersion()
+  {
+    return 1;
+  }
+
+  @Override
+  public int getMinorVersion()
+  {
+    return 0;
+  }
+
+  @Override
+  public boolean jdbcCompliant()
+  {
+    return false;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException
+  {
+    throw new SQLFeatureNotSupportedException();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.ArrayList;
+import java.util.EventListener;
+import java.util.EventObject;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests event propagation by {@link EventDispatcher}.
+ *
+ * @author Giles Winstanley
+ */
+public class EventDispatcherTest
+{
+  /** Listener which records the events it receives. */
+  private interface TestListener extends EventListener
+  {
+    void event(EventObject e);
+  }
+
+  /**
+   * Events are propagated to listeners in the order dispatched.
+   */
+  @Test(timeout = 10000)
+  public void testEventOrder() throws Exception
+  {
+    final List<Integer> received = new CopyOnWriteArrayList<>();
+    List<TestListener> listeners = new CopyOnWriteArrayList<>();
+    listeners.add(e -> received.add((Integer)e.getSource()));
+    EventDispatcher<TestListener,EventObject> ed = new EventDispatcher<>(listeners, (l, e) -> l.event(e));
+    ed.start();
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++)
+    {
+      expected.add(i);
+      ed.dispatchEvent(new EventObject(i));
+    }
+    TestPool.await("Events not propagated", () -> received.size() == expected.size());
+    ed.join();
+    assertEquals(expected, received);
+    ed.halt();
+  }
+
+  /**
+   * Listeners which block must not delay housekeeping tasks,
+   * even when there are more of them than housekeeping threads.
+   */
+  @Test(timeout = 10000)
+  public void testSlowListenerDoesNotBlockHousekeeping() throws Exception
+  {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    List<TestListener> listeners = new CopyOnWriteArrayList<>();
+    listeners.add(e ->
+    {
+      try
+      {
+        blocked.await();
+      }
+      catch (InterruptedException ix)
+      {
+        Thread.currentThread().interrupt();
+      }
+    });
+    List<EventDispatcher<TestListener,EventObject>> dispatchers = new ArrayList<>();
+    try
+    {
+      for (int i = 0; i <= Housekeeper.getThreadCount(); i++)
+      {
+        EventDispatcher<TestListener,EventObject> ed = new EventDispatcher<>(listeners, (l, e) -> l.event(e));
+        ed.start();
+        ed.dispatchEvent(new EventObject(this));
+        dispatchers.add(ed);
+      }
+      final CountDownLatch ran = new CountDownLatch(1);
+      Housekeeper.schedule(ran::countDown, 10, TimeUnit.MILLISECONDS);
+      assertTrue("Housekeeping delayed by event listeners", ran.await(2, TimeUnit.SECONDS));
+    }
+    finally
+    {
+      blocked.countDown();
+    }
+    for (EventDispatcher<TestListener,EventObject> ed : dispatchers)
+    {
+      ed.join(5000);
+      ed.halt();
+    }
+  }
+}
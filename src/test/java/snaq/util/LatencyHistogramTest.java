@@ -0,0 +1,214 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link LatencyHistogram}, and the latency percentiles of
+ * {@link ObjectPool} derived from it.
+ *
+ * @author Giles Winstanley
+ */
+public class LatencyHistogramTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  @Test
+  public void testEmpty()
+  {
+    LatencyHistogram h = new LatencyHistogram();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getMean());
+    assertEquals(0, h.getValueAtPercentile(50.0));
+    assertEquals(0, h.getValueAtPercentile(100.0));
+  }
+
+  /**
+   * Small values each have their own bucket, so are reported exactly.
+   */
+  @Test
+  public void testSmallValuesExact()
+  {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 0; i < 16; i++)
+      h.record(i);
+    assertEquals(16, h.getCount());
+    assertEquals(7, h.getMean());
+    assertEquals(0, h.getValueAtPercentile(0.0));
+    assertEquals(7, h.getValueAtPercentile(50.0));
+    assertEquals(15, h.getValueAtPercentile(100.0));
+  }
+
+  /**
+   * Percentiles of a uniform distribution are reported within the
+   * documented accuracy (about 3%).
+   */
+  @Test
+  public void testPercentileAccuracy()
+  {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 1; i <= 100000; i++)
+      h.record(i * 1000L);
+    assertEquals(100000, h.getCount());
+    assertEquals(50000500L, h.getMean());
+    assertWithin(50000000L, h.getValueAtPercentile(50.0));
+    assertWithin(90000000L, h.getValueAtPercentile(90.0));
+    assertWithin(99000000L, h.getValueAtPercentile(99.0));
+    assertWithin(99900000L, h.getValueAtPercentile(99.9));
+    assertWithin(100000000L, h.getValueAtPercentile(100.0));
+  }
+
+  /**
+   * Percentiles reflect the tail of a skewed distribution.
+   */
+  @Test
+  public void testSkewedDistribution()
+  {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 0; i < 990; i++)
+      h.record(TimeUnit.MILLISECONDS.toNanos(1));
+    for (int i = 0; i < 10; i++)
+      h.record(TimeUnit.SECONDS.toNanos(2));
+    assertWithin(TimeUnit.MILLISECONDS.toNanos(1), h.getValueAtPercentile(50.0));
+    assertWithin(TimeUnit.MILLISECONDS.toNanos(1), h.getValueAtPercentile(99.0));
+    assertWithin(TimeUnit.SECONDS.toNanos(2), h.getValueAtPercentile(99.9));
+  }
+
+  /**
+   * Out-of-range values are clamped rather than rejected.
+   */
+  @Test
+  public void testOutOfRangeValues()
+  {
+    LatencyHistogram h = new LatencyHistogram();
+    h.record(-5);
+    assertEquals(0, h.getValueAtPercentile(100.0));
+    h.record(Long.MAX_VALUE);
+    assertEquals(2, h.getCount());
+    long max = h.getValueAtPercentile(100.0);
+    assertTrue(max > TimeUnit.MINUTES.toNanos(70));
+    assertTrue(max < TimeUnit.MINUTES.toNanos(80));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile()
+  {
+    new LatencyHistogram().getValueAtPercentile(100.5);
+  }
+
+  @Test
+  public void testReset()
+  {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 0; i < 100; i++)
+      h.record(i * 1000L);
+    h.reset();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getMean());
+    assertEquals(0, h.getValueAtPercentile(99.0));
+  }
+
+  /**
+   * Values recorded concurrently are not lost.
+   */
+  @Test(timeout = 10000)
+  public void testConcurrentRecording() throws Exception
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++)
+    {
+      Thread t = new Thread(() ->
+      {
+        for (int j = 0; j < 100000; j++)
+          h.record(j);
+      });
+      threads.add(t);
+      t.start();
+    }
+    for (Thread t : threads)
+      t.join();
+    assertEquals(800000, h.getCount());
+  }
+
+  /**
+   * The pool's percentile getters report histogram values in milliseconds.
+   */
+  @Test(timeout = 10000)
+  public void testPoolPercentiles() throws Exception
+  {
+    pool = new TestPool("Histogram", 0, 2, 2, 0);
+    pool.createDelay = 20;
+    TestPool.Item item = pool.checkOut(1000);
+    assertNotNull(item);
+    Thread.sleep(30);
+    pool.checkIn(item);
+    assertEquals(1, pool.getCreationTimeHistogram().getCount());
+    assertEquals(1, pool.getAcquireTimeHistogram().getCount());
+    assertEquals(1, pool.getHoldTimeHistogram().getCount());
+    assertTrue(pool.getCreationTimeP50() >= 19f);
+    assertTrue(pool.getCreationTimeP50() < 1000f);
+    assertTrue(pool.getAcquireTimeP999() >= pool.getCreationTimeP50() * 0.96f);
+    assertTrue(pool.getHoldTimeP99() >= 29f);
+    pool.resetLatencyHistograms();
+    assertEquals(0, pool.getAcquireTimeHistogram().getCount());
+    assertEquals(0f, pool.getHoldTimeP50(), 0f);
+  }
+
+  /**
+   * Asserts that a value reported by a histogram is within 4% of the
+   * expected value.
+   */
+  private static void assertWithin(long expected, long actual)
+  {
+    assertTrue("Expected ~" + expected + " but was " + actual, Math.abs(actual - expected) <= expected * 0.04);
+  }
+}
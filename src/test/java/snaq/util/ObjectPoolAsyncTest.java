@@ -0,0 +1,214 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests asynchronous check-out of items from {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolAsyncTest
+{
+  private TestPool pool;
+  private ExecutorService executor;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+    if (executor != null)
+      executor.shutdownNow();
+  }
+
+  /**
+   * The timeout of an asynchronous check-out must expire on time, even if
+   * all threads of the pool's asynchronous executor are busy.
+   */
+  @Test(timeout = 10000)
+  public void testTimeoutWithBusyExecutor() throws Exception
+  {
+    pool = new TestPool("AsyncTimeout", 0, 1, 1, 0);
+    TestPool.Item item = pool.checkOut(1000);
+    assertNotNull(item);
+    executor = Executors.newSingleThreadExecutor();
+    pool.setAsyncExecutor(executor);
+    CountDownLatch busy = new CountDownLatch(1);
+    executor.execute(() ->
+    {
+      try
+      {
+        busy.await();
+      }
+      catch (InterruptedException ix)
+      {
+        Thread.currentThread().interrupt();
+      }
+    });
+    try
+    {
+      long start = System.nanoTime();
+      CompletableFuture<TestPool.Item> f = pool.checkOutAsync(100);
+      assertNull(f.get(2, TimeUnit.SECONDS));
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+    finally
+    {
+      busy.countDown();
+    }
+    pool.checkIn(item);
+    assertEquals(pool.getSize(), pool.getFreeCount());
+  }
+
+  /**
+   * If an asynchronous waiter which has been woken to try again is cancelled
+   * before acting on the wake-up, the next waiter must be woken instead.
+   */
+  @Test(timeout = 10000)
+  public void testCancelPassesOnWakeUp() throws Exception
+  {
+    pool = new TestPool("AsyncWakeUp", 0, 1, 1, 0);
+    TestPool.Item item = pool.checkOut(1000);
+    assertNotNull(item);
+    // Executor which only runs tasks when instructed.
+    final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    pool.setAsyncExecutor(tasks::add);
+    CompletableFuture<TestPool.Item> f = pool.checkOutAsync(10000);
+    runTasks(tasks);
+    assertEquals(1, pool.getWaitingCount());
+
+    // Thread waiting behind the asynchronous waiter.
+    final AtomicReference<TestPool.Item> result = new AtomicReference<>();
+    Thread t = new Thread(() ->
+    {
+      try
+      {
+        result.set(pool.checkOut(5000));
+      }
+      catch (Exception ex)
+      {
+        ex.printStackTrace();
+      }
+    });
+    t.start();
+    TestPool.await("Thread not waiting", () -> pool.getWaitingCount() == 2);
+
+    // Destroying the item wakes the asynchronous waiter, which is cancelled
+    // before its wake-up is acted upon by the executor.
+    item.dirty = true;
+    pool.checkIn(item);
+    assertTrue(f.cancel(false));
+    t.join(2000);
+    assertNotNull("Wake-up not passed on to waiting thread", result.get());
+    runTasks(tasks);
+    pool.checkIn(result.get());
+    assertEquals(0, pool.getCheckedOut());
+    assertEquals(pool.getSize(), pool.getFreeCount());
+  }
+
+  /**
+   * An item handed over to an asynchronous request which has since been
+   * cancelled must be returned to the pool without counting as a
+   * check-out/check-in.
+   */
+  @Test(timeout = 10000)
+  public void testHandOffToCancelledRequest() throws Exception
+  {
+    pool = new TestPool("AsyncCancelled", 0, 1, 1, 0);
+    final AtomicInteger checkOuts = new AtomicInteger();
+    final AtomicInteger checkIns = new AtomicInteger();
+    pool.addObjectPoolListener(new ObjectPoolEventAdapter<TestPool.Item>()
+    {
+      @Override
+      public void poolCheckOut(ObjectPoolEvent<TestPool.Item> evt)
+      {
+        checkOuts.incrementAndGet();
+      }
+
+      @Override
+      public void poolCheckIn(ObjectPoolEvent<TestPool.Item> evt)
+      {
+        checkIns.incrementAndGet();
+      }
+    });
+    TestPool.Item item = pool.checkOut(1000);
+    assertNotNull(item);
+    final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    pool.setAsyncExecutor(tasks::add);
+    CompletableFuture<TestPool.Item> f = pool.checkOutAsync(10000);
+    runTasks(tasks);
+    assertEquals(1, pool.getWaitingCount());
+
+    // Item handed over, but request cancelled before the hand-over completes.
+    pool.checkIn(item);
+    assertTrue(f.cancel(false));
+    runTasks(tasks);
+
+    assertEquals(1, pool.getRequestCount());
+    assertEquals(0, pool.getCheckedOut());
+    assertEquals(1, pool.getFreeCount());
+    assertEquals(1, pool.getSize());
+    TestPool.await("Events not propagated", () -> checkOuts.get() == 1 && checkIns.get() == 1);
+    Thread.sleep(100);
+    assertEquals(1, checkOuts.get());
+    assertEquals(1, checkIns.get());
+  }
+
+  /**
+   * Runs the specified tasks (and any they submit) in the current thread.
+   */
+  private static void runTasks(Queue<Runnable> tasks)
+  {
+    Runnable r;
+    while ((r = tasks.poll()) != null)
+      r.run();
+  }
+}
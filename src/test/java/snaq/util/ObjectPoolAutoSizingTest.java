@@ -0,0 +1,124 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests automatic adjustment of {@code maxPool} in {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolAutoSizingTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * {@code maxPool} is increased when new items are created while all
+   * retained items are in use.
+   */
+  @Test(timeout = 30000)
+  public void testGrow() throws Exception
+  {
+    pool = new TestPool("AutoSizeGrow", 0, 2, 10, 0);
+    TestPool.Item a = pool.checkOut(1000);
+    TestPool.Item b = pool.checkOut(1000);
+    pool.enableAutoSizing(2, 8, 10, 50);
+    assertTrue(pool.isAutoSizing());
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (pool.getMaxPool() == 2 && System.nanoTime() - deadline < 0)
+    {
+      // Items beyond maxPool are created, then destroyed when checked in.
+      pool.checkIn(pool.checkOut(1000));
+      Thread.sleep(5);
+    }
+    assertTrue(pool.getMaxPool() > 2);
+    assertTrue(pool.getMaxPool() <= 8);
+    assertTrue(pool.getAutoSizeAdjustmentCount() >= 1);
+    assertTrue(pool.getLastAutoSizeDecision().startsWith("increased maxPool"));
+    pool.checkIn(a);
+    pool.checkIn(b);
+  }
+
+  /**
+   * {@code maxPool} is decreased while the pool is under-used,
+   * but not below the lower bound.
+   */
+  @Test(timeout = 30000)
+  public void testShrink() throws Exception
+  {
+    pool = new TestPool("AutoSizeShrink", 0, 8, 10, 0);
+    pool.enableAutoSizing(2, 8, 10, 20);
+    TestPool.await("maxPool not decreased to lower bound", () -> pool.getMaxPool() == 2);
+    assertTrue(pool.getLastAutoSizeDecision().startsWith("decreased maxPool"));
+    int adjustments = pool.getAutoSizeAdjustmentCount();
+    Thread.sleep(300);
+    assertEquals(2, pool.getMaxPool());
+    assertEquals(adjustments, pool.getAutoSizeAdjustmentCount());
+
+    pool.disableAutoSizing();
+    assertFalse(pool.isAutoSizing());
+    assertEquals(0, pool.getAutoSizeAdjustmentCount());
+    assertNull(pool.getLastAutoSizeDecision());
+    assertEquals(2, pool.getMaxPool());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLowerBoundBelowMinPool()
+  {
+    pool = new TestPool("AutoSizeInvalidLower", 2, 4, 10, 0);
+    pool.enableAutoSizing(1, 8);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUpperBoundAboveMaxSize()
+  {
+    pool = new TestPool("AutoSizeInvalidUpper", 0, 4, 10, 0);
+    pool.enableAutoSizing(2, 12);
+  }
+}
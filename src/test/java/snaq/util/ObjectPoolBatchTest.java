@@ -0,0 +1,220 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests batch check-out of items from {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolBatchTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * A batch is checked out using free items, creating the remainder.
+   */
+  @Test(timeout = 10000)
+  public void testBatch() throws Exception
+  {
+    pool = new TestPool("Batch", 0, 4, 4, 0);
+    pool.checkIn(pool.checkOut(1000));
+    List<TestPool.Item> items = pool.checkOut(3, 1000);
+    assertNotNull(items);
+    assertEquals(3, new HashSet<>(items).size());
+    assertEquals(3, pool.getCheckedOut());
+    assertEquals(3, pool.getSize());
+    assertEquals(4, pool.getRequestCount());
+    for (TestPool.Item item : items)
+      pool.checkIn(item);
+    assertEquals(3, pool.getFreeCount());
+  }
+
+  /**
+   * If the batch is not available within the timeout, no items are
+   * checked out, and any claimed items are returned to the pool.
+   */
+  @Test(timeout = 10000)
+  public void testTimeoutRollsBack() throws Exception
+  {
+    pool = new TestPool("BatchTimeout", 0, 4, 4, 0);
+    List<TestPool.Item> held = pool.checkOut(4, 1000);
+    for (int i = 0; i < 3; i++)
+      pool.checkIn(held.get(i));
+    assertEquals(3, pool.getFreeCount());
+    long requests = pool.getRequestCount();
+
+    assertNull(pool.checkOut(4, 50));
+    assertEquals(3, pool.getFreeCount());
+    assertEquals(1, pool.getCheckedOut());
+    assertEquals(4, pool.getSize());
+    assertEquals(0, pool.getPendingCount());
+    assertEquals(0, pool.getWaitingCount());
+    assertEquals(requests, pool.getRequestCount());
+
+    // Items claimed by the failed batch are available to other check-outs.
+    TestPool.Item item = pool.checkOut(0);
+    assertNotNull(item);
+    pool.checkIn(item);
+  }
+
+  /**
+   * A waiting batch is completed when enough items are checked in.
+   */
+  @Test(timeout = 10000)
+  public void testWaitForCheckIn() throws Exception
+  {
+    pool = new TestPool("BatchWait", 0, 4, 4, 0);
+    List<TestPool.Item> held = pool.checkOut(3, 1000);
+    Thread t = new Thread(() ->
+    {
+      try
+      {
+        Thread.sleep(100);
+        for (TestPool.Item item : held)
+          pool.checkIn(item);
+      }
+      catch (InterruptedException ex)
+      {
+      }
+    });
+    t.start();
+    List<TestPool.Item> items = pool.checkOut(4, 5000);
+    t.join();
+    assertNotNull(items);
+    assertEquals(4, pool.getCheckedOut());
+    assertEquals(4, pool.getSize());
+  }
+
+  /**
+   * If creation of a new item fails, items already obtained for the batch
+   * are returned to the pool, and reserved capacity is relinquished.
+   */
+  @Test(timeout = 10000)
+  public void testCreationFailureRollsBack() throws Exception
+  {
+    pool = new TestPool("BatchFail", 0, 4, 4, 0);
+    for (TestPool.Item item : pool.checkOut(2, 1000))
+      pool.checkIn(item);
+    pool.failCreate = true;
+    try
+    {
+      pool.checkOut(4, 1000);
+      fail("Batch checkout should have failed");
+    }
+    catch (Exception ex)
+    {
+      assertEquals("Item creation failed", ex.getMessage());
+    }
+    assertEquals(2, pool.getFreeCount());
+    assertEquals(0, pool.getCheckedOut());
+    assertEquals(2, pool.getSize());
+    assertEquals(0, pool.getPendingCount());
+
+    pool.failCreate = false;
+    assertNotNull(pool.checkOut(4, 1000));
+    assertEquals(4, pool.getSize());
+  }
+
+  /**
+   * Concurrent batches which together exceed the pool's capacity do not
+   * deadlock, and never check out more items than the pool can hold.
+   */
+  @Test(timeout = 30000)
+  public void testConcurrentBatches() throws Exception
+  {
+    pool = new TestPool("BatchConcurrent", 0, 4, 4, 0);
+    final AtomicInteger completed = new AtomicInteger();
+    final AtomicInteger errors = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++)
+    {
+      Thread t = new Thread(() ->
+      {
+        try
+        {
+          for (int j = 0; j < 100; j++)
+          {
+            List<TestPool.Item> items = pool.checkOut(3, 5000);
+            if (items == null || pool.getCheckedOut() > 4)
+              errors.incrementAndGet();
+            if (items == null)
+              continue;
+            for (TestPool.Item item : items)
+              pool.checkIn(item);
+            completed.incrementAndGet();
+          }
+        }
+        catch (Exception ex)
+        {
+          errors.incrementAndGet();
+        }
+      });
+      threads.add(t);
+      t.start();
+    }
+    for (Thread t : threads)
+      t.join();
+    assertEquals(0, errors.get());
+    assertEquals(400, completed.get());
+    assertEquals(0, pool.getCheckedOut());
+    assertTrue(pool.getSize() <= 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBatchExceedsMaxSize() throws Exception
+  {
+    pool = new TestPool("BatchInvalid", 0, 4, 4, 0);
+    pool.checkOut(5, 0);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests asynchronous destruction of items in {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolDestroyTest
+{
+  /** Number of items to destroy (more than fit in the destruction queue). */
+  private static final int ITEMS = 1100;
+
+  private TestPool pool;
+  /** Latch blocking destruction by the shared destroyer threads. */
+  private final CountDownLatch gate = new CountDownLatch(1);
+
+  @After
+  public void tearDown()
+  {
+    gate.countDown();
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Items are destroyed asynchronously until the destruction queue is full,
+   * after which they are destroyed synchronously by the calling thread.
+   */
+  @Test(timeout = 30000)
+  public void testQueueFullFallback() throws Exception
+  {
+    pool = new TestPool("DestroyFallback", 0, 0, ITEMS, 0)
+    {
+      @Override
+      protected void destroy(Item o)
+      {
+        if (Thread.currentThread().getName().startsWith("DBPool-destroyer-"))
+        {
+          try
+          {
+            gate.await();
+          }
+          catch (InterruptedException ex)
+          {
+            Thread.currentThread().interrupt();
+          }
+        }
+        super.destroy(o);
+      }
+    };
+    pool.setAsyncDestroy(true);
+    List<TestPool.Item> items = pool.checkOut(ITEMS, 5000);
+    for (TestPool.Item item : items)
+    {
+      item.dirty = true;
+      pool.checkIn(item);
+    }
+    assertEquals(0, pool.getSize());
+    long fallbacks = pool.getDestroyFallbackCount();
+    assertTrue("No items destroyed synchronously", fallbacks > 0);
+    assertEquals(fallbacks, pool.destroyed.get());
+    assertEquals(ITEMS - fallbacks, pool.getPendingDestroyCount());
+
+    gate.countDown();
+    TestPool.await("Items not destroyed", () -> pool.destroyed.get() == ITEMS);
+    TestPool.await("Pending destruction count not cleared", () -> pool.getPendingDestroyCount() == 0);
+    assertEquals(fallbacks, pool.getDestroyFallbackCount());
+  }
+
+  /**
+   * Without asynchronous destruction, items are destroyed by the calling thread.
+   */
+  @Test(timeout = 10000)
+  public void testSynchronousDestroy() throws Exception
+  {
+    pool = new TestPool("DestroySync", 0, 0, 2, 0);
+    TestPool.Item item = pool.checkOut(1000);
+    item.dirty = true;
+    pool.checkIn(item);
+    assertEquals(1, pool.destroyed.get());
+    assertEquals(0, pool.getPendingDestroyCount());
+    assertEquals(0, pool.getDestroyFallbackCount());
+  }
+}
@@ -0,0 +1,132 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.lang.reflect.Field;
+import java.util.Deque;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests maintenance of the free list of {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolFreeListTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Items claimed by thread-affinity remain in the free list until polled,
+   * so if destroyed their entries must be removed by purging.
+   */
+  @Test(timeout = 10000)
+  public void testPurgeUnlinksDestroyedItems() throws Exception
+  {
+    pool = new TestPool("FreeListPurge", 0, 10, 10, 60000);
+    pool.setThreadAffinity(true);
+    for (int i = 0; i < 100; i++)
+    {
+      TestPool.Item item = pool.checkOut(1000);
+      pool.checkIn(item);
+      // Reclaimed by thread-affinity, then destroyed on check-in.
+      item = pool.checkOut(1000);
+      item.dirty = true;
+      pool.checkIn(item);
+    }
+    assertEquals(0, pool.getSize());
+    assertEquals(100, pool.destroyed.get());
+    pool.purge();
+    assertEquals(0, freeListLength());
+
+    // Items still free (or in use, and later returned) are retained.
+    TestPool.Item a = pool.checkOut(1000);
+    TestPool.Item b = pool.checkOut(1000);
+    pool.checkIn(a);
+    pool.checkIn(b);
+    b = pool.checkOut(1000);
+    pool.purge();
+    assertEquals(1, freeListLength());
+    pool.checkIn(b);
+    assertEquals(2, freeListLength());
+    assertEquals(2, pool.getFreeCount());
+    assertEquals(2, pool.getSize());
+  }
+
+  /**
+   * Idle validation also removes entries of items which are no longer free.
+   */
+  @Test(timeout = 10000)
+  public void testIdleValidationUnlinksDestroyedItems() throws Exception
+  {
+    pool = new TestPool("FreeListValidate", 0, 10, 10, 0);
+    pool.setThreadAffinity(true);
+    pool.setIdleValidationInterval(60000);
+    for (int i = 0; i < 10; i++)
+    {
+      TestPool.Item item = pool.checkOut(1000);
+      pool.checkIn(item);
+      item = pool.checkOut(1000);
+      item.dirty = true;
+      pool.checkIn(item);
+    }
+    pool.validateIdle();
+    assertEquals(0, freeListLength());
+  }
+
+  /**
+   * Returns the total number of entries in the free list of the pool.
+   */
+  private int freeListLength() throws Exception
+  {
+    Field f = ObjectPool.class.getDeclaredField("stripes");
+    f.setAccessible(true);
+    int n = 0;
+    for (Deque<?> stripe : (Deque<?>[])f.get(pool))
+      n += stripe.size();
+    return n;
+  }
+}
@@ -0,0 +1,249 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the hand-over of items to waiters in {@link ObjectPool} when it
+ * races with waiters timing out. Items are checked in at the same time as
+ * the waiters they could be handed to give up waiting, so each item must
+ * end up either with a waiter or back in the pool, but never both or neither.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolHandOffTest
+{
+  /** Maximum number of items in the pool. */
+  private static final int MAX_SIZE = 2;
+  /** Number of threads competing for items. */
+  private static final int THREADS = 16;
+  /** Number of check-outs made by each thread. */
+  private static final int ITERATIONS = 2000;
+
+  private TestPool pool;
+
+  @Before
+  public void setUp()
+  {
+    pool = new TestPool();
+  }
+
+  @After
+  public void tearDown()
+  {
+    pool.release();
+  }
+
+  /**
+   * Threads check out items with timeouts as short as the time items are
+   * held for, so waiters frequently time out just as an item is handed over.
+   */
+  @Test(timeout = 60000)
+  public void testTimeoutRacingHandOff() throws Exception
+  {
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final AtomicInteger successes = new AtomicInteger();
+    final AtomicInteger timeouts = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++)
+    {
+      Thread t = new Thread(() -> {
+        try
+        {
+          start.await();
+          ThreadLocalRandom rnd = ThreadLocalRandom.current();
+          for (int j = 0; j < ITERATIONS; j++)
+          {
+            Item item = pool.checkOut(rnd.nextInt(3));
+            if (item == null)
+            {
+              timeouts.incrementAndGet();
+              continue;
+            }
+            successes.incrementAndGet();
+            pool.hold(item);
+            if (rnd.nextBoolean())
+              TimeUnit.MICROSECONDS.sleep(rnd.nextInt(500));
+            pool.unhold(item);
+            pool.checkIn(item);
+          }
+        }
+        catch (Throwable ex)
+        {
+          failure.compareAndSet(null, ex);
+        }
+      });
+      threads.add(t);
+      t.start();
+    }
+    start.countDown();
+    for (Thread t : threads)
+      t.join();
+
+    if (failure.get() != null)
+      throw new AssertionError(failure.get());
+    assertEquals(THREADS * ITERATIONS, successes.get() + timeouts.get());
+    assertTrue("No check-outs succeeded", successes.get() > 0);
+    assertTrue("No check-outs timed out", timeouts.get() > 0);
+    assertConsistent();
+  }
+
+  /**
+   * Asynchronous requests time out (and are cancelled) while items are
+   * handed over to them, and any item handed to a request which has already
+   * given up must be returned to the pool.
+   */
+  @Test(timeout = 60000)
+  public void testAsyncTimeoutRacingHandOff() throws Exception
+  {
+    final AtomicInteger successes = new AtomicInteger();
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    for (int i = 0; i < ITERATIONS; i++)
+    {
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (int j = 0; j < THREADS; j++)
+      {
+        CompletableFuture<Item> f = pool.checkOutAsync(rnd.nextInt(3));
+        if (rnd.nextInt(8) == 0)
+          f.cancel(false);
+        futures.add(f.thenAccept(item -> {
+          if (item != null)
+          {
+            successes.incrementAndGet();
+            pool.hold(item);
+            pool.unhold(item);
+            pool.checkIn(item);
+          }
+        }).exceptionally(ex -> null));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+    }
+
+    assertTrue("No check-outs succeeded", successes.get() > 0);
+    assertConsistent();
+  }
+
+  /**
+   * Asserts that all items have been returned to the pool, and that the
+   * pool's counts agree with the items created and destroyed.
+   */
+  private void assertConsistent()
+  {
+    assertTrue("Item held by more than one thread", pool.failures.isEmpty());
+    assertEquals(0, pool.getCheckedOut());
+    assertEquals(pool.getSize(), pool.getFreeCount());
+    assertTrue(pool.getSize() <= MAX_SIZE);
+    assertEquals(pool.created.get() - pool.destroyed.get(), pool.getSize());
+  }
+
+  /** Item to hold in the pool. */
+  private static final class Item implements Reusable
+  {
+    @Override
+    public void recycle()
+    {
+    }
+
+    @Override
+    public boolean isDirty()
+    {
+      return false;
+    }
+  }
+
+  /** Pool which keeps count of the items it creates and destroys. */
+  private static final class TestPool extends ObjectPool<Item>
+  {
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+    /** Items currently held by a thread. */
+    private final Set<Item> held = ConcurrentHashMap.newKeySet();
+    /** Items found to be held by more than one thread. */
+    private final Set<Item> failures = ConcurrentHashMap.newKeySet();
+
+    TestPool()
+    {
+      super("HandOffTest", MAX_SIZE, MAX_SIZE, 0);
+    }
+
+    void hold(Item item)
+    {
+      if (!held.add(item))
+        failures.add(item);
+    }
+
+    void unhold(Item item)
+    {
+      held.remove(item);
+    }
+
+    @Override
+    protected Item create()
+    {
+      created.incrementAndGet();
+      return new Item();
+    }
+
+    @Override
+    protected boolean isValid(Item o)
+    {
+      return true;
+    }
+
+    @Override
+    protected void destroy(Item o)
+    {
+      destroyed.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests initialization of items in {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolInitTest
+{
+  /** Time taken to create each item (milliseconds). */
+  private static final long CREATE_DELAY = 200;
+
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Items are created concurrently, without exceeding the number required.
+   */
+  @Test(timeout = 30000)
+  public void testParallelInit() throws Exception
+  {
+    pool = new TestPool("ParallelInit", 8, 8, 8, 0);
+    pool.createDelay = CREATE_DELAY;
+    pool.setInitParallelism(4);
+    final AtomicInteger events = new AtomicInteger();
+    pool.addObjectPoolListener(new ObjectPoolEventAdapter<TestPool.Item>()
+    {
+      @Override
+      public void poolInitCompleted(ObjectPoolEvent<TestPool.Item> evt)
+      {
+        events.incrementAndGet();
+      }
+    });
+    long start = System.nanoTime();
+    pool.init();
+    TestPool.await("Pool not initialized", () -> pool.getFreeCount() == 8);
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertTrue("Initialization took " + elapsed + "ms", elapsed < 6 * CREATE_DELAY);
+    TestPool.await("Initialization not completed", () -> events.get() == 1);
+    assertEquals(8, pool.created.get());
+    assertEquals(8, pool.getSize());
+  }
+
+  /**
+   * Items created during initialization are available to waiting
+   * check-outs as soon as each is ready.
+   */
+  @Test(timeout = 30000)
+  public void testCheckOutDuringInit() throws Exception
+  {
+    pool = new TestPool("CheckOutDuringInit", 8, 8, 8, 0);
+    pool.createDelay = CREATE_DELAY;
+    pool.setInitParallelism(2);
+    pool.init();
+    TestPool.Item item = pool.checkOut(5000);
+    assertNotNull(item);
+    pool.checkIn(item);
+    TestPool.await("Pool not initialized", () -> pool.getFreeCount() == 8);
+    assertEquals(8, pool.getSize());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism()
+  {
+    pool = new TestPool("InvalidParallelism", 0, 1, 1, 0);
+    pool.setInitParallelism(0);
+  }
+}
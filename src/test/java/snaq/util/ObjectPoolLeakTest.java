@@ -0,0 +1,139 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests detection and reclamation of leaked items in {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolLeakTest
+{
+  private TestPool pool;
+  /** Items passed to {@link ObjectPool#reclaim(Reusable)}. */
+  private final Set<TestPool.Item> reclaimed = ConcurrentHashMap.newKeySet();
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Items checked out for longer than the threshold are reported once,
+   * but not reclaimed unless enabled.
+   */
+  @Test(timeout = 10000)
+  public void testDetect() throws Exception
+  {
+    pool = createPool("LeakDetect", 2);
+    pool.setLeakDetectionThreshold(100);
+    pool.setLeakTraceSampleRate(1);
+    TestPool.Item item = pool.checkOut(1000);
+    TestPool.await("Leak not detected", () -> pool.getLeakCount() == 1);
+    Thread.sleep(500);
+    assertEquals(1, pool.getLeakCount());
+    assertEquals(0, pool.getReclaimCount());
+    assertEquals(1, pool.getCheckedOut());
+    pool.checkIn(item);
+    assertEquals(1, pool.getFreeCount());
+    assertTrue(reclaimed.isEmpty());
+  }
+
+  /**
+   * Leaked items are reclaimed when enabled, freeing capacity for other
+   * check-outs, and can no longer be checked in.
+   */
+  @Test(timeout = 10000)
+  public void testReclaim() throws Exception
+  {
+    pool = createPool("LeakReclaim", 1);
+    pool.setTagQuota("a", 1, 0);
+    pool.setLeakDetectionThreshold(100);
+    pool.setReclaimLeaks(true);
+    TestPool.Item leaked = pool.checkOut(1000, "a");
+    // Waits for capacity freed by reclamation.
+    TestPool.Item item = pool.checkOut(5000, "a");
+    assertNotNull(item);
+    assertNotSame(leaked, item);
+    assertEquals(1, pool.getReclaimCount());
+    assertTrue(reclaimed.contains(leaked));
+    assertEquals(1, pool.getSize());
+    assertEquals(1, pool.getTagQuota("a").getCheckedOut());
+    TestPool.await("Reclaimed item not destroyed", () -> pool.destroyed.get() == 1);
+    try
+    {
+      pool.checkIn(leaked);
+      fail("Reclaimed item should not be accepted");
+    }
+    catch (IllegalArgumentException ex)
+    {
+    }
+    pool.checkIn(item);
+    assertEquals(0, pool.getTagQuota("a").getCheckedOut());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidThreshold()
+  {
+    pool = createPool("LeakInvalid", 1);
+    pool.setLeakDetectionThreshold(-1);
+  }
+
+  /**
+   * Creates a pool which records items passed to {@link ObjectPool#reclaim(Reusable)}.
+   */
+  private TestPool createPool(String name, int maxSize)
+  {
+    return new TestPool(name, 0, maxSize, maxSize, 0)
+    {
+      @Override
+      protected void reclaim(Item o)
+      {
+        reclaimed.add(o);
+      }
+    };
+  }
+}
@@ -0,0 +1,122 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests retirement of items exceeding their maximum lifetime in {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolLifetimeTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Items are never retired while checked out, but are retired when
+   * checked in after exceeding their maximum lifetime.
+   */
+  @Test(timeout = 10000)
+  public void testRetireOnCheckIn() throws Exception
+  {
+    pool = new TestPool("LifetimeCheckIn", 0, 2, 2, 0);
+    pool.setMaxLifetime(200);
+    TestPool.Item item = pool.checkOut(1000);
+    Thread.sleep(300);
+    assertEquals(1, pool.getSize());
+    pool.checkIn(item);
+    assertEquals(0, pool.getSize());
+    assertEquals(0, pool.getFreeCount());
+    TestPool.await("Retired item not destroyed", () -> pool.destroyed.get() == 1);
+  }
+
+  /**
+   * Free items are retired by the cleaner, regardless of use.
+   */
+  @Test(timeout = 10000)
+  public void testRetireFree() throws Exception
+  {
+    pool = new TestPool("LifetimeFree", 0, 3, 3, 0);
+    List<TestPool.Item> items = pool.checkOut(3, 1000);
+    pool.setMaxLifetime(300);
+    for (TestPool.Item item : items)
+      pool.checkIn(item);
+    assertEquals(3, pool.getFreeCount());
+    TestPool.await("Free items not retired", () -> pool.getSize() == 0);
+    TestPool.await("Retired items not destroyed", () -> pool.destroyed.get() == 3);
+    assertEquals(0, pool.getFreeCount());
+  }
+
+  /**
+   * Items created at the same time are given lifetimes reduced by up to 10%,
+   * so are not all retired at the same time.
+   */
+  @Test(timeout = 10000)
+  public void testJitter() throws Exception
+  {
+    final int n = 20;
+    pool = new TestPool("LifetimeJitter", 0, n, n, 0);
+    pool.setMaxLifetime(2000);
+    List<TestPool.Item> items = pool.checkOut(n, 1000);
+    // Lifetimes are between 1800ms and 2000ms, so about half have expired.
+    Thread.sleep(1900);
+    for (TestPool.Item item : items)
+      pool.checkIn(item);
+    int retired = n - pool.getSize();
+    assertTrue("No items retired", retired > 0);
+    assertTrue("All items retired", retired < n);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLifetime()
+  {
+    pool = new TestPool("LifetimeInvalid", 0, 1, 1, 0);
+    pool.setMaxLifetime(-1);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests maintenance of free items in {@link ObjectPool} using the
+ * {@code minIdle} parameter.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolMinIdleTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Initialization to {@code minPool} must not be pre-empted by a task
+   * which is only maintaining {@code minIdle} free items.
+   */
+  @Test(timeout = 30000)
+  public void testMinIdleDoesNotBlockInit() throws Exception
+  {
+    pool = new TestPool("MinIdleInit", 4, 4, 10, 0);
+    pool.createDelay = 50;
+    pool.setMinIdle(2);
+    pool.init();
+    TestPool.await("Pool not initialized to minPool", () -> pool.getFreeCount() >= 4);
+    assertEquals(4, pool.getSize());
+  }
+
+  /**
+   * Free items are replaced in the background as they are checked out.
+   */
+  @Test(timeout = 30000)
+  public void testReplenishOnCheckOut() throws Exception
+  {
+    pool = new TestPool("MinIdleCheckOut", 0, 4, 10, 0);
+    pool.setMinIdle(2);
+    TestPool.await("Free items not created", () -> pool.getFreeCount() >= 2);
+    TestPool.Item a = pool.checkOut(1000);
+    TestPool.Item b = pool.checkOut(1000);
+    assertNotNull(a);
+    assertNotNull(b);
+    TestPool.await("Free items not replenished", () -> pool.getFreeCount() >= 2);
+    assertEquals(4, pool.getSize());
+    pool.checkIn(a);
+    pool.checkIn(b);
+    assertEquals(0, pool.getCheckedOut());
+    assertEquals(pool.getSize(), pool.getFreeCount());
+  }
+
+  /**
+   * Free items are not created beyond the {@code maxSize} limit.
+   */
+  @Test(timeout = 30000)
+  public void testMinIdleLimitedByMaxSize() throws Exception
+  {
+    pool = new TestPool("MinIdleMaxSize", 0, 2, 3, 0);
+    pool.setMinIdle(5);
+    TestPool.await("Free items not created", () -> pool.getFreeCount() >= 3);
+    Thread.sleep(100);
+    assertEquals(3, pool.getSize());
+    assertEquals(3, pool.created.get());
+  }
+}
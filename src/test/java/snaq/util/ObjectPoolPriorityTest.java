@@ -0,0 +1,147 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import snaq.util.ObjectPool.Priority;
+import static org.junit.Assert.*;
+
+/**
+ * Tests high-priority check-outs from {@link ObjectPool}, and the capacity
+ * reserved for them.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolPriorityTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Normal-priority check-outs leave the reserved capacity available for
+   * high-priority check-outs.
+   */
+  @Test(timeout = 10000)
+  public void testReserve() throws Exception
+  {
+    pool = new TestPool("Reserve", 0, 3, 3, 0);
+    pool.setHighPriorityReserve(1);
+    TestPool.Item a = pool.checkOut(1000);
+    assertNotNull(a);
+    assertNotNull(pool.checkOut(1000));
+    assertNull(pool.checkOut(50));
+    assertNotNull(pool.checkOut(1000, Priority.HIGH));
+    assertEquals(3, pool.getSize());
+
+    // A free item within the reserve is also kept for high priority.
+    pool.checkIn(a);
+    assertEquals(1, pool.getFreeCount());
+    assertNull(pool.checkOut(50));
+    assertNotNull(pool.checkOut(0, Priority.HIGH));
+  }
+
+  /**
+   * Reducing the reserve wakes waiting normal-priority check-outs.
+   */
+  @Test(timeout = 10000)
+  public void testReduceReserve() throws Exception
+  {
+    pool = new TestPool("ReduceReserve", 0, 2, 2, 0);
+    pool.setHighPriorityReserve(1);
+    assertNotNull(pool.checkOut(1000));
+    CompletableFuture<TestPool.Item> f = checkOutLater(5000, Priority.NORMAL);
+    TestPool.await("Check-out not waiting", () -> pool.getWaitingCount() == 1);
+    pool.setHighPriorityReserve(0);
+    assertNotNull(f.get(5, TimeUnit.SECONDS));
+    assertEquals(2, pool.getCheckedOut());
+  }
+
+  /**
+   * Waiting high-priority check-outs are handed items before waiting
+   * normal-priority check-outs, even if they started waiting later.
+   */
+  @Test(timeout = 10000)
+  public void testHighPriorityServedFirst() throws Exception
+  {
+    pool = new TestPool("PriorityOrder", 0, 1, 1, 0);
+    TestPool.Item item = pool.checkOut(1000);
+    CompletableFuture<TestPool.Item> normal = checkOutLater(5000, Priority.NORMAL);
+    TestPool.await("Normal check-out not waiting", () -> pool.getWaitingCount() == 1);
+    CompletableFuture<TestPool.Item> high = checkOutLater(5000, Priority.HIGH);
+    TestPool.await("High-priority check-out not waiting", () -> pool.getWaitingCount() == 2);
+
+    pool.checkIn(item);
+    item = high.get(5, TimeUnit.SECONDS);
+    assertNotNull(item);
+    assertFalse(normal.isDone());
+    pool.checkIn(item);
+    assertNotNull(normal.get(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Checks out an item on a new thread.
+   * @param timeout timeout value in milliseconds
+   * @param priority priority of the check-out
+   * @return future completed with the result of the check-out
+   */
+  private CompletableFuture<TestPool.Item> checkOutLater(long timeout, Priority priority)
+  {
+    CompletableFuture<TestPool.Item> f = new CompletableFuture<>();
+    new Thread(() ->
+    {
+      try
+      {
+        f.complete(pool.checkOut(timeout, priority));
+      }
+      catch (Throwable ex)
+      {
+        f.completeExceptionally(ex);
+      }
+    }).start();
+    return f;
+  }
+}
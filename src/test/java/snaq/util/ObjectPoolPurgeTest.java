@@ -0,0 +1,108 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests purging of idle items from {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolPurgeTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Items idle for longer than the idle timeout are purged,
+   * while items returned more recently are kept.
+   */
+  @Test(timeout = 10000)
+  public void testPurgeExpired() throws Exception
+  {
+    pool = new TestPool("PurgeExpired", 0, 4, 4, 1000);
+    TestPool.Item a = pool.checkOut(1000);
+    TestPool.Item b = pool.checkOut(1000);
+    pool.checkIn(a);
+    Thread.sleep(700);
+    pool.checkIn(b);
+    TestPool.await("Expired item not purged", () -> pool.getSize() == 1);
+    assertEquals(1, pool.getFreeCount());
+    assertSame(b, pool.checkOut(0));
+  }
+
+  /**
+   * Expired items are retained as required to maintain {@code minIdle}.
+   */
+  @Test(timeout = 10000)
+  public void testPurgeRetainsMinIdle() throws Exception
+  {
+    pool = new TestPool("PurgeMinIdle", 0, 4, 4, 200);
+    TestPool.Item a = pool.checkOut(1000);
+    TestPool.Item b = pool.checkOut(1000);
+    pool.setMinIdle(1);
+    pool.checkIn(a);
+    pool.checkIn(b);
+    TestPool.await("Expired item not purged", () -> pool.getSize() == 1);
+    Thread.sleep(500);
+    assertEquals(1, pool.getSize());
+    assertEquals(1, pool.getFreeCount());
+  }
+
+  /**
+   * Purging an empty pool reports that no further purge is required.
+   */
+  @Test(timeout = 10000)
+  public void testPurgeEmpty() throws Exception
+  {
+    pool = new TestPool("PurgeEmpty", 0, 4, 4, 60000);
+    assertFalse(pool.purge());
+    pool.checkIn(pool.checkOut(1000));
+    assertTrue(pool.purge());
+    assertEquals(1, pool.getFreeCount());
+  }
+}
@@ -0,0 +1,160 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests rejection of check-outs from an overloaded {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolRejectionTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Check-outs which would wait are rejected when the maximum number of
+   * threads are already waiting.
+   */
+  @Test(timeout = 10000)
+  public void testMaxWaiters() throws Exception
+  {
+    pool = new TestPool("MaxWaiters", 0, 1, 1, 0);
+    pool.setMaxWaiters(1);
+    final AtomicInteger events = new AtomicInteger();
+    pool.addObjectPoolListener(new ObjectPoolEventAdapter<TestPool.Item>()
+    {
+      @Override
+      public void checkOutRejected(ObjectPoolEvent<TestPool.Item> evt)
+      {
+        events.incrementAndGet();
+      }
+    });
+    TestPool.Item item = pool.checkOut(1000);
+    CompletableFuture<TestPool.Item> f = checkOutLater(5000);
+    TestPool.await("Check-out not waiting", () -> pool.getWaitingCount() == 1);
+
+    try
+    {
+      pool.checkOut(1000);
+      fail("Check-out should have been rejected");
+    }
+    catch (CheckOutRejectedException ex)
+    {
+    }
+    assertEquals(1, pool.getRejectedCount());
+    TestPool.await("Rejection event not fired", () -> events.get() == 1);
+    // Check-outs which would not wait are never rejected.
+    assertNull(pool.checkOut(0));
+    assertEquals(1, pool.getRejectedCount());
+
+    // The waiting check-out is unaffected.
+    pool.checkIn(item);
+    assertNotNull(f.get(5, TimeUnit.SECONDS));
+    assertEquals(1, pool.getRejectedCount());
+  }
+
+  /**
+   * Check-outs are rejected when items are not being checked in quickly
+   * enough to serve the waiting threads within the maximum expected wait.
+   */
+  @Test(timeout = 10000)
+  public void testMaxExpectedWait() throws Exception
+  {
+    pool = new TestPool("MaxExpectedWait", 0, 1, 1, 0);
+    pool.setMaxExpectedWait(50);
+    TestPool.Item item = pool.checkOut(1000);
+    // The first waiting thread is always admitted.
+    CompletableFuture<TestPool.Item> f = checkOutLater(5000);
+    TestPool.await("Check-out not waiting", () -> pool.getWaitingCount() == 1);
+
+    // With no check-in rate yet known, a further check-out is admitted.
+    assertNull(pool.checkOut(10));
+    assertEquals(0, pool.getRejectedCount());
+
+    // With no check-ins since, a further check-out is rejected.
+    Thread.sleep(150);
+    try
+    {
+      pool.checkOut(1000);
+      fail("Check-out should have been rejected");
+    }
+    catch (CheckOutRejectedException ex)
+    {
+    }
+    assertEquals(1, pool.getRejectedCount());
+
+    pool.checkIn(item);
+    assertNotNull(f.get(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Checks out an item on a new thread.
+   * @param timeout timeout value in milliseconds
+   * @return future completed with the result of the check-out
+   */
+  private CompletableFuture<TestPool.Item> checkOutLater(long timeout)
+  {
+    CompletableFuture<TestPool.Item> f = new CompletableFuture<>();
+    new Thread(() ->
+    {
+      try
+      {
+        f.complete(pool.checkOut(timeout));
+      }
+      catch (Throwable ex)
+      {
+        f.completeExceptionally(ex);
+      }
+    }).start();
+    return f;
+  }
+}
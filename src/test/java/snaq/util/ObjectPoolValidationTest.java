@@ -0,0 +1,145 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests validation of items in {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class ObjectPoolValidationTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Without a validation interval, free items are validated on every check-out
+   * (new items being validated when created).
+   */
+  @Test(timeout = 10000)
+  public void testAlwaysValidate() throws Exception
+  {
+    pool = new TestPool("Validate", 0, 1, 1, 0);
+    pool.checkIn(pool.checkOut(1000));
+    assertEquals(1, pool.validations.get());
+    pool.checkIn(pool.checkOut(1000));
+    pool.checkIn(pool.checkOut(1000));
+    assertEquals(3, pool.validations.get());
+  }
+
+  /**
+   * Items used within the validation interval are not validated again.
+   */
+  @Test(timeout = 10000)
+  public void testValidationInterval() throws Exception
+  {
+    pool = new TestPool("ValidationInterval", 0, 1, 1, 0);
+    pool.setValidationInterval(100);
+    pool.checkIn(pool.checkOut(1000));
+    pool.checkIn(pool.checkOut(1000));
+    pool.checkIn(pool.checkOut(1000));
+    assertEquals(1, pool.validations.get());
+
+    // Once the interval has passed, the item is validated again.
+    Thread.sleep(150);
+    pool.checkIn(pool.checkOut(1000));
+    assertEquals(2, pool.validations.get());
+  }
+
+  /**
+   * Items found to be invalid on check-out are destroyed and replaced.
+   */
+  @Test(timeout = 10000)
+  public void testInvalidItemReplaced() throws Exception
+  {
+    pool = new TestPool("ValidationInvalid", 0, 1, 1, 0);
+    TestPool.Item item = pool.checkOut(1000);
+    pool.checkIn(item);
+    item.invalid = true;
+    TestPool.Item next = pool.checkOut(1000);
+    assertNotNull(next);
+    assertNotEquals(item.id, next.id);
+    assertEquals(1, pool.getSize());
+    TestPool.await("Invalid item not destroyed", () -> pool.destroyed.get() == 1);
+  }
+
+  /**
+   * Idle items are validated in the background, and invalid items destroyed.
+   */
+  @Test(timeout = 10000)
+  public void testIdleValidation() throws Exception
+  {
+    pool = new TestPool("IdleValidation", 0, 2, 2, 0);
+    pool.setIdleValidationInterval(100);
+    TestPool.Item a = pool.checkOut(1000);
+    TestPool.Item b = pool.checkOut(1000);
+    pool.checkIn(a);
+    pool.checkIn(b);
+    assertEquals(2, pool.validations.get());
+    b.invalid = true;
+    TestPool.await("Invalid idle item not destroyed", () -> pool.destroyed.get() == 1);
+    assertEquals(1, pool.getSize());
+    assertEquals(1, pool.getFreeCount());
+    assertTrue(pool.validations.get() >= 3);
+    assertSame(a, pool.checkOut(0));
+  }
+
+  /**
+   * With background validation, recently used items are not validated on check-out.
+   */
+  @Test(timeout = 10000)
+  public void testNoValidationOnCheckOut() throws Exception
+  {
+    pool = new TestPool("IdleValidationCheckOut", 0, 1, 1, 0);
+    pool.setIdleValidationInterval(60000);
+    pool.checkIn(pool.checkOut(1000));
+    pool.checkIn(pool.checkOut(1000));
+    pool.checkIn(pool.checkOut(1000));
+    assertEquals(1, pool.validations.get());
+  }
+}
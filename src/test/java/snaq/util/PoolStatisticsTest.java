@@ -0,0 +1,130 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests statistics of {@link ObjectPool}, and snapshots of them
+ * ({@link PoolStatistics}).
+ *
+ * @author Giles Winstanley
+ */
+public class PoolStatisticsTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  @Test(timeout = 10000)
+  public void testSnapshot() throws Exception
+  {
+    pool = new TestPool("Statistics", 0, 2, 4, 0);
+    TestPool.Item a = pool.checkOut(1000);
+    TestPool.Item b = pool.checkOut(1000);
+    pool.checkIn(a);
+    assertSame(a, pool.checkOut(1000));
+    b.dirty = true;
+    pool.checkIn(b);
+
+    PoolStatistics stats = pool.snapshot();
+    assertEquals(0, stats.getMinPool());
+    assertEquals(2, stats.getMaxPool());
+    assertEquals(4, stats.getMaxSize());
+    assertEquals(1, stats.getSize());
+    assertEquals(1, stats.getCheckedOut());
+    assertEquals(0, stats.getFreeCount());
+    assertEquals(3, stats.getRequestCount());
+    assertEquals(1, stats.getHitCount());
+    assertEquals(2, stats.getCreationCount());
+    assertEquals(1, stats.getDestroyCount());
+    assertEquals(1f / 3, stats.getPoolHitRate(), 0.0001f);
+    assertEquals(2f / 3, stats.getPoolMissRate(), 0.0001f);
+    assertEquals(pool.getPoolHitRate(), stats.getPoolHitRate(), 0.0001f);
+
+    // Snapshots are unaffected by later activity.
+    pool.checkIn(a);
+    pool.resetHitCounter();
+    assertEquals(1, stats.getCheckedOut());
+    assertEquals(3, stats.getRequestCount());
+    assertEquals(0, pool.snapshot().getRequestCount());
+    assertEquals(1, pool.snapshot().getFreeCount());
+  }
+
+  /**
+   * Counters updated concurrently are not lost.
+   */
+  @Test(timeout = 30000)
+  public void testConcurrentCounts() throws Exception
+  {
+    pool = new TestPool("StatisticsConcurrent", 0, 8, 8, 0);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++)
+    {
+      Thread t = new Thread(() ->
+      {
+        try
+        {
+          for (int j = 0; j < 1000; j++)
+            pool.checkIn(pool.checkOut(5000));
+        }
+        catch (Exception ex)
+        {
+          throw new RuntimeException(ex);
+        }
+      });
+      threads.add(t);
+      t.start();
+    }
+    for (Thread t : threads)
+      t.join();
+    PoolStatistics stats = pool.snapshot();
+    assertEquals(8000, stats.getRequestCount());
+    assertEquals(stats.getRequestCount() - stats.getCreationCount(), stats.getHitCount());
+    assertEquals(0, stats.getCheckedOut());
+  }
+}
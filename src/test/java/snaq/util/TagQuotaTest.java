@@ -0,0 +1,203 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link TagQuota} accounting, and tag quotas of {@link ObjectPool}.
+ *
+ * @author Giles Winstanley
+ */
+public class TagQuotaTest
+{
+  private TestPool pool;
+
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+      pool.release();
+  }
+
+  /**
+   * Slots are limited to the maximum, and the shortfall of the guaranteed
+   * minimum is tracked as slots are acquired and released.
+   */
+  @Test(timeout = 10000)
+  public void testLimitsAndShortfall() throws Exception
+  {
+    AtomicInteger shortfall = new AtomicInteger();
+    TagQuota q = new TagQuota("a", shortfall);
+    q.setLimits(2, 1);
+    assertEquals(1, shortfall.get());
+    assertEquals("a=0/2 (min 1)", q.toString());
+
+    assertTrue(q.acquire(deadline(0)));
+    assertEquals(0, shortfall.get());
+    assertTrue(q.acquire(deadline(0)));
+    assertEquals(0, shortfall.get());
+    assertEquals(2, q.getCheckedOut());
+    assertFalse(q.acquire(deadline(20)));
+    assertEquals(1, q.getWaitCount());
+    assertEquals(1, q.getTimeoutCount());
+    assertEquals(2, q.getCheckedOut());
+
+    q.release();
+    assertEquals(0, shortfall.get());
+    q.release();
+    assertEquals(1, shortfall.get());
+    assertEquals(0, q.getCheckedOut());
+    assertEquals(2, q.getPeakCheckedOut());
+  }
+
+  /**
+   * Changing the limits adjusts the shortfall by the change in the
+   * unfulfilled guaranteed minimum.
+   */
+  @Test(timeout = 10000)
+  public void testChangeLimits() throws Exception
+  {
+    AtomicInteger shortfall = new AtomicInteger();
+    TagQuota q = new TagQuota("a", shortfall);
+    q.setLimits(0, 1);
+    assertTrue(q.acquire(deadline(0)));
+    assertEquals(0, shortfall.get());
+    q.setLimits(0, 3);
+    assertEquals(2, shortfall.get());
+    assertEquals("a=1/unlimited (min 3)", q.toString());
+    q.setLimits(0, 0);
+    assertEquals(0, shortfall.get());
+    q.release();
+    assertEquals(0, shortfall.get());
+  }
+
+  /**
+   * A thread waiting for a slot is woken when one is released.
+   */
+  @Test(timeout = 10000)
+  public void testReleaseWakesWaiter() throws Exception
+  {
+    TagQuota q = new TagQuota("a", new AtomicInteger());
+    q.setLimits(1, 0);
+    assertTrue(q.acquire(deadline(0)));
+    AtomicBoolean acquired = new AtomicBoolean();
+    Thread t = new Thread(() ->
+    {
+      try
+      {
+        acquired.set(q.acquire(deadline(5000)));
+      }
+      catch (InterruptedException ex)
+      {
+      }
+    });
+    t.start();
+    TestPool.await("Check-out did not wait for quota", () -> q.getWaitCount() == 1);
+    q.release();
+    t.join();
+    assertTrue(acquired.get());
+    assertEquals(1, q.getCheckedOut());
+    assertEquals(0, q.getTimeoutCount());
+  }
+
+  /**
+   * Check-outs with a tag at its maximum wait, without affecting other tags,
+   * and the slot is released when the item is checked in.
+   */
+  @Test(timeout = 10000)
+  public void testPoolMaximum() throws Exception
+  {
+    pool = new TestPool("TagMax", 0, 4, 4, 0);
+    pool.setTagQuota("a", 1, 0);
+    TestPool.Item a = pool.checkOut(1000, "a");
+    assertNotNull(a);
+    assertNull(pool.checkOut(50, "a"));
+    TestPool.Item b = pool.checkOut(1000, "b");
+    assertNotNull(b);
+    assertEquals("a=1/1, b=1/unlimited", pool.getTagUsage());
+
+    pool.checkIn(a);
+    pool.checkIn(b);
+    TagQuota q = pool.getTagQuota("a");
+    assertEquals(0, q.getCheckedOut());
+    assertEquals(1, q.getCheckOutCount());
+    assertEquals(1, q.getTimeoutCount());
+    assertNotNull(pool.checkOut(1000, "a"));
+    assertEquals(2, q.getCheckOutCount());
+  }
+
+  /**
+   * Capacity for a tag's guaranteed minimum is not used by other check-outs.
+   */
+  @Test(timeout = 10000)
+  public void testPoolMinimum() throws Exception
+  {
+    pool = new TestPool("TagMin", 0, 3, 3, 0);
+    pool.setTagQuota("a", 0, 2);
+    TestPool.Item x = pool.checkOut(1000);
+    assertNotNull(x);
+    assertNull(pool.checkOut(50));
+    assertNull(pool.checkOut(50, "b"));
+    assertNotNull(pool.checkOut(1000, "a"));
+    assertNotNull(pool.checkOut(1000, "a"));
+    assertEquals(3, pool.getCheckedOut());
+    assertEquals("a=2/unlimited (min 2), b=0/unlimited", pool.getTagUsage());
+
+    // With the minimum in use, other check-outs may use returned items.
+    pool.checkIn(x);
+    assertNotNull(pool.checkOut(1000));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidQuota()
+  {
+    pool = new TestPool("TagInvalid", 0, 3, 3, 0);
+    pool.setTagQuota("a", 1, 2);
+  }
+
+  private static long deadline(long millis)
+  {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
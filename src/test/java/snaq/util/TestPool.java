@@ -0,0 +1,136 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import static org.junit.Assert.fail;
+
+/**
+ * Simple {@link ObjectPool} implementation for testing, which keeps count
+ * of the items it creates, validates, and destroys.
+ *
+ * @author Giles Winstanley
+ */
+class TestPool extends ObjectPool<TestPool.Item>
+{
+  /** Number of items created. */
+  final AtomicInteger created = new AtomicInteger();
+  /** Number of items destroyed. */
+  final AtomicInteger destroyed = new AtomicInteger();
+  /** Number of item validations. */
+  final AtomicInteger validations = new AtomicInteger();
+  /** Time taken to create each item (milliseconds). */
+  volatile long createDelay = 0;
+  /** Flag determining whether items are valid. */
+  volatile boolean valid = true;
+  /** Flag determining whether item creation fails. */
+  volatile boolean failCreate = false;
+
+  TestPool(String name, int minPool, int maxPool, int maxSize, long idleTimeout)
+  {
+    super(name, minPool, maxPool, maxSize, idleTimeout);
+  }
+
+  @Override
+  protected Item create() throws Exception
+  {
+    if (createDelay > 0)
+      Thread.sleep(createDelay);
+    if (failCreate)
+      throw new Exception("Item creation failed");
+    return new Item(created.incrementAndGet());
+  }
+
+  @Override
+  protected boolean isValid(Item o)
+  {
+    validations.incrementAndGet();
+    return valid && !o.invalid;
+  }
+
+  @Override
+  protected void destroy(Item o)
+  {
+    destroyed.incrementAndGet();
+  }
+
+  /**
+   * Waits until the specified condition is true, failing if not within 10 seconds.
+   * @param message failure message
+   * @param condition condition for which to wait
+   */
+  static void await(String message, BooleanSupplier condition) throws InterruptedException
+  {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean())
+    {
+      if (System.nanoTime() - deadline > 0)
+        fail(message);
+      Thread.sleep(5);
+    }
+  }
+
+  /** Item to hold in the pool. */
+  static final class Item implements Reusable
+  {
+    /** Sequence number of the item. */
+    final int id;
+    /** Flag determining whether the item is dirty. */
+    volatile boolean dirty;
+    /** Flag determining whether the item is invalid. */
+    volatile boolean invalid;
+
+    Item(int id)
+    {
+      this.id = id;
+    }
+
+    @Override
+    public void recycle()
+    {
+    }
+
+    @Override
+    public boolean isDirty()
+    {
+      return dirty;
+    }
+  }
+}
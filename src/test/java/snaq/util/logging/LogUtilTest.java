@@ -0,0 +1,119 @@
+/*
+  ---------------------------------------------------------------------------
+  DBPool : Java Database Connection Pooling <http://www.snaq.net/>
+  Copyright (c) 2001-2013 Giles Winstanley. All Rights Reserved.
+
+  This is file is part of the DBPool project, which is licensed under
+  the BSD-style licence terms shown below.
+  ---------------------------------------------------------------------------
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are met:
+
+  1. Redistributions of source code must retain the above copyright notice,
+  this list of conditions and the following disclaimer.
+
+  2. Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+  3. The name of the author may not be used to endorse or promote products
+  derived from this software without specific prior written permission.
+
+  4. Redistributions of modified versions of the source code, must be
+  accompanied by documentation detailing which parts of the code are not part
+  of the original software.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS OR
+  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+  ---------------------------------------------------------------------------
+ */
+package snaq.util.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link LogUtil}.
+ *
+ * @author Giles Winstanley
+ */
+public class LogUtilTest
+{
+  /**
+   * Entries logged by many threads while the log writer is changed must
+   * each be written in full to exactly one writer.
+   */
+  @Test(timeout = 30000)
+  public void testConcurrentLoggingWhileChangingWriter() throws Exception
+  {
+    final int threads = 16;
+    final int entries = 1000;
+    final LogUtil log = new LogUtil();
+    final List<StringWriter> outputs = new CopyOnWriteArrayList<>();
+    StringWriter sw = new StringWriter();
+    outputs.add(sw);
+    log.setLog(new PrintWriter(sw), false);
+    log.setSeparator("|");
+
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> list = new ArrayList<>();
+    for (int i = 0; i < threads; i++)
+    {
+      final int n = i;
+      Thread t = new Thread(() ->
+      {
+        try
+        {
+          start.await();
+        }
+        catch (InterruptedException ix)
+        {
+          return;
+        }
+        for (int j = 0; j < entries; j++)
+          log.log("entry-" + n + "-" + j);
+      });
+      list.add(t);
+      t.start();
+    }
+    start.countDown();
+    while (list.stream().anyMatch(Thread::isAlive))
+    {
+      StringWriter next = new StringWriter();
+      outputs.add(next);
+      log.setLog(new PrintWriter(next), false);
+      Thread.sleep(1);
+    }
+    for (Thread t : list)
+      t.join();
+    log.close();
+
+    int count = 0;
+    for (StringWriter w : outputs)
+    {
+      for (String line : w.toString().split("\\R"))
+      {
+        if (line.isEmpty())
+          continue;
+        assertTrue("Malformed log entry: " + line, line.matches(".*\\|entry-\\d+-\\d+"));
+        count++;
+      }
+    }
+    assertEquals(threads * entries, count);
+    assertTrue(outputs.size() > 1);
+  }
+}